@@ -0,0 +1,59 @@
+package com.autobro.benchmark;
+
+import com.autobro.AutoBroApplication;
+import com.autobro.service.CarSearchIndex;
+import com.autobro.service.CatalogStatistics;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Поднимает контекст приложения поверх in-memory H2 (режим совместимости с PostgreSQL)
+ * и заполняет каталог синтетическими данными.
+ */
+public final class BenchmarkContext {
+
+    private static final String H2_URL = "jdbc:h2:mem:autobro_bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+        + "DEFAULT_NULL_ORDERING=HIGH;NON_KEYWORDS=YEAR,VALUE;DB_CLOSE_DELAY=-1";
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * Запускает приложение и заполняет базу
+     *
+     * @param cars количество автомобилей в каталоге
+     * @param photosPerCar количество фотографий у каждого автомобиля
+     * @param featuresPerCar количество характеристик безопасности у каждого автомобиля
+     * @param properties дополнительные свойства приложения в виде --key=value
+     * @return запущенный контекст; закрывать должен вызывающий код
+     */
+    public static ConfigurableApplicationContext start(int cars, int photosPerCar, int featuresPerCar, String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+            "--spring.datasource.url=" + H2_URL,
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.jpa.hibernate.ddl-auto=create",
+            "--spring.jpa.show-sql=false",
+            "--spring.jpa.properties.hibernate.format_sql=false",
+            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+            "--spring.sql.init.mode=never",
+            "--server.port=0",
+            "--logging.level.root=WARN",
+            "--app.upload.path=" + System.getProperty("java.io.tmpdir") + "/autobro-bench-uploads"
+        ));
+        args.addAll(List.of(properties));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(AutoBroApplication.class)
+            .logStartupInfo(false)
+            .run(args.toArray(new String[0]));
+        new CatalogSeeder(context.getBean(JdbcTemplate.class)).seed(cars, photosPerCar, featuresPerCar);
+        // Данные вставлены в обход сервиса — статистику каталога и поисковый индекс пересчитываем заново
+        context.getBean(CatalogStatistics.class).rebuild();
+        context.getBean(CarSearchIndex.class).rebuild();
+        return context;
+    }
+}
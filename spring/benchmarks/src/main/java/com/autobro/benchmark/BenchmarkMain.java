@@ -0,0 +1,27 @@
+package com.autobro.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Точка входа для запуска бенчмарков.
+ * Принимает стандартные аргументы JMH и всегда подключает GC-профайлер,
+ * чтобы в отчете была скорость аллокаций (gc.alloc.rate.norm) для каждой операции.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmdOptions = new CommandLineOptions(args);
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(cmdOptions);
+        boolean gcProfilerRequested = cmdOptions.getProfilers().stream()
+            .anyMatch(profiler -> profiler.getKlass().equals(GCProfiler.class.getName())
+                || profiler.getKlass().equals("gc"));
+        if (!gcProfilerRequested) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        new Runner(builder.build()).run();
+    }
+}
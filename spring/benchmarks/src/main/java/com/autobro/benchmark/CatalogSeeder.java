@@ -0,0 +1,140 @@
+package com.autobro.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Заполняет каталог синтетическими автомобилями с фото и характеристиками безопасности.
+ * Данные генерируются детерминированно (фиксированный seed), чтобы прогоны были сравнимы.
+ */
+public class CatalogSeeder {
+
+    static final String[] MAKES = {
+        "Toyota", "BMW", "Mercedes-Benz", "Audi", "Volkswagen", "Kia", "Hyundai", "Lada",
+        "Skoda", "Nissan", "Mazda", "Honda", "Lexus", "Volvo", "Ford", "Renault"
+    };
+    static final String[] BODY_TYPES = {
+        "Седан", "Хэтчбек", "Универсал", "Внедорожник", "Кроссовер", "Купе", "Кабриолет", "Минивэн"
+    };
+    static final String[] COLORS = {"Белый", "Черный", "Серебристый", "Красный", "Синий", "Зеленый"};
+    static final String[] FUEL_TYPES = {"Бензин", "Дизель", "Гибрид", "Электро"};
+    static final String[] TRANSMISSIONS = {"Механика", "Автомат", "Робот", "Вариатор"};
+    static final String[] DRIVES = {"Передний", "Задний", "Полный"};
+    static final String[] CITIES = {
+        "Москва, Россия", "Санкт-Петербург, Россия", "Казань, Россия", "Минск, Беларусь", "Алматы, Казахстан"
+    };
+    private static final int SAFETY_FEATURES = 12;
+    private static final int MODELS_PER_MAKE = 8;
+    private static final int BATCH_SIZE = 5_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CatalogSeeder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void seed(int cars, int photosPerCar, int featuresPerCar) {
+        seedDictionaries();
+
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> carRows = new ArrayList<>(BATCH_SIZE);
+        List<Object[]> specRows = new ArrayList<>(BATCH_SIZE);
+        List<Object[]> photoRows = new ArrayList<>(BATCH_SIZE * Math.max(photosPerCar, 1));
+        List<Object[]> featureRows = new ArrayList<>(BATCH_SIZE * Math.max(featuresPerCar, 1));
+        long photoId = 1;
+
+        for (long carId = 1; carId <= cars; carId++) {
+            String make = MAKES[random.nextInt(MAKES.length)];
+            Timestamp createdAt = Timestamp.valueOf(now.minusMinutes(random.nextInt(525_600)));
+            String mainPhotoUrl = photosPerCar > 0 ? photoUrl(carId, 0) : null;
+            carRows.add(new Object[]{
+                carId, make, make + " Model " + random.nextInt(MODELS_PER_MAKE), 2000 + random.nextInt(26),
+                1L + random.nextInt(BODY_TYPES.length), BigDecimal.valueOf(300_000L + random.nextInt(15_000_000)),
+                random.nextInt(300_000), 1L + random.nextInt(COLORS.length), "Отличное",
+                CITIES[random.nextInt(CITIES.length)], mainPhotoUrl, createdAt, createdAt
+            });
+
+            String fuelType = FUEL_TYPES[random.nextInt(FUEL_TYPES.length)];
+            double engineVolume = 1.0 + random.nextInt(40) / 10.0;
+            int horsePower = 70 + random.nextInt(500);
+            String transmission = TRANSMISSIONS[random.nextInt(TRANSMISSIONS.length)];
+            specRows.add(new Object[]{
+                carId, carId, fuelType, engineVolume, horsePower, DRIVES[random.nextInt(DRIVES.length)],
+                transmission, fuelType + " " + engineVolume + "L " + horsePower + "HP", transmission,
+                4 + random.nextInt(6)
+            });
+
+            for (int i = 0; i < photosPerCar; i++) {
+                photoRows.add(new Object[]{photoId++, carId, photoUrl(carId, i), i == 0});
+            }
+            int firstFeature = random.nextInt(SAFETY_FEATURES);
+            for (int i = 0; i < Math.min(featuresPerCar, SAFETY_FEATURES); i++) {
+                featureRows.add(new Object[]{carId, 1L + (firstFeature + i) % SAFETY_FEATURES});
+            }
+
+            if (carRows.size() == BATCH_SIZE) {
+                flush(carRows, specRows, photoRows, featureRows);
+            }
+        }
+        flush(carRows, specRows, photoRows, featureRows);
+
+        // ID выше заданы явно — последовательности продолжают нумерацию после них
+        restartSequence("cars_id_seq", cars + 1L);
+        restartSequence("car_tech_specs_id_seq", cars + 1L);
+        restartSequence("car_photos_id_seq", photoId);
+        restartSequence("body_types_id_seq", BODY_TYPES.length + 1L);
+        restartSequence("colors_id_seq", COLORS.length + 1L);
+        restartSequence("safety_features_id_seq", SAFETY_FEATURES + 1L);
+    }
+
+    private void restartSequence(String sequence, long nextId) {
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + nextId);
+    }
+
+    private void seedDictionaries() {
+        List<Object[]> bodyTypes = new ArrayList<>();
+        for (int i = 0; i < BODY_TYPES.length; i++) {
+            bodyTypes.add(new Object[]{i + 1L, BODY_TYPES[i]});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO body_types (id, name) VALUES (?, ?)", bodyTypes);
+
+        List<Object[]> colors = new ArrayList<>();
+        for (int i = 0; i < COLORS.length; i++) {
+            colors.add(new Object[]{i + 1L, COLORS[i], String.format("#%06X", i * 0x2A2A2A)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO colors (id, name, hex_code) VALUES (?, ?, ?)", colors);
+
+        List<Object[]> features = new ArrayList<>();
+        for (int i = 0; i < SAFETY_FEATURES; i++) {
+            features.add(new Object[]{i + 1L, "Система безопасности " + (i + 1), i % 2 == 0 ? "ACTIVE" : "PASSIVE"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO safety_features (id, name, feature_type) VALUES (?, ?, ?)", features);
+    }
+
+    private void flush(List<Object[]> carRows, List<Object[]> specRows,
+                       List<Object[]> photoRows, List<Object[]> featureRows) {
+        jdbcTemplate.batchUpdate("INSERT INTO cars (id, make, model, year, body_type_id, price, mileage, color_id, "
+            + "car_condition, location, main_photo_url, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", carRows);
+        jdbcTemplate.batchUpdate("INSERT INTO car_tech_specs (id, car_id, fuel_type, engine_volume, horse_power, "
+            + "drive_type, transmission_type, engine_info, transmission_info, gears) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", specRows);
+        jdbcTemplate.batchUpdate("INSERT INTO car_photos (id, car_id, url, main_photo) VALUES (?, ?, ?, ?)", photoRows);
+        jdbcTemplate.batchUpdate("INSERT INTO car_safety_features (car_id, feature_id) VALUES (?, ?)", featureRows);
+        carRows.clear();
+        specRows.clear();
+        photoRows.clear();
+        featureRows.clear();
+    }
+
+    private static String photoUrl(long carId, int index) {
+        return "/uploads/cars/" + carId + "/photo-" + index + ".jpg";
+    }
+}
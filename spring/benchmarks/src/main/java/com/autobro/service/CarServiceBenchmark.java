@@ -0,0 +1,149 @@
+package com.autobro.service;
+
+import com.autobro.benchmark.BenchmarkContext;
+import com.autobro.dto.CarDTO;
+import com.autobro.dto.CarFilterDTO;
+import com.autobro.dto.CursorPage;
+import com.autobro.model.Car;
+import com.autobro.repository.CarRepository;
+import com.autobro.repository.CarSortField;
+import org.hibernate.Hibernate;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки горячих путей {@link CarService} на заполненном каталоге.
+ * Режим SampleTime дает перцентили (p99) времени одной операции,
+ * Throughput — пропускную способность.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CarServiceBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int cars;
+
+    @Param({"5"})
+    private int photosPerCar;
+
+    @Param({"4"})
+    private int featuresPerCar;
+
+    // Поиск через SQL (false) или через индекс в памяти CarSearchIndex (true)
+    @Param({"false", "true"})
+    private boolean inMemorySearch;
+
+    private ConfigurableApplicationContext context;
+    private CarService carService;
+    private CarFilterDTO firstPageFilter;
+    private CarFilterDTO selectiveFilter;
+    private CarFilterDTO deepOffsetFilter;
+    private CarFilterDTO deepCursorFilter;
+    private Car loadedCar;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(cars, photosPerCar, featuresPerCar,
+            "--app.search.in-memory.enabled=" + inMemorySearch);
+        carService = context.getBean(CarService.class);
+
+        firstPageFilter = new CarFilterDTO();
+        firstPageFilter.setPage(0);
+        firstPageFilter.setSize(20);
+        firstPageFilter.setSortBy("price");
+        firstPageFilter.setSortDirection("desc");
+
+        selectiveFilter = new CarFilterDTO();
+        selectiveFilter.setMake(List.of("Toyota", "BMW"));
+        selectiveFilter.setMinYear(2015);
+        selectiveFilter.setMaxPrice(BigDecimal.valueOf(5_000_000));
+        selectiveFilter.setFuelType("Бензин");
+        selectiveFilter.setPage(0);
+        selectiveFilter.setSize(20);
+
+        // Страница из середины каталога: offset-пагинация против курсора на той же позиции
+        int deepPage = cars / 20 / 2;
+        deepOffsetFilter = new CarFilterDTO();
+        deepOffsetFilter.setPage(deepPage);
+        deepOffsetFilter.setSize(20);
+        deepOffsetFilter.setSortBy("price");
+        deepOffsetFilter.setSortDirection("desc");
+
+        CarFilterDTO previousPage = new CarFilterDTO();
+        previousPage.setPage(deepPage - 1);
+        previousPage.setSize(20);
+        previousPage.setSortBy("price");
+        previousPage.setSortDirection("desc");
+        List<CarDTO> previous = carService.findCars(previousPage).getContent();
+        CarDTO last = previous.get(previous.size() - 1);
+        deepCursorFilter = new CarFilterDTO();
+        deepCursorFilter.setSize(20);
+        deepCursorFilter.setSortBy("price");
+        deepCursorFilter.setSortDirection("desc");
+        deepCursorFilter.setCursor(new CarCursor(CarSortField.PRICE, Sort.Direction.DESC, last.getPrice(), last.getId()).encode());
+
+        // Автомобиль с полностью загруженными связями, чтобы измерять только саму конвертацию
+        CarRepository carRepository = context.getBean(CarRepository.class);
+        TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        loadedCar = tx.execute(status -> {
+            Car car = carRepository.findById((long) cars / 2).orElseThrow();
+            Hibernate.initialize(car.getPhotos());
+            Hibernate.initialize(car.getSafetyFeatures());
+            Hibernate.initialize(car.getTechnicalSpec());
+            return car;
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<CarDTO> findCarsFirstPage() {
+        return carService.findCars(firstPageFilter);
+    }
+
+    @Benchmark
+    public Page<CarDTO> findCarsSelective() {
+        return carService.findCars(selectiveFilter);
+    }
+
+    @Benchmark
+    public Page<CarDTO> findCarsDeepOffsetPage() {
+        return carService.findCars(deepOffsetFilter);
+    }
+
+    @Benchmark
+    public CursorPage<CarDTO> findCarsDeepCursorPage() {
+        return carService.findCarsByCursor(deepCursorFilter);
+    }
+
+    @Benchmark
+    public CarDTO convertToDTO() {
+        return carService.convertToDTO(loadedCar);
+    }
+
+    @Benchmark
+    public List<String> getAllMakes() {
+        return carService.getAllMakes();
+    }
+
+    @Benchmark
+    public Map<String, BigDecimal> getPriceRange() {
+        return carService.getPriceRange();
+    }
+}
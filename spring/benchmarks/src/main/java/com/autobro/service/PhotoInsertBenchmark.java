@@ -0,0 +1,80 @@
+package com.autobro.service;
+
+import com.autobro.benchmark.BenchmarkContext;
+import com.autobro.model.Car;
+import com.autobro.model.Photo;
+import com.autobro.repository.PhotoRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк создания автомобиля с большой галереей (как в POST /api/cars с фотографиями):
+ * автомобиль и его фотографии сохраняются в одной транзакции.
+ * jdbcBatchSize=0 соответствует прежнему поведению с IDENTITY (вставка на каждую запись),
+ * 50 — вставкам пачками, которые возможны с ID из последовательностей.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PhotoInsertBenchmark {
+
+    @Param({"20"})
+    private int photos;
+
+    @Param({"0", "50"})
+    private int jdbcBatchSize;
+
+    private ConfigurableApplicationContext context;
+    private CarService carService;
+    private PhotoRepository photoRepository;
+    private TransactionTemplate tx;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(1_000, 5, 4,
+            "--spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize);
+        carService = context.getBean(CarService.class);
+        photoRepository = context.getBean(PhotoRepository.class);
+        tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long createCarWithPhotos() {
+        return tx.execute(status -> {
+            Car car = new Car();
+            car.setMake("Toyota");
+            car.setModel("Camry");
+            car.setYear(2020);
+            car.setPrice(BigDecimal.valueOf(2_500_000));
+            car.setMileage(30_000);
+            car = carService.save(car);
+
+            List<Photo> gallery = new ArrayList<>(photos);
+            for (int i = 0; i < photos; i++) {
+                Photo photo = new Photo();
+                photo.setCar(car);
+                photo.setUrl("/uploads/cars/" + car.getId() + "/photo-" + i + ".jpg");
+                photo.setMainPhoto(i == 0);
+                photo.setPosition(i);
+                gallery.add(photo);
+            }
+            photoRepository.saveAll(gallery);
+            return car.getId();
+        });
+    }
+}
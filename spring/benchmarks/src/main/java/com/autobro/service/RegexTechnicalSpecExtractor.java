@@ -0,0 +1,70 @@
+package com.autobro.service;
+
+import com.autobro.dto.TechnicalSpecDTO;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Прежняя реализация извлечения характеристик (AutoRuParser.extractTechnicalSpec) —
+ * точка отсчета для {@link TechnicalSpecExtractorBenchmark}.
+ */
+final class RegexTechnicalSpecExtractor {
+
+    private RegexTechnicalSpecExtractor() {
+    }
+
+    static TechnicalSpecDTO extract(String description) {
+        TechnicalSpecDTO spec = new TechnicalSpecDTO();
+        
+        // Извлекаем объем двигателя
+        Pattern engineVolumePattern = Pattern.compile("(\\d+[.,]\\d+)\\s*л");
+        Matcher engineVolumeMatcher = engineVolumePattern.matcher(description);
+        if (engineVolumeMatcher.find()) {
+            String volumeStr = engineVolumeMatcher.group(1).replace(',', '.');
+            spec.setEngineVolume(Double.parseDouble(volumeStr));
+        }
+        
+        // Извлекаем мощность двигателя
+        Pattern horsePowerPattern = Pattern.compile("(\\d+)\\s*л\\.?с\\.?");
+        Matcher horsePowerMatcher = horsePowerPattern.matcher(description);
+        if (horsePowerMatcher.find()) {
+            spec.setHorsePower(Integer.parseInt(horsePowerMatcher.group(1)));
+        }
+        
+        // Определяем тип топлива
+        if (description.toLowerCase().contains("бензин")) {
+            spec.setFuelType("Бензин");
+        } else if (description.toLowerCase().contains("дизель")) {
+            spec.setFuelType("Дизель");
+        } else if (description.toLowerCase().contains("электро")) {
+            spec.setFuelType("Электро");
+        } else if (description.toLowerCase().contains("гибрид")) {
+            spec.setFuelType("Гибрид");
+        }
+        
+        // Определяем тип трансмиссии
+        if (description.toLowerCase().contains("механика") || description.toLowerCase().contains("мкпп")) {
+            spec.setTransmissionType("Механика");
+        } else if (description.toLowerCase().contains("автомат") || description.toLowerCase().contains("акпп")) {
+            spec.setTransmissionType("Автомат");
+        } else if (description.toLowerCase().contains("робот")) {
+            spec.setTransmissionType("Робот");
+        } else if (description.toLowerCase().contains("вариатор") || description.toLowerCase().contains("cvt")) {
+            spec.setTransmissionType("Вариатор");
+        }
+        
+        // Определяем тип привода
+        if (description.toLowerCase().contains("передний привод") || description.toLowerCase().contains("fwd")) {
+            spec.setDriveType("Передний");
+        } else if (description.toLowerCase().contains("задний привод") || description.toLowerCase().contains("rwd")) {
+            spec.setDriveType("Задний");
+        } else if (description.toLowerCase().contains("полный привод") || 
+                  description.toLowerCase().contains("4wd") || 
+                  description.toLowerCase().contains("awd")) {
+            spec.setDriveType("Полный");
+        }
+        
+        return spec;
+    }
+}
@@ -0,0 +1,72 @@
+package com.autobro.service;
+
+import com.autobro.dto.TechnicalSpecDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк извлечения технических характеристик из текстового описания объявления:
+ * прежняя реализация на регулярных выражениях и contains (regex) против TechnicalSpecExtractor (automaton).
+ * Описания берутся из tech-spec-golden.jsonl основного модуля; совпадение результатов с ожидаемыми
+ * проверяет TechnicalSpecExtractorTest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TechnicalSpecExtractorBenchmark {
+
+    static final String GOLDEN_FILE = "/tech-spec-golden.jsonl";
+
+    @Param({"regex", "automaton"})
+    private String implementation;
+
+    private String[] descriptions;
+    private int index;
+
+    public record GoldenCase(String description, TechnicalSpecDTO expected) {
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        descriptions = loadGoldenCases().stream().map(GoldenCase::description).toArray(String[]::new);
+    }
+
+    @Benchmark
+    public TechnicalSpecDTO extractTechnicalSpec() {
+        String description = descriptions[index];
+        index = (index + 1) % descriptions.length;
+        return "regex".equals(implementation)
+            ? RegexTechnicalSpecExtractor.extract(description)
+            : TechnicalSpecExtractor.extract(description);
+    }
+
+    static List<GoldenCase> loadGoldenCases() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        List<GoldenCase> cases = new ArrayList<>();
+        try (InputStream in = TechnicalSpecExtractorBenchmark.class.getResourceAsStream(GOLDEN_FILE)) {
+            if (in == null) {
+                throw new IOException("Не найден " + GOLDEN_FILE);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    cases.add(mapper.readValue(line, GoldenCase.class));
+                }
+            }
+        }
+        return cases;
+    }
+}
@@ -3,13 +3,17 @@
  * 
  * Использование:
  * node auto_ru_parser.js <url> [--details]
+ * node auto_ru_parser.js --worker
  * 
  * Параметры:
  * url - URL страницы с автомобилями на auto.ru
  * --details - флаг для парсинга детальной информации об автомобиле
+ * --worker - постоянный процесс: браузер запускается один раз, запросы читаются из stdin,
+ *            ответы пишутся в stdout по одному JSON-объекту на строку (протокол ниже, см. runWorker)
  */
 
 const { chromium } = require('playwright');
+const readline = require('readline');
 
 // Конфигурация
 const USER_AGENT = 'Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36';
@@ -18,19 +22,24 @@ const WAIT_FOR_SELECTOR_TIMEOUT = 30000; // 30 секунд
 
 // Получаем аргументы командной строки
 const args = process.argv.slice(2);
+const isWorkerMode = args.includes('--worker');
 if (args.length === 0) {
   console.error('Необходимо указать URL для парсинга');
   process.exit(1);
 }
 
-const url = args[0];
-const isDetailMode = args.includes('--details');
+/**
+ * Служебные сообщения пишутся в stderr: stdout содержит только результат
+ */
+function log(message) {
+  console.error(message);
+}
 
 /**
- * Основная функция парсинга
+ * Запуск браузера
  */
-async function parseAutoRu() {
-  const browser = await chromium.launch({
+async function launchBrowser() {
+  return chromium.launch({
     headless: true,
     args: [
       '--disable-web-security',
@@ -38,18 +47,23 @@ async function parseAutoRu() {
       '--disable-site-isolation-trials'
     ]
   });
+}
 
-  try {
-    const context = await browser.newContext({
-      userAgent: USER_AGENT,
-      viewport: { width: 1920, height: 1080 },
-      deviceScaleFactor: 1,
-      locale: 'ru-RU',
-      timezoneId: 'Europe/Moscow',
-      permissions: ['geolocation'],
-      geolocation: { latitude: 55.7558, longitude: 37.6173 }, // Москва
-    });
+/**
+ * Парсинг одной страницы в отдельном контексте браузера (cookies и хранилище не переходят между запросами)
+ */
+async function parsePage(browser, url, isDetailMode) {
+  const context = await browser.newContext({
+    userAgent: USER_AGENT,
+    viewport: { width: 1920, height: 1080 },
+    deviceScaleFactor: 1,
+    locale: 'ru-RU',
+    timezoneId: 'Europe/Moscow',
+    permissions: ['geolocation'],
+    geolocation: { latitude: 55.7558, longitude: 37.6173 }, // Москва
+  });
 
+  try {
     // Включаем перехват запросов для блокировки ненужных ресурсов
     await context.route('**/*.{png,jpg,jpeg,gif,svg,woff,woff2,ttf,otf,eot}', route => route.abort());
     await context.route('**/(analytics|tracking|adservice|pagead|doubleclick)/**', route => route.abort());
@@ -59,29 +73,104 @@ async function parseAutoRu() {
     // Устанавливаем таймаут
     page.setDefaultTimeout(TIMEOUT);
     
-    console.log(`Открываем страницу: ${url}`);
+    log(`Открываем страницу: ${url}`);
     await page.goto(url, { waitUntil: 'domcontentloaded' });
 
     // Проверяем наличие капчи и пытаемся её обойти
     await handleCaptcha(page);
 
     // В зависимости от режима парсим список или детали
-    if (isDetailMode) {
-      const carDetails = await parseCarDetails(page);
-      console.log(JSON.stringify(carDetails, null, 2));
-    } else {
-      const cars = await parseCarsList(page);
-      console.log(JSON.stringify(cars, null, 2));
-    }
+    return isDetailMode ? await parseCarDetails(page) : await parseCarsList(page);
+  } finally {
+    await context.close();
+  }
+}
+
+/**
+ * Разовый запуск: результат печатается в stdout, после чего браузер закрывается
+ */
+async function parseAutoRu(url, isDetailMode) {
+  const browser = await launchBrowser();
 
+  try {
+    const result = await parsePage(browser, url, isDetailMode);
+    console.log(JSON.stringify(result, null, 2));
   } catch (error) {
     console.error('Ошибка при парсинге:', error);
-    process.exit(1);
+    process.exitCode = 1;
   } finally {
     await browser.close();
   }
 }
 
+/**
+ * Постоянный процесс для пула в приложении (ParserWorkerPool).
+ * После запуска браузера пишет {"type": "ready"}, затем на каждую строку запроса
+ * {"id": 1, "type": "list" | "details" | "ping", "url": "..."} отвечает строкой
+ * {"id": 1, "ok": true, "result": ...} или {"id": 1, "ok": false, "error": "..."}.
+ * Список автомобилей передается по одному автомобилю на строку {"id": 1, "item": {...}}
+ * с завершающей строкой {"id": 1, "ok": true, "count": N}: приложение обрабатывает автомобили по мере получения.
+ * Закрытие stdin завершает процесс, падение браузера — тоже (с кодом 1), пул запустит новый процесс.
+ */
+async function runWorker() {
+  const browser = await launchBrowser();
+  const onDisconnected = () => {
+    log('Браузер завершился');
+    process.exit(1);
+  };
+  browser.on('disconnected', onDisconnected);
+
+  const send = message => process.stdout.write(JSON.stringify(message) + '\n');
+
+  // Запросы выполняются по очереди: пул не отправляет следующий, пока не получит ответ
+  let queue = Promise.resolve();
+  const input = readline.createInterface({ input: process.stdin });
+  input.on('line', line => {
+    queue = queue.then(() => handleRequest(browser, line, send));
+  });
+  input.on('close', async () => {
+    await queue;
+    browser.off('disconnected', onDisconnected);
+    await browser.close();
+    process.exit(0);
+  });
+
+  send({ type: 'ready' });
+}
+
+/**
+ * Обработка одного запроса постоянного процесса
+ */
+async function handleRequest(browser, line, send) {
+  let request;
+  try {
+    request = JSON.parse(line);
+  } catch (error) {
+    send({ ok: false, error: `Некорректный запрос: ${error.message}` });
+    return;
+  }
+
+  try {
+    if (request.type === 'ping') {
+      send({ id: request.id, ok: browser.isConnected(), result: 'pong' });
+      return;
+    }
+    if (request.type === 'details') {
+      const result = await parsePage(browser, request.url, true);
+      send({ id: request.id, ok: true, result });
+      return;
+    }
+    const cars = await parsePage(browser, request.url, false);
+    for (const car of cars) {
+      send({ id: request.id, item: car });
+    }
+    send({ id: request.id, ok: true, count: cars.length });
+  } catch (error) {
+    log(`Ошибка при парсинге ${request.url}: ${error.stack || error}`);
+    send({ id: request.id, ok: false, error: error.message || String(error) });
+  }
+}
+
 /**
  * Обработка капчи
  */
@@ -117,7 +206,7 @@ async function handleCaptcha(page) {
         throw new Error('Не удалось обойти капчу автоматически');
       }
       
-      console.log('Капча успешно пройдена');
+      log('Капча успешно пройдена');
     }
   } catch (error) {
     console.error('Ошибка при обработке капчи:', error);
@@ -418,7 +507,7 @@ async function autoScroll(page) {
 }
 
 // Запускаем парсинг
-parseAutoRu().catch(error => {
+(isWorkerMode ? runWorker() : parseAutoRu(args[0], args.includes('--details'))).catch(error => {
   console.error('Критическая ошибка:', error);
   process.exit(1);
 });
@@ -0,0 +1,209 @@
+/**
+ * Локальная замена auto.ru для проверки обхода объявлений (ListingCrawler) без обращения к настоящему сайту.
+ * Отдает страницы выдачи и объявлений с той же разметкой, которую разбирает auto_ru_parser.js,
+ * поэтому с ним работает и настоящий парсер (нужен браузер Playwright), и fake_parser_worker.js.
+ *
+ * Использование:
+ * node fake_auto_ru_server.js [port] [listings]
+ *
+ * parser.crawler.urls: http://localhost:8099/moskva/cars/all/?sort=cr_date-desc
+ *
+ * Выдача отсортирована по дате размещения, по PAGE_SIZE объявлений на страницу (?page=N).
+ * Состояние меняется запросами:
+ * POST /__fake/next?new=3&changed=1 - новые объявления в начало выдачи и новая цена у существующих
+ * POST /__fake/delay?ms=300&slow=3000&every=5 - задержка ответа страниц объявлений (каждая every-я — slow)
+ * POST /__fake/reset                - исходный набор объявлений
+ * GET  /__fake/state                - текущие объявления в JSON
+ */
+
+const http = require('http');
+
+const PAGE_SIZE = 10;
+const port = parseInt(process.argv[2] || '8099', 10);
+const initialCount = parseInt(process.argv[3] || '25', 10);
+
+const MAKES = [
+  ['Toyota', 'Camry'], ['Kia', 'Rio'], ['Hyundai', 'Solaris'], ['Volkswagen', 'Tiguan'],
+  ['Skoda', 'Octavia'], ['BMW', 'X5'], ['Lada', 'Vesta'], ['Mazda', 'CX-5']
+];
+const BODY_TYPES = ['седан', 'хэтчбек', 'универсал', 'внедорожник', 'кроссовер'];
+const COLORS = ['Белый', 'Черный', 'Серый', 'Синий', 'Красный'];
+const CITIES = ['Москва', 'Санкт-Петербург', 'Казань', 'Екатеринбург'];
+
+let listings = [];
+let nextId = 1;
+let detailsDelay = { ms: 0, slow: 0, every: 0 };
+
+// Объявление однозначно определяется номером, поэтому после reset данные совпадают с прошлым запуском
+function createListing(id) {
+  const [make, model] = MAKES[id % MAKES.length];
+  return {
+    id,
+    make,
+    model,
+    year: 2010 + (id % 14),
+    price: 800000 + (id * 37000) % 3000000,
+    mileage: 10000 + (id * 7919) % 200000,
+    fuel: id % 5 === 0 ? 'Дизель' : 'Бензин',
+    volume: (1.4 + (id % 6) * 0.2).toFixed(1),
+    horsePower: 100 + (id * 13) % 150,
+    transmission: id % 3 === 0 ? 'механика' : 'автомат',
+    drive: id % 4 === 0 ? 'полный привод' : 'передний привод',
+    bodyType: BODY_TYPES[id % BODY_TYPES.length],
+    color: COLORS[id % COLORS.length],
+    city: CITIES[id % CITIES.length]
+  };
+}
+
+function reset() {
+  nextId = 1;
+  listings = [];
+  for (let i = 0; i < initialCount; i++) {
+    listings.unshift(createListing(nextId++));
+  }
+}
+
+function escapeHtml(text) {
+  return String(text).replace(/[&<>"]/g, c => ({ '&': '&amp;', '<': '&lt;', '>': '&gt;', '"': '&quot;' })[c]);
+}
+
+function listingUrl(host, listing) {
+  return `http://${host}/cars/used/sale/${listing.make.toLowerCase()}/${listing.id}/`;
+}
+
+// Поля, которые auto_ru_parser.js получает со страницы выдачи
+function toParsedCar(host, listing) {
+  return {
+    make: listing.make,
+    model: listing.model,
+    year: listing.year,
+    price: listing.price,
+    mileage: listing.mileage,
+    engine: `${listing.fuel}, ${listing.volume} л`,
+    horsePower: listing.horsePower,
+    color: listing.color,
+    imageUrl: '',
+    city: listing.city,
+    bodyType: listing.bodyType.charAt(0).toUpperCase() + listing.bodyType.slice(1),
+    transmission: listing.transmission === 'механика' ? 'Механика' : 'Автомат',
+    drive: listing.drive.startsWith('полный') ? 'Полный' : 'Передний',
+    url: listingUrl(host, listing)
+  };
+}
+
+function renderListPage(host, page) {
+  const items = listings.slice((page - 1) * PAGE_SIZE, page * PAGE_SIZE);
+  const html = items.map(listing => `
+    <div class="ListingItem">
+      <div class="ListingItem__image"><img src=""></div>
+      <a class="ListingItemTitle__link" href="${listingUrl(host, listing)}">
+        <span class="ListingItem__title">${escapeHtml(listing.make)} ${escapeHtml(listing.model)}</span>
+      </a>
+      <div class="ListingItem__techSummary">${listing.fuel} ${listing.volume} л, ${listing.horsePower} л.с., `
+        + `${listing.transmission}, ${listing.drive}, ${listing.bodyType}</div>
+      <div class="ListingItem__year">${listing.year}</div>
+      <div class="ListingItemPrice__content">${listing.price.toLocaleString('ru-RU')} ₽</div>
+      <div class="ListingItem__kmAge">${listing.mileage.toLocaleString('ru-RU')} км</div>
+      <div class="ListingItem__color">${listing.color}</div>
+      <div class="ListingItem__geoInfo">${listing.city}</div>
+    </div>`).join('');
+  // Те же данные в JSON для fake_parser_worker.js, которому не нужен браузер
+  const data = JSON.stringify(items.map(listing => toParsedCar(host, listing))).replace(/</g, '\\u003c');
+  return `<!DOCTYPE html><html><head><meta charset="utf-8"><title>Купить автомобиль</title></head><body>
+    <div class="ListingCars">${html}</div>
+    <script type="application/json" id="fake-listings">${data}</script>
+  </body></html>`;
+}
+
+function renderDetailsPage(host, listing) {
+  const row = (label, value) => `<div class="CardInfoRow"><span class="CardInfoRow__label">${label}</span>`
+    + `<span class="CardInfoRow__value">${escapeHtml(value)}</span></div>`;
+  const description = `Один владелец, обслуживание у дилера. ${listing.transmission === 'механика' ? 'Механика' : 'Автомат'} `
+    + `${5 + listing.id % 4}-ступенчатая, ${listing.drive}.`;
+  const equipment = ['Кондиционер', 'Подогрев сидений', 'Парктроник'].slice(0, 1 + listing.id % 3);
+  // Страница объявления дополняет данные выдачи описанием и комплектацией, как на auto.ru
+  const data = JSON.stringify({ ...toParsedCar(host, listing), description, equipment }).replace(/</g, '\\u003c');
+  return `<!DOCTYPE html><html><head><meta charset="utf-8"><title>${listing.make} ${listing.model}</title></head><body>
+    <div class="CardHead">
+      <h1 class="CardHead__title">${escapeHtml(listing.make)} ${escapeHtml(listing.model)}</h1>
+      <div class="CardHead__year">${listing.year}</div>
+    </div>
+    <div class="OfferPriceCaption__price">${listing.price.toLocaleString('ru-RU')} ₽</div>
+    <div class="CardInfoRow CardInfoRow_kmAge"><span class="CardInfoRow__value">${listing.mileage} км</span></div>
+    ${row('Двигатель', `${listing.volume} л / ${listing.horsePower} л.с. / ${listing.fuel}`)}
+    ${row('Коробка', listing.transmission)}
+    ${row('Привод', listing.drive.split(' ')[0])}
+    ${row('Кузов', listing.bodyType)}
+    ${row('Цвет', listing.color)}
+    ${row('Город', listing.city)}
+    <div class="CardDescription__text">${escapeHtml(description)}</div>
+    ${equipment.map(item => `<div class="CardFeatures__item">${escapeHtml(item)}</div>`).join('')}
+    <script type="application/json" id="fake-listings">${data}</script>
+  </body></html>`;
+}
+
+function send(response, status, contentType, body) {
+  response.writeHead(status, { 'Content-Type': `${contentType}; charset=utf-8` });
+  response.end(body);
+}
+
+const server = http.createServer((request, response) => {
+  const url = new URL(request.url, `http://${request.headers.host}`);
+  const host = request.headers.host;
+
+  if (request.method === 'POST' && url.pathname === '/__fake/next') {
+    const added = parseInt(url.searchParams.get('new') || '3', 10);
+    const changed = parseInt(url.searchParams.get('changed') || '1', 10);
+    // Меняется цена у объявлений с первой страницы, чтобы обход до них дошел
+    for (let i = 0; i < changed && i < listings.length; i++) {
+      listings[i].price -= 10000;
+    }
+    for (let i = 0; i < added; i++) {
+      listings.unshift(createListing(nextId++));
+    }
+    send(response, 200, 'application/json', JSON.stringify({ listings: listings.length, added, changed }));
+    return;
+  }
+  if (request.method === 'POST' && url.pathname === '/__fake/delay') {
+    detailsDelay = {
+      ms: parseInt(url.searchParams.get('ms') || '0', 10),
+      slow: parseInt(url.searchParams.get('slow') || '0', 10),
+      every: parseInt(url.searchParams.get('every') || '0', 10)
+    };
+    send(response, 200, 'application/json', JSON.stringify(detailsDelay));
+    return;
+  }
+  if (request.method === 'POST' && url.pathname === '/__fake/reset') {
+    reset();
+    send(response, 200, 'application/json', JSON.stringify({ listings: listings.length }));
+    return;
+  }
+  if (url.pathname === '/__fake/state') {
+    send(response, 200, 'application/json', JSON.stringify(listings));
+    return;
+  }
+
+  const details = url.pathname.match(/^\/cars\/used\/sale\/[^/]+\/(\d+)\/?$/);
+  if (details) {
+    const listing = listings.find(item => item.id === parseInt(details[1], 10));
+    if (!listing) {
+      send(response, 404, 'text/html', '<h1>Объявление снято с продажи</h1>');
+      return;
+    }
+    const slow = detailsDelay.every > 0 && listing.id % detailsDelay.every === 0;
+    setTimeout(() => send(response, 200, 'text/html', renderDetailsPage(host, listing)),
+      slow ? detailsDelay.slow : detailsDelay.ms);
+    return;
+  }
+  if (url.pathname.includes('/cars/')) {
+    const page = Math.max(1, parseInt(url.searchParams.get('page') || '1', 10));
+    send(response, 200, 'text/html', renderListPage(host, page));
+    return;
+  }
+  send(response, 404, 'text/plain', 'Not found');
+});
+
+reset();
+server.listen(port, () => {
+  console.log(`Заглушка auto.ru: http://localhost:${port}/moskva/cars/all/?sort=cr_date-desc (${listings.length} объявлений)`);
+});
@@ -0,0 +1,84 @@
+/**
+ * Заглушка постоянного процесса парсера с тем же протоколом, что у auto_ru_parser.js --worker,
+ * но без браузера — для локальной проверки пула процессов (ParserWorkerPool).
+ *
+ * Использование (в application.yml):
+ * parser.auto.ru.script.path: ./scripts/fake_parser_worker.js
+ *
+ * Поведение задается URL запроса:
+ * содержит "slow"  - ответ через 5 секунд (проверка таймаута)
+ * содержит "crash" - процесс завершается, не ответив
+ * содержит "error" - ответ с ошибкой парсинга
+ * содержит "big"   - список из 1000 автомобилей
+ * адрес localhost  - страница загружается с fake_auto_ru_server.js, автомобили берутся из ее данных
+ */
+
+const readline = require('readline');
+
+const send = message => process.stdout.write(JSON.stringify(message) + '\n');
+
+function fakeCar(url, index) {
+  return {
+    make: 'Toyota',
+    model: 'Camry',
+    year: 2020,
+    price: 2500000 + index,
+    mileage: 30000,
+    location: `Тестовое объявление ${index} (${url}), pid ${process.pid}`
+  };
+}
+
+/**
+ * Автомобили со страницы fake_auto_ru_server.js: сервер кладет их в JSON рядом с разметкой
+ */
+async function fetchFakePage(request) {
+  const response = await fetch(request.url);
+  if (!response.ok) {
+    throw new Error(`Страница ${request.url} вернула ${response.status}`);
+  }
+  const html = await response.text();
+  const match = html.match(/<script type="application\/json" id="fake-listings">([\s\S]*?)<\/script>/);
+  if (!match) {
+    throw new Error('Не найдены объявления на странице');
+  }
+  const data = JSON.parse(match[1]);
+  if (request.type === 'details') {
+    send({ id: request.id, ok: true, result: data });
+    return;
+  }
+  for (const car of data) {
+    send({ id: request.id, item: car });
+  }
+  send({ id: request.id, ok: true, count: data.length });
+}
+
+const input = readline.createInterface({ input: process.stdin });
+input.on('line', line => {
+  const request = JSON.parse(line);
+  const url = request.url || '';
+  if (request.type === 'ping') {
+    send({ id: request.id, ok: true, result: 'pong' });
+  } else if (/^http:\/\/(localhost|127\.0\.0\.1)[:/]/.test(url)) {
+    fetchFakePage(request).catch(error => send({ id: request.id, ok: false, error: error.message }));
+  } else if (url.includes('crash')) {
+    process.exit(1);
+  } else if (url.includes('error')) {
+    send({ id: request.id, ok: false, error: 'Не удалось обойти защиту от ботов' });
+  } else {
+    const delay = url.includes('slow') ? 5000 : 10;
+    setTimeout(() => {
+      if (request.type === 'details') {
+        send({ id: request.id, ok: true, result: fakeCar(url, 0) });
+        return;
+      }
+      const count = url.includes('big') ? 1000 : 2;
+      for (let i = 0; i < count; i++) {
+        send({ id: request.id, item: fakeCar(url, i) });
+      }
+      send({ id: request.id, ok: true, count });
+    }, delay);
+  }
+});
+input.on('close', () => process.exit(0));
+
+send({ type: 'ready' });
@@ -2,8 +2,10 @@ package com.autobro;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class AutoBroApplication {
     public static void main(String[] args) {
         SpringApplication.run(AutoBroApplication.class, args);
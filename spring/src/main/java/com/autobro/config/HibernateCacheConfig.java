@@ -0,0 +1,53 @@
+package com.autobro.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Регионы кэша второго уровня Hibernate (JCache в памяти процесса, реализация Caffeine).
+ * Кэшируются только справочники: сущности в регионе dictionaries, соответствие названия и ID — в dictionary-names.
+ * Регионы создаются здесь по настройкам app.cache.dictionaries; регион, не описанный здесь,
+ * приводит к ошибке запуска (hibernate.javax.cache.missing_cache_strategy: fail в application.yml)
+ */
+@Configuration
+public class HibernateCacheConfig {
+    public static final String DICTIONARY_REGION = "dictionaries";
+    public static final String DICTIONARY_NAME_REGION = "dictionary-names";
+
+    @Bean
+    public HibernatePropertiesCustomizer dictionaryCacheRegions(
+            @Value("${app.cache.dictionaries.max-entries:10000}") long maxEntries,
+            @Value("${app.cache.dictionaries.expire-after-write-minutes:60}") long expireAfterWriteMinutes) {
+        return properties -> {
+            CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager();
+            for (String region : List.of(DICTIONARY_REGION, DICTIONARY_NAME_REGION)) {
+                if (cacheManager.getCache(region) == null) {
+                    cacheManager.createCache(region, regionConfiguration(maxEntries, expireAfterWriteMinutes));
+                }
+            }
+            properties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> regionConfiguration(long maxEntries, long expireAfterWriteMinutes) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        // Страховка от изменений справочников в обход приложения (прямые запросы к базе)
+        configuration.setExpireAfterWrite(OptionalLong.of(Duration.ofMinutes(expireAfterWriteMinutes).toNanos()));
+        // Hibernate кладет в кэш собственные неизменяемые записи: копировать их при каждом чтении незачем
+        configuration.setStoreByValue(false);
+        return configuration;
+    }
+}
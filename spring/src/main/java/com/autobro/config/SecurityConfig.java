@@ -1,7 +1,10 @@
 package com.autobro.config;
 
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.web.SecurityFilterChain;
@@ -9,6 +12,14 @@ import org.springframework.security.web.SecurityFilterChain;
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
+    private static final String PROMETHEUS_PATH = "/actuator/prometheus";
+
+    // Порт actuator (management.server.port); если он не задан или совпадает с портом приложения, метрики требуют входа
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
+    @Value("${server.port:8080}")
+    private int serverPort;
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
@@ -16,6 +27,8 @@ public class SecurityConfig {
             .cors().and()
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(authz -> authz
+                // Массовый импорт пишет в каталог пачками — только после входа, несмотря на открытый /api/cars/**
+                .requestMatchers(HttpMethod.POST, "/api/cars/import").authenticated()
                 .requestMatchers(
                     "/api/cars/**",
                     "/api/dictionary/**",
@@ -25,10 +38,19 @@ public class SecurityConfig {
                     "/dictionary/*",
                     "/uploads/**",
                     "/swagger-ui/**",
-                    "/v3/api-docs/**"
+                    "/v3/api-docs/**",
+                    "/actuator/health"
                 ).permitAll()
+                // Метрики без входа — только на отдельном порту actuator, который не открывается наружу
+                .requestMatchers(this::isManagementPortScrape).permitAll()
                 .anyRequest().authenticated()
             );
         return http.build();
     }
+
+    private boolean isManagementPortScrape(HttpServletRequest request) {
+        return managementPort > 0 && managementPort != serverPort
+            && request.getLocalPort() == managementPort
+            && PROMETHEUS_PATH.equals(request.getRequestURI());
+    }
 } 
\ No newline at end of file
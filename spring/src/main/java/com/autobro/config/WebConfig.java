@@ -1,24 +1,17 @@
 package com.autobro.config;
 
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 
 /**
- * Конфигурация CORS и статических ресурсов для Spring приложения
- * Разрешает кросс-доменные запросы с фронтенда на бэкенд
- * и настраивает доступ к загруженным изображениям
+ * Конфигурация CORS для Spring приложения
+ * Разрешает кросс-доменные запросы с фронтенда на бэкенд.
+ * Загруженные изображения (/uploads/**) отдает ImageController
  */
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
-    @Value("${app.upload.path}")
-    private String uploadPath;
-
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
@@ -31,16 +24,4 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedHeaders("*")
                 .allowCredentials(true);
     }
-    
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // Регистрируем путь к загруженным файлам как статический ресурс
-        Path uploadDir = Paths.get(uploadPath);
-        String uploadPath = uploadDir.toFile().getAbsolutePath();
-        
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:" + uploadPath + "/")
-                .setCachePeriod(3600) // Кэширование на 1 час
-                .resourceChain(true);
-    }
 } 
\ No newline at end of file
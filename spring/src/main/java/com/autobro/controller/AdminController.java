@@ -0,0 +1,40 @@
+package com.autobro.controller;
+
+import com.autobro.dto.ApiResponse;
+import com.autobro.dto.SlowQueryReportDTO;
+import com.autobro.repository.SearchQueryLog;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Служебные данные для администраторов; путь не входит в открытые в SecurityConfig и требует аутентификации
+ */
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+@Tag(name = "Admin", description = "Диагностика работы приложения")
+public class AdminController {
+
+    private final SearchQueryLog searchQueryLog;
+
+    @GetMapping("/search/slow-queries")
+    @Operation(summary = "Медленные запросы поиска по каталогу",
+               description = "Время запросов по наборам фильтров и самые медленные выполнения с параметрами "
+                   + "и планами EXPLAIN (ANALYZE, BUFFERS), снятыми выборочно")
+    public ResponseEntity<ApiResponse<SlowQueryReportDTO>> getSlowQueries() {
+        return ResponseEntity.ok(ApiResponse.success(searchQueryLog.getReport()));
+    }
+
+    @DeleteMapping("/search/slow-queries")
+    @Operation(summary = "Очистить журнал запросов поиска")
+    public ResponseEntity<ApiResponse<SlowQueryReportDTO>> clearSlowQueries() {
+        searchQueryLog.clear();
+        return ResponseEntity.ok(ApiResponse.success(searchQueryLog.getReport(), "Журнал запросов поиска очищен"));
+    }
+}
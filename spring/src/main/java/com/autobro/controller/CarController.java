@@ -2,33 +2,35 @@ package com.autobro.controller;
 
 import com.autobro.dto.ApiResponse;
 import com.autobro.dto.CarDTO;
+import com.autobro.dto.CarFacetsDTO;
 import com.autobro.dto.CarFilterDTO;
+import com.autobro.dto.CarImportResultDTO;
 import com.autobro.dto.CreateCarDTO;
-import com.autobro.dto.TechnicalSpecDTO;
 import com.autobro.model.Car;
-import com.autobro.model.Photo;
-import com.autobro.model.TechnicalSpec;
-import com.autobro.repository.BodyTypeRepository;
-import com.autobro.repository.ColorRepository;
-import com.autobro.repository.TechnicalSpecRepository;
+import com.autobro.service.CarImportService;
 import com.autobro.service.CarService;
-import com.autobro.service.FileStorageService;
-import com.autobro.service.PhotoService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/cars")
 @RequiredArgsConstructor
@@ -37,20 +39,24 @@ import java.util.Map;
                         "http://127.0.0.1:5000", "http://127.0.0.1:3000"})
 public class CarController {
 
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
     private final CarService carService;
-    private final FileStorageService fileStorageService;
-    private final PhotoService photoService;
-    private final BodyTypeRepository bodyTypeRepository;
-    private final ColorRepository colorRepository;
-    private final TechnicalSpecRepository technicalSpecRepository;
+    private final CarImportService carImportService;
 
     @GetMapping("/{id}")
     @Operation(summary = "Получить информацию об автомобиле по ID")
     public ResponseEntity<ApiResponse<CarDTO>> getCarById(
             @Parameter(description = "ID автомобиля") 
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            WebRequest request) {
+        // If-None-Match проверяется до загрузки автомобиля: при совпадении ответ 304 без тела
+        String etag = carService.getCarETag(id);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         CarDTO car = carService.getCarById(id);
-        return ResponseEntity.ok(ApiResponse.success(car));
+        return revalidated(etag).body(ApiResponse.success(car));
     }
 
     @PostMapping("/create")
@@ -58,6 +64,17 @@ public class CarController {
         return ResponseEntity.ok(carService.createCar(carDTO));
     }
 
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE})
+    @Operation(summary = "Массовый импорт автомобилей из NDJSON (CarDTO на строку) или CSV")
+    public ResponseEntity<ApiResponse<CarImportResultDTO>> importCars(HttpServletRequest request) throws IOException {
+        // Тело читается потоком, формат определяется по Content-Type
+        CarImportService.Format format = MediaType.parseMediaType(request.getContentType())
+            .isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE))
+            ? CarImportService.Format.CSV : CarImportService.Format.NDJSON;
+        CarImportResultDTO result = carImportService.importCars(request.getInputStream(), format);
+        return ResponseEntity.ok(ApiResponse.success(result, "Импорт завершен"));
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Обновить информацию об автомобиле")
     public ResponseEntity<ApiResponse<CarDTO>> updateCar(
@@ -83,8 +100,19 @@ public class CarController {
     public ResponseEntity<ApiResponse<List<String>>> updatePhotos(
             @PathVariable Long id,
             @RequestParam(value = "files") List<MultipartFile> files) {
-        carService.deleteAllPhotos(id);
-        List<String> photoUrls = carService.uploadPhotos(id, files);
+        List<String> photoUrls = carService.syncPhotos(id, Collections.emptyList(), files);
+        return ResponseEntity.ok(ApiResponse.success(photoUrls, "Фотографии успешно обновлены"));
+    }
+
+    @PostMapping("/{id}/photos/sync")
+    @Operation(summary = "Синхронизировать галерею: добавить, удалить и переупорядочить фотографии, сменить главную")
+    public ResponseEntity<ApiResponse<List<String>>> syncPhotos(
+            @PathVariable Long id,
+            @Parameter(description = "Итоговый порядок: ID существующих фото и new:N для N-го нового файла; первое фото — главное")
+            @RequestParam(value = "order", required = false) List<String> order,
+            @Parameter(description = "Новые файлы")
+            @RequestParam(value = "files", required = false) List<MultipartFile> files) {
+        List<String> photoUrls = carService.syncPhotos(id, order, files);
         return ResponseEntity.ok(ApiResponse.success(photoUrls, "Фотографии успешно обновлены"));
     }
 
@@ -103,22 +131,53 @@ public class CarController {
     @Operation(summary = "Поиск автомобилей с фильтрацией")
     public ResponseEntity<ApiResponse<List<CarDTO>>> findCars(
             @Parameter(description = "Фильтр для поиска") 
-            CarFilterDTO filter) {
+            CarFilterDTO filter,
+            WebRequest request) {
+        String etag = carService.getCatalogETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        // Передан курсор (в том числе пустой) — keyset-пагинация без подсчета общего количества
+        if (filter.getCursor() != null) {
+            return revalidated(etag).body(ApiResponse.success(carService.findCarsByCursor(filter)));
+        }
         Page<CarDTO> cars = carService.findCars(filter);
-        return ResponseEntity.ok(ApiResponse.success(cars));
+        return revalidated(etag).body(ApiResponse.success(cars));
+    }
+
+    @GetMapping("/facets")
+    @Operation(summary = "Получить количество автомобилей по фасетам для панели фильтров")
+    public ResponseEntity<ApiResponse<CarFacetsDTO>> getFacets(
+            @Parameter(description = "Фильтр для поиска")
+            CarFilterDTO filter,
+            WebRequest request) {
+        String etag = carService.getCatalogETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        CarFacetsDTO facets = carService.getFacets(filter);
+        return revalidated(etag).body(ApiResponse.success(facets));
     }
 
     @GetMapping("/makes")
     @Operation(summary = "Получить список всех марок автомобилей")
-    public ResponseEntity<ApiResponse<List<String>>> getAllMakes() {
+    public ResponseEntity<ApiResponse<List<String>>> getAllMakes(WebRequest request) {
+        String etag = carService.getCatalogETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         List<String> makes = carService.getAllMakes();
-        return ResponseEntity.ok(ApiResponse.success(makes));
+        return revalidated(etag).body(ApiResponse.success(makes));
     }
 
     @GetMapping("/models")
-    public ResponseEntity<ApiResponse<List<String>>> getModelsByMake(@RequestParam String makes) {
+    public ResponseEntity<ApiResponse<List<String>>> getModelsByMake(@RequestParam String makes, WebRequest request) {
+        String etag = carService.getCatalogETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         List<String> models = carService.getModelsByMake(makes);
-        return ResponseEntity.ok(ApiResponse.success(models));
+        return revalidated(etag).body(ApiResponse.success(models));
     }
 
     @PostMapping("/models/by-makes")
@@ -134,16 +193,24 @@ public class CarController {
 
     @GetMapping("/years")
     @Operation(summary = "Получить диапазон годов выпуска")
-    public ResponseEntity<ApiResponse<Map<String, Integer>>> getYearRange() {
+    public ResponseEntity<ApiResponse<Map<String, Integer>>> getYearRange(WebRequest request) {
+        String etag = carService.getCatalogETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         Map<String, Integer> yearRange = carService.getYearRange();
-        return ResponseEntity.ok(ApiResponse.success(yearRange));
+        return revalidated(etag).body(ApiResponse.success(yearRange));
     }
 
     @GetMapping("/price-range")
     @Operation(summary = "Получить диапазон цен")
-    public ResponseEntity<ApiResponse<Map<String, BigDecimal>>> getPriceRange() {
+    public ResponseEntity<ApiResponse<Map<String, BigDecimal>>> getPriceRange(WebRequest request) {
+        String etag = carService.getCatalogETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         Map<String, BigDecimal> priceRange = carService.getPriceRange();
-        return ResponseEntity.ok(ApiResponse.success(priceRange));
+        return revalidated(etag).body(ApiResponse.success(priceRange));
     }
 
     @PostMapping
@@ -154,82 +221,19 @@ public class CarController {
         try {
             ObjectMapper mapper = new ObjectMapper();
             CreateCarDTO dto = mapper.readValue(carJson, CreateCarDTO.class);
-            
-            // Сначала создаем авто без фото
-            Car car = new Car();
-            car.setMake(dto.getMake());
-            car.setModel(dto.getModel());
-            car.setYear(dto.getYear());
-            car.setPrice(dto.getPrice());
-            car.setMileage(dto.getMileage());
-            car.setCarCondition(dto.getCarCondition());
-            car.setLocation(dto.getLocation());
-            
-            // bodyType
-            if (dto.getBodyTypeId() != null) {
-                car.setBodyType(bodyTypeRepository.findById(dto.getBodyTypeId()).orElse(null));
-            }
-            
-            // color
-            if (dto.getColorId() != null) {
-                car.setColor(colorRepository.findById(dto.getColorId()).orElse(null));
-            }
-            
-            // Сохраняем авто, чтобы получить ID
-            Car savedCar = carService.save(car);
-            
-            // Сохраняем главное фото
-            if (mainPhoto != null && !mainPhoto.isEmpty()) {
-                String mainPhotoPath = fileStorageService.storeFile(mainPhoto, savedCar.getId());
-                car.setMainPhotoUrl(mainPhotoPath);
-                
-                // Создаем запись в БД для главного фото
-                Photo mainPhotoEntity = new Photo();
-                mainPhotoEntity.setCar(savedCar);
-                mainPhotoEntity.setUrl(mainPhotoPath);
-                mainPhotoEntity.setMainPhoto(true);
-                photoService.save(mainPhotoEntity);
-            }
-            
-            // Сохраняем дополнительные фото
-            if (additionalPhotos != null) {
-                for (MultipartFile photo : additionalPhotos) {
-                    if (photo != null && !photo.isEmpty()) {
-                        String photoPath = fileStorageService.storeFile(photo, savedCar.getId());
-                        
-                        Photo photoEntity = new Photo();
-                        photoEntity.setCar(savedCar);
-                        photoEntity.setUrl(photoPath);
-                        photoEntity.setMainPhoto(false);
-                        photoService.save(photoEntity);
-                    }
-                }
-            }
-            
-            // Добавить:
-            if (dto.getTechnicalSpec() != null) {
-                TechnicalSpec spec = new TechnicalSpec();
-                spec.setCar(savedCar);
-                TechnicalSpecDTO specDTO = dto.getTechnicalSpec();
-                if (specDTO.getFuelType() != null) spec.setFuelType(specDTO.getFuelType());
-                if (specDTO.getEngineVolume() != null) spec.setEngineVolume(specDTO.getEngineVolume());
-                if (specDTO.getHorsePower() != null) spec.setHorsePower(specDTO.getHorsePower());
-                if (specDTO.getDriveType() != null) spec.setDriveType(specDTO.getDriveType());
-                if (specDTO.getTransmissionType() != null) spec.setTransmissionType(specDTO.getTransmissionType());
-                if (specDTO.getGears() != null) spec.setGears(specDTO.getGears());
-                if (specDTO.getEngineInfo() != null) spec.setEngineInfo(specDTO.getEngineInfo());
-                if (specDTO.getTransmissionInfo() != null) spec.setTransmissionInfo(specDTO.getTransmissionInfo());
-                TechnicalSpec savedSpec = technicalSpecRepository.save(spec);
-                savedCar.setTechnicalSpec(savedSpec);
-                carService.save(savedCar);
-            }
-            
-            // Обновляем авто с фото
-            savedCar = carService.save(car);
+            // Автомобиль, фотографии и характеристики сохраняются одной транзакцией
+            Car savedCar = carService.createCarWithPhotos(dto, mainPhoto, additionalPhotos);
             return ResponseEntity.ok(savedCar);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Ошибка при создании автомобиля с фотографиями", e);
             return ResponseEntity.badRequest().body("Ошибка: " + e.getMessage());
         }
     }
-} 
\ No newline at end of file
+
+    // Ответ с ETag: клиент может хранить его, но перед использованием проверяет через If-None-Match
+    private static ResponseEntity.BodyBuilder revalidated(String etag) {
+        return ResponseEntity.ok()
+            .eTag(etag)
+            .cacheControl(CacheControl.noCache());
+    }
+}
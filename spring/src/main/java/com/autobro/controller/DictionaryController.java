@@ -1,17 +1,22 @@
 package com.autobro.controller;
 
 import com.autobro.dto.ApiResponse;
+import com.autobro.dto.CacheRegionStatsDTO;
 import com.autobro.model.*;
 import com.autobro.repository.*;
+import com.autobro.service.DictionaryService;
+import com.autobro.service.DictionarySnapshot;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.Arrays;
 import java.util.List;
 
 @RestController
@@ -23,6 +28,24 @@ public class DictionaryController {
     private final ColorRepository colorRepository;
     private final EquipmentRepository equipmentRepository;
     private final SafetyFeatureRepository safetyFeatureRepository;
+    private final DictionarySnapshot dictionarySnapshot;
+    private final DictionaryService dictionaryService;
+
+    @GetMapping(value = "/snapshot", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Получить все справочники одним ответом",
+               description = "Ответ собирается заранее и меняется только вместе со справочниками; "
+                   + "ETag совпадает с версией, при совпадении If-None-Match — 304")
+    public ResponseEntity<byte[]> getSnapshot(WebRequest request) {
+        DictionarySnapshot.Snapshot snapshot = dictionarySnapshot.get();
+        if (request.checkNotModified(snapshot.etag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+            .eTag(snapshot.etag())
+            .cacheControl(CacheControl.noCache())
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(snapshot.body());
+    }
 
     @GetMapping("/body-types")
     @Operation(summary = "Получить список типов кузова")
@@ -51,45 +74,37 @@ public class DictionaryController {
     @GetMapping("/fuel-types")
     @Operation(summary = "Получить список типов топлива")
     public ResponseEntity<ApiResponse<List<String>>> getFuelTypes() {
-        List<String> fuelTypes = Arrays.asList(
-                "Бензин", "Дизель", "Газ", "Электричество", "Гибрид"
-        );
-        return ResponseEntity.ok(ApiResponse.success(fuelTypes));
+        return ResponseEntity.ok(ApiResponse.success(DictionarySnapshot.FUEL_TYPES));
     }
 
     @GetMapping("/transmission-types")
     @Operation(summary = "Получить список типов трансмиссий")
     public ResponseEntity<ApiResponse<List<String>>> getTransmissionTypes() {
-        List<String> transmissionTypes = Arrays.asList(
-                "Механическая", "Автоматическая", "Робот", "Вариатор"
-        );
-        return ResponseEntity.ok(ApiResponse.success(transmissionTypes));
+        return ResponseEntity.ok(ApiResponse.success(DictionarySnapshot.TRANSMISSION_TYPES));
     }
 
     @GetMapping("/drive-types")
     @Operation(summary = "Получить список типов привода")
     public ResponseEntity<ApiResponse<List<String>>> getDriveTypes() {
-        List<String> driveTypes = Arrays.asList(
-                "Передний", "Задний", "Полный"
-        );
-        return ResponseEntity.ok(ApiResponse.success(driveTypes));
+        return ResponseEntity.ok(ApiResponse.success(DictionarySnapshot.DRIVE_TYPES));
     }
 
     @GetMapping("/equipment-categories")
     @Operation(summary = "Получить список категорий комплектации")
     public ResponseEntity<ApiResponse<List<String>>> getEquipmentCategories() {
-        List<String> categories = Arrays.asList(
-                "Комфорт", "Безопасность", "Экстерьер", "Интерьер", "Мультимедиа"
-        );
-        return ResponseEntity.ok(ApiResponse.success(categories));
+        return ResponseEntity.ok(ApiResponse.success(DictionarySnapshot.EQUIPMENT_CATEGORIES));
     }
 
     @GetMapping("/feature-types")
     @Operation(summary = "Получить список типов характеристик безопасности")
     public ResponseEntity<ApiResponse<List<String>>> getFeatureTypes() {
-        List<String> featureTypes = Arrays.asList(
-                "Активная безопасность", "Пассивная безопасность", "Противоугонные системы"
-        );
-        return ResponseEntity.ok(ApiResponse.success(featureTypes));
+        return ResponseEntity.ok(ApiResponse.success(DictionarySnapshot.FEATURE_TYPES));
+    }
+
+    @GetMapping("/cache")
+    @Operation(summary = "Статистика кэша справочников",
+               description = "Попадания и промахи кэша второго уровня Hibernate по регионам с момента запуска приложения")
+    public ResponseEntity<ApiResponse<List<CacheRegionStatsDTO>>> getCacheStats() {
+        return ResponseEntity.ok(ApiResponse.success(dictionaryService.getCacheStats()));
     }
-} 
\ No newline at end of file
+}
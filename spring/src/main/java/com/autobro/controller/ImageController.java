@@ -0,0 +1,62 @@
+package com.autobro.controller;
+
+import com.autobro.service.ImageResizeService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequiredArgsConstructor
+@Tag(name = "Images", description = "API для получения загруженных фотографий")
+public class ImageController {
+    private static final String UPLOADS_PREFIX = "/uploads/";
+
+    private final ImageResizeService imageResizeService;
+
+    @GetMapping("/uploads/**")
+    @Operation(summary = "Получить фотографию (с параметром w — уменьшенную до заданной ширины)")
+    public ResponseEntity<Resource> getPhoto(
+            HttpServletRequest request,
+            @Parameter(description = "Ширина в пикселях (округляется вверх до допустимой)")
+            @RequestParam(value = "w", required = false) Integer width,
+            @Parameter(description = "Качество JPEG (30-95)")
+            @RequestParam(value = "q", required = false) Integer quality,
+            @Parameter(description = "Формат: jpeg или png")
+            @RequestParam(value = "fmt", required = false) String format) {
+        String path = ((String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE))
+            .substring(UPLOADS_PREFIX.length());
+
+        if (width == null) {
+            File original = imageResizeService.getOriginal(path).toFile();
+            return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(1, TimeUnit.HOURS))
+                .lastModified(original.lastModified())
+                .contentType(MediaTypeFactory.getMediaType(original.getName()).orElse(MediaType.APPLICATION_OCTET_STREAM))
+                .body(new FileSystemResource(original));
+        }
+
+        // Вариант однозначно определяется URL и временем изменения оригинала, поэтому кэшируется навсегда
+        ImageResizeService.ResizedImage image = imageResizeService.getResized(path, width, quality, format);
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+            .contentType(image.mediaType())
+            .contentLength(image.size())
+            .body(new InputStreamResource(image.content()));
+    }
+}
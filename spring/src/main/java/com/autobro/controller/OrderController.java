@@ -4,6 +4,7 @@ import com.autobro.dto.OrderDTO;
 import com.autobro.model.Order;
 import com.autobro.service.OrderService;
 import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -13,6 +14,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/orders")
 @CrossOrigin(origins = "*")
@@ -37,7 +39,7 @@ public class OrderController {
             
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Ошибка при создании заказа", e);
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("status", "error");
             errorResponse.put("message", "Ошибка при создании заказа: " + e.getMessage());
@@ -57,7 +59,7 @@ public class OrderController {
             
             return ResponseEntity.ok(response);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Ошибка при получении списка заказов", e);
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("status", "error");
             errorResponse.put("message", "Ошибка при получении списка заказов: " + e.getMessage());
@@ -77,7 +79,7 @@ public class OrderController {
             
             return ResponseEntity.ok(response);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Ошибка при получении заказа {}", id, e);
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("status", "error");
             errorResponse.put("message", "Ошибка при получении заказа: " + e.getMessage());
@@ -98,7 +100,7 @@ public class OrderController {
             
             return ResponseEntity.ok(response);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Ошибка при обновлении статуса заказа {}", id, e);
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("status", "error");
             errorResponse.put("message", "Ошибка при обновлении статуса заказа: " + e.getMessage());
@@ -2,15 +2,30 @@ package com.autobro.controller;
 
 import com.autobro.dto.ApiResponse;
 import com.autobro.dto.CarDTO;
+import com.autobro.dto.CrawlRunDTO;
+import com.autobro.dto.ParseJobDTO;
+import com.autobro.dto.ParserCacheStatsDTO;
+import com.autobro.exception.NotFoundException;
+import com.autobro.exception.ValidationException;
 import com.autobro.service.AutoRuParser;
+import com.autobro.service.ListingCrawler;
+import com.autobro.service.ParseJobService;
+import com.autobro.service.ParserResultCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/api/parser")
@@ -21,22 +36,127 @@ import java.util.List;
 public class ParserController {
 
     private final AutoRuParser autoRuParser;
+    private final ParseJobService parseJobService;
+    private final ListingCrawler listingCrawler;
+    private final ParserResultCache parserResultCache;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/auto-ru")
-    @Operation(summary = "Парсинг списка автомобилей с auto.ru")
+    @Operation(summary = "Парсинг списка автомобилей с auto.ru",
+               description = "Ответ приходит после завершения парсинга; без ожидания — POST /api/parser/jobs")
     public ResponseEntity<ApiResponse<List<CarDTO>>> parseAutoRu(
             @Parameter(description = "URL страницы с автомобилями на auto.ru") 
-            @RequestParam String url) {
-        List<CarDTO> cars = autoRuParser.parseCars(url);
+            @RequestParam String url,
+            @Parameter(description = "Парсить заново, не используя кэш результатов")
+            @RequestParam(defaultValue = "false") boolean refresh) {
+        List<CarDTO> cars = autoRuParser.parseCars(url, refresh);
         return ResponseEntity.ok(ApiResponse.success(cars, "Данные успешно получены с auto.ru"));
     }
 
     @GetMapping("/auto-ru/details")
-    @Operation(summary = "Парсинг детальной информации об автомобиле с auto.ru")
+    @Operation(summary = "Парсинг детальной информации об автомобиле с auto.ru",
+               description = "Ответ приходит после завершения парсинга; без ожидания — POST /api/parser/jobs")
     public ResponseEntity<ApiResponse<CarDTO>> parseAutoRuDetails(
             @Parameter(description = "URL страницы с детальной информацией об автомобиле на auto.ru") 
-            @RequestParam String url) {
-        CarDTO car = autoRuParser.parseCarDetails(url);
+            @RequestParam String url,
+            @Parameter(description = "Парсить заново, не используя кэш результатов")
+            @RequestParam(defaultValue = "false") boolean refresh) {
+        CarDTO car = autoRuParser.parseCarDetails(url, refresh);
         return ResponseEntity.ok(ApiResponse.success(car, "Детальная информация успешно получена с auto.ru"));
     }
+
+    @GetMapping(value = "/auto-ru/full", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Парсинг списка автомобилей вместе со страницами автомобилей",
+               description = "Автомобили передаются в формате NDJSON по одному на строку, как только загружена "
+                   + "страница автомобиля; без ожидания — POST /api/parser/jobs?type=full")
+    public ResponseEntity<StreamingResponseBody> parseAutoRuFull(
+            @Parameter(description = "URL страницы с автомобилями на auto.ru")
+            @RequestParam String url,
+            @Parameter(description = "Парсить заново, не используя кэш результатов")
+            @RequestParam(defaultValue = "false") boolean refresh) {
+        String listUrl = validateUrl(url);
+        StreamingResponseBody body = output -> autoRuParser.parseCarsWithDetails(listUrl, refresh, car -> {
+            try {
+                output.write(objectMapper.writeValueAsBytes(car));
+                output.write('\n');
+                output.flush();
+            } catch (IOException e) {
+                // Клиент закрыл соединение — парсинг прерывается
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @PostMapping("/jobs")
+    @Operation(summary = "Фоновый парсинг auto.ru",
+               description = "Ставит задачу в очередь и возвращает ее ID; статус и результат — GET /api/parser/jobs/{id}. "
+                   + "Для URL, парсинг которого еще не завершен, возвращается уже созданная задача")
+    public ResponseEntity<ApiResponse<ParseJobDTO>> submitJob(
+            @Parameter(description = "URL страницы на auto.ru")
+            @RequestParam String url,
+            @Parameter(description = "list — список автомобилей, details — страница автомобиля, "
+                + "full — список вместе со страницами автомобилей")
+            @RequestParam(defaultValue = "list") String type,
+            @Parameter(description = "Парсить заново, не используя кэш результатов")
+            @RequestParam(defaultValue = "false") boolean refresh) {
+        ParseJobDTO job = parseJobService.submit(parseJobType(type), validateUrl(url), refresh);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+            .body(ApiResponse.success(job, "Задача парсинга поставлена в очередь"));
+    }
+
+    @GetMapping("/jobs/{id}")
+    @Operation(summary = "Статус и результат задачи парсинга")
+    public ResponseEntity<ApiResponse<ParseJobDTO>> getJob(@PathVariable String id) {
+        return ResponseEntity.ok(ApiResponse.success(parseJobService.getJob(id)));
+    }
+
+    @GetMapping("/cache")
+    @Operation(summary = "Статистика кэша результатов парсинга",
+               description = "Размер кэша, попадания и промахи с момента запуска приложения")
+    public ResponseEntity<ApiResponse<ParserCacheStatsDTO>> getCacheStats() {
+        return ResponseEntity.ok(ApiResponse.success(parserResultCache.getStats()));
+    }
+
+    @DeleteMapping("/cache")
+    @Operation(summary = "Очистить кэш результатов парсинга")
+    public ResponseEntity<ApiResponse<ParserCacheStatsDTO>> clearCache() {
+        parserResultCache.clear();
+        return ResponseEntity.ok(ApiResponse.success(parserResultCache.getStats(), "Кэш результатов парсинга очищен"));
+    }
+
+    @PostMapping("/crawler/run")
+    @Operation(summary = "Обход объявлений auto.ru",
+               description = "Запускает обход страниц parser.crawler.urls с записью новых и измененных автомобилей в каталог; "
+                   + "если обход уже идет, возвращает его состояние")
+    public ResponseEntity<ApiResponse<CrawlRunDTO>> runCrawler() {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+            .body(ApiResponse.success(listingCrawler.start(), "Обход объявлений запущен"));
+    }
+
+    @GetMapping("/crawler")
+    @Operation(summary = "Состояние последнего обхода объявлений auto.ru")
+    public ResponseEntity<ApiResponse<CrawlRunDTO>> getCrawler() {
+        CrawlRunDTO run = listingCrawler.getLastRun();
+        if (run == null) {
+            throw new NotFoundException("Обход объявлений еще не запускался");
+        }
+        return ResponseEntity.ok(ApiResponse.success(run));
+    }
+
+    private static ParseJobDTO.Type parseJobType(String type) {
+        try {
+            return ParseJobDTO.Type.valueOf(type.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Неизвестный тип задачи парсинга: " + type);
+        }
+    }
+
+    private static String validateUrl(String url) {
+        String trimmed = url.trim();
+        if (!trimmed.startsWith("http://") && !trimmed.startsWith("https://")) {
+            throw new ValidationException("Некорректный URL: " + url);
+        }
+        return trimmed;
+    }
 }
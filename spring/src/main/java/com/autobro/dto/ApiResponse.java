@@ -36,14 +36,23 @@ public class ApiResponse<T> {
         return response;
     }
 
+    public static <T> ApiResponse<List<T>> success(CursorPage<T> page) {
+        ApiResponse<List<T>> response = new ApiResponse<>();
+        response.setSuccess(true);
+        response.setData(page.getContent());
+        response.setPageInfo(new PageInfo(page));
+        return response;
+    }
+
     @Getter
     @Setter
     @JsonInclude(JsonInclude.Include.NON_NULL)
     public static class PageInfo {
-        private int pageNumber;
-        private int pageSize;
-        private long totalElements;
-        private int totalPages;
+        private Integer pageNumber;
+        private Integer pageSize;
+        private Long totalElements;
+        private Integer totalPages;
+        private String nextCursor;
 
         public PageInfo(Page<?> page) {
             this.pageNumber = page.getNumber();
@@ -51,5 +60,10 @@ public class ApiResponse<T> {
             this.totalElements = page.getTotalElements();
             this.totalPages = page.getTotalPages();
         }
+
+        public PageInfo(CursorPage<?> page) {
+            this.pageSize = page.getSize();
+            this.nextCursor = page.getNextCursor();
+        }
     }
 } 
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.autobro.dto;
+
+import lombok.Data;
+
+/**
+ * Состояние региона кэша второго уровня Hibernate с момента запуска приложения
+ */
+@Data
+public class CacheRegionStatsDTO {
+    private String region;
+    private long hits;
+    private long misses;
+    private long puts;
+    private double hitRate;
+}
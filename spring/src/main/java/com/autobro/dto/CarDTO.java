@@ -20,7 +20,16 @@ public class CarDTO {
     private String carCondition;
     private String location;
     private String mainPhotoUrl;
+    // Адрес объявления на auto.ru, если автомобиль получен парсером
+    private String sourceUrl;
+    private String mainPhotoThumbnailUrl;
+    private String mainPhotoMediumUrl;
     private List<String> photos;
+    // ID фотографий в том же порядке, что и photos (для синхронизации галереи)
+    private List<Long> photoIds;
+    // Уменьшенные копии фотографий в том же порядке, что и photos
+    private List<String> photoThumbnails;
+    private List<String> photoMediums;
     private List<String> safetyFeatures;
     private List<String> equipment;
     private TechnicalSpecDTO technicalSpec;
@@ -0,0 +1,34 @@
+package com.autobro.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Количество автомобилей по значениям фасетов для боковой панели поиска.
+ * Значения каждого фасета отсортированы по убыванию количества.
+ */
+@Data
+public class CarFacetsDTO {
+    private List<FacetValue> makes = new ArrayList<>();
+    private List<FacetValue> bodyTypes = new ArrayList<>();
+    private List<FacetValue> fuelTypes = new ArrayList<>();
+    private List<FacetValue> transmissionTypes = new ArrayList<>();
+    private List<FacetValue> driveTypes = new ArrayList<>();
+    private List<FacetValue> colors = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class FacetValue {
+        // ID значения справочника (тип кузова, цвет)
+        private Long id;
+        private String name;
+        private long count;
+    }
+}
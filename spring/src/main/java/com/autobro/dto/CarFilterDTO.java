@@ -25,4 +25,6 @@ public class CarFilterDTO {
     private Integer size;
     private String sortBy;
     private String sortDirection;
+    // Курсор keyset-пагинации: если параметр передан (пустой — первая страница), COUNT не выполняется
+    private String cursor;
 } 
\ No newline at end of file
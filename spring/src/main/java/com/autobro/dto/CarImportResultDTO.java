@@ -0,0 +1,36 @@
+package com.autobro.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Итог массового импорта автомобилей: количество записей, ошибки по отдельным записям и скорость.
+ * Список ошибок ограничен app.import.max-reported-errors, failed считает все ошибки.
+ * Записи с адресом объявления (sourceUrl), уже загруженным раньше, не добавляются заново:
+ * измененные обновляют существующий автомобиль (updated), неизмененные пропускаются (unchanged).
+ */
+@Data
+public class CarImportResultDTO {
+    private long total;
+    private long imported;
+    private long updated;
+    private long unchanged;
+    private long failed;
+    private int batches;
+    private long durationMs;
+    private double carsPerSecond;
+    private List<RecordError> errors = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RecordError {
+        // Номер строки во входных данных (для CSV — строка начала записи)
+        private long line;
+        private String message;
+    }
+}
@@ -0,0 +1,35 @@
+package com.autobro.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Состояние обхода объявлений auto.ru: число разобранных страниц и итог записи автомобилей
+ * (imported — новые, updated — измененные, unchanged — пропущенные без изменений).
+ * Во время обхода обновляется после каждой страницы.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CrawlRunDTO {
+    private Status status;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private int pages;
+    private long total;
+    private long imported;
+    private long updated;
+    private long unchanged;
+    private long failed;
+    // Страницы, которые не удалось разобрать, и первые ошибки записи автомобилей
+    private List<String> errors = new ArrayList<>();
+
+    public enum Status {
+        RUNNING,
+        DONE,
+        FAILED
+    }
+}
@@ -0,0 +1,63 @@
+package com.autobro.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Все справочники одним ответом (GET /api/dictionary/snapshot): значения без связей с автомобилями.
+ * version меняется вместе с содержимым любого справочника
+ */
+@Data
+public class DictionarySnapshotDTO {
+    private String version;
+    private List<BodyTypeItem> bodyTypes;
+    private List<ColorItem> colors;
+    private List<EquipmentItem> equipment;
+    private List<SafetyFeatureItem> safetyFeatures;
+    private List<String> fuelTypes;
+    private List<String> transmissionTypes;
+    private List<String> driveTypes;
+    private List<String> equipmentCategories;
+    private List<String> featureTypes;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BodyTypeItem {
+        private Long id;
+        private String name;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ColorItem {
+        private Long id;
+        private String name;
+        private String hexCode;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class EquipmentItem {
+        private Long id;
+        private String name;
+        private String description;
+        private String category;
+        private Boolean isStandard;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SafetyFeatureItem {
+        private Long id;
+        private String name;
+        private String description;
+        private String featureType;
+    }
+}
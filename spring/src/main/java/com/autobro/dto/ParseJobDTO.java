@@ -0,0 +1,40 @@
+package com.autobro.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Задача фонового парсинга auto.ru. Результат — список автомобилей для LIST и FULL (список вместе со страницами
+ * автомобилей), один автомобиль для DETAILS — хранится parser.jobs.result-ttl-minutes после завершения задачи.
+ * Список пополняется во время парсинга: опрос задачи возвращает уже полученные автомобили.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ParseJobDTO {
+    private String id;
+    private Type type;
+    private String url;
+    private Status status;
+    // Сколько автомобилей списка уже получено (обновляется во время парсинга)
+    private Integer parsed;
+    private Object result;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    public enum Type {
+        LIST,
+        DETAILS,
+        FULL
+    }
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        DONE,
+        FAILED
+    }
+}
@@ -0,0 +1,23 @@
+package com.autobro.dto;
+
+import lombok.Data;
+
+/**
+ * Состояние кэша результатов парсинга с момента запуска приложения: размер, попадания и промахи,
+ * запросы в обход кэша (refresh) и ожидания уже идущего парсинга того же URL (joined)
+ */
+@Data
+public class ParserCacheStatsDTO {
+    private int entries;
+    private long cars;
+    private long maxCars;
+    private long ttlSeconds;
+    private long hits;
+    private long misses;
+    private double hitRate;
+    private long refreshes;
+    private long joined;
+    private long loads;
+    private long loadFailures;
+    private long evictions;
+}
@@ -0,0 +1,48 @@
+package com.autobro.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Запросы поиска по каталогу с момента запуска или очистки (GET /api/admin/search/slow-queries):
+ * статистика по набору заданных фильтров и самые медленные выполнения с планами EXPLAIN, если они сняты
+ */
+@Data
+public class SlowQueryReportDTO {
+    private long thresholdMs;
+    private double explainSampleRate;
+    private long executions;
+    private long slowExecutions;
+    private List<ShapeStats> shapes;
+    private List<SlowQuery> slowest;
+
+    /**
+     * Статистика запросов одного вида с одинаковым набором фильтров и сортировкой
+     */
+    @Data
+    public static class ShapeStats {
+        private String kind;
+        private String shape;
+        private long executions;
+        private long slowExecutions;
+        private double avgMs;
+        private double maxMs;
+        private double totalMs;
+        private String lastPlan;
+    }
+
+    @Data
+    public static class SlowQuery {
+        private String kind;
+        private String shape;
+        private double durationMs;
+        private LocalDateTime executedAt;
+        private String sql;
+        private Map<String, String> parameters;
+        // null, если план не снимался
+        private String plan;
+    }
+}
@@ -2,16 +2,29 @@ package com.autobro.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
 @Entity
-@Table(name = "cars")
+@Table(name = "cars", indexes = {
+    // Составные индексы (поле сортировки, id) для keyset-пагинации каталога
+    @Index(name = "idx_cars_price_id", columnList = "price, id"),
+    @Index(name = "idx_cars_year_id", columnList = "year, id"),
+    @Index(name = "idx_cars_mileage_id", columnList = "mileage, id"),
+    @Index(name = "idx_cars_created_at_id", columnList = "created_at, id"),
+    // Повторный обход объявлений находит автомобиль по адресу объявления
+    @Index(name = "idx_cars_source_url", columnList = "source_url", unique = true)
+})
 public class Car {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // ID выделяются из последовательности блоками по 50 (оптимизатор pooled-lo), а не при вставке,
+    // поэтому Hibernate может отправлять вставки пачками (JDBC batch)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cars_id_seq")
+    @SequenceGenerator(name = "cars_id_seq", sequenceName = "cars_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "make", columnDefinition = "varchar(255)")
@@ -23,7 +36,10 @@ public class Car {
     @Column(nullable = false)
     private Integer year;
 
+    // Справочники загружаются отдельно от автомобиля, чтобы брать их из кэша второго уровня, а не соединением;
+    // промахи кэша догружаются одним запросом на страницу (@BatchSize у BodyType и Color)
     @ManyToOne
+    @Fetch(FetchMode.SELECT)
     @JoinColumn(name = "body_type_id")
     private BodyType bodyType;
 
@@ -34,6 +50,7 @@ public class Car {
     private Integer mileage;
 
     @ManyToOne
+    @Fetch(FetchMode.SELECT)
     @JoinColumn(name = "color_id")
     private Color color;
 
@@ -46,7 +63,16 @@ public class Car {
     @Column(name = "main_photo_url")
     private String mainPhotoUrl;
 
+    // Адрес объявления, из которого получен автомобиль (обход auto.ru или импорт); у добавленных вручную — null
+    @Column(name = "source_url", length = 1024)
+    private String sourceUrl;
+
+    // SHA-256 ключевых полей объявления: совпадает при повторном обходе — запись не обновляется
+    @Column(name = "fingerprint", length = 64)
+    private String fingerprint;
+
     @OneToMany(mappedBy = "car", cascade = CascadeType.ALL)
+    @OrderBy("position ASC, id ASC")
     private List<Photo> photos;
 
     @ManyToMany
@@ -1,18 +1,30 @@
 package com.autobro.model;
 
+import com.autobro.config.HibernateCacheConfig;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import java.util.List;
 
 @Data
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.DICTIONARY_REGION)
+@NaturalIdCache(region = HibernateCacheConfig.DICTIONARY_NAME_REGION)
+// Промахи кэша для страницы каталога загружаются одним запросом, а не по одному на значение
+@BatchSize(size = 100)
 @Table(name = "colors")
 public class Color {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "colors_id_seq")
+    @SequenceGenerator(name = "colors_id_seq", sequenceName = "colors_id_seq", allocationSize = 50)
     private Long id;
 
+    @NaturalId
     @Column(nullable = false, unique = true)
     private String name;
 
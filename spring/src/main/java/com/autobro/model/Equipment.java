@@ -1,16 +1,22 @@
 package com.autobro.model;
 
+import com.autobro.config.HibernateCacheConfig;
 import com.autobro.model.enums.EquipmentCategory;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.List;
 
 @Data
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.DICTIONARY_REGION)
 @Table(name = "equipment")
 public class Equipment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "equipment_id_seq")
+    @SequenceGenerator(name = "equipment_id_seq", sequenceName = "equipment_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -26,6 +32,7 @@ public class Equipment {
     @Column(name = "is_standard")
     private Boolean isStandard;
 
+    @JsonIgnore
     @ManyToMany(mappedBy = "equipment")
     private List<Car> cars;
 }
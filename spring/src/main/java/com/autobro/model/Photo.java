@@ -8,7 +8,8 @@ import lombok.Data;
 @Table(name = "car_photos")
 public class Photo {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "car_photos_id_seq")
+    @SequenceGenerator(name = "car_photos_id_seq", sequenceName = "car_photos_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -18,9 +19,20 @@ public class Photo {
     @Column(name = "url", nullable = false)
     private String url;
 
+    // Уменьшенные копии (ThumbnailService); null, пока копии не созданы
+    @Column(name = "thumbnail_url")
+    private String thumbnailUrl;
+
+    @Column(name = "medium_url")
+    private String mediumUrl;
+
     @Column(name = "main_photo", nullable = false)
     private Boolean mainPhoto = false;
 
+    // Порядок в галерее автомобиля; null у фотографий, загруженных до появления сортировки
+    @Column(name = "position")
+    private Integer position;
+
     // Метод для получения URL фотографии
     public String getUrl() {
         return this.url;
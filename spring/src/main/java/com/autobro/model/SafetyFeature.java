@@ -1,18 +1,28 @@
 package com.autobro.model;
 
+import com.autobro.config.HibernateCacheConfig;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import java.util.List;
 
 @Data
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.DICTIONARY_REGION)
+@NaturalIdCache(region = HibernateCacheConfig.DICTIONARY_NAME_REGION)
 @Table(name = "safety_features")
 public class SafetyFeature {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "safety_features_id_seq")
+    @SequenceGenerator(name = "safety_features_id_seq", sequenceName = "safety_features_id_seq", allocationSize = 50)
     private Long id;
 
-    @Column(nullable = false)
+    @NaturalId
+    @Column(nullable = false, unique = true)
     private String name;
 
     @Column
@@ -21,6 +31,7 @@ public class SafetyFeature {
     @Column(name = "feature_type", nullable = false)
     private String featureType;
 
+    @JsonIgnore
     @ManyToMany(mappedBy = "safetyFeatures")
     private List<Car> cars;
 }
@@ -0,0 +1,37 @@
+package com.autobro.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Файл в хранилище с адресацией по содержимому (FileStorageService): одинаковые загрузки
+ * хранятся один раз, а refCount — число фотографий, которые на него ссылаются.
+ * Файл с refCount = 0 удаляется сборщиком мусора после app.upload.gc.grace-minutes.
+ */
+@Data
+@Entity
+@Table(name = "stored_files")
+public class StoredFile {
+    // SHA-256 содержимого в hex
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(nullable = false, unique = true)
+    private String url;
+
+    @Column(nullable = false)
+    private Long size;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    // Время последнего освобождения ссылки
+    @Column(name = "released_at")
+    private LocalDateTime releasedAt;
+}
@@ -8,7 +8,8 @@ import lombok.Data;
 @Table(name = "car_tech_specs")
 public class TechnicalSpec {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "car_tech_specs_id_seq")
+    @SequenceGenerator(name = "car_tech_specs_id_seq", sequenceName = "car_tech_specs_id_seq", allocationSize = 50)
     private Long id;
 
     @OneToOne
@@ -1,13 +1,25 @@
 package com.autobro.repository;
 
 import com.autobro.model.BodyType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-
-import java.util.List;
-import java.util.Optional;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface BodyTypeRepository extends JpaRepository<BodyType, Long> {
-    Optional<BodyType> findByName(String name);
-} 
\ No newline at end of file
+    // Добавление типа кузова, если его еще нет; параллельная вставка того же названия ничего не делает
+    // Кэш второго уровня после коммита сбрасывается только для этого справочника (query space — его таблица)
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "body_types"))
+    @Query(value = "INSERT INTO body_types (id, name) VALUES (nextval('body_types_id_seq'), :name) " +
+                   "ON CONFLICT (name) DO NOTHING",
+           nativeQuery = true)
+    void insertIfAbsent(@Param("name") String name);
+}
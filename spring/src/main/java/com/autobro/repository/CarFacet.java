@@ -0,0 +1,39 @@
+package com.autobro.repository;
+
+/**
+ * Фасеты боковой панели поиска и колонки, по которым они группируются
+ */
+public enum CarFacet {
+    MAKE("c.make", null),
+    BODY_TYPE("c.body_type_id", "bt.name"),
+    FUEL_TYPE("ts.fuel_type", null),
+    TRANSMISSION_TYPE("ts.transmission_type", null),
+    DRIVE_TYPE("ts.drive_type", null),
+    COLOR("c.color_id", "cl.name");
+
+    private final String column;
+    private final String nameColumn;
+
+    CarFacet(String column, String nameColumn) {
+        this.column = column;
+        this.nameColumn = nameColumn;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Колонка с названием значения для фасетов-справочников; для строковых фасетов — сама колонка
+     */
+    public String getNameColumn() {
+        return nameColumn != null ? nameColumn : column;
+    }
+
+    /**
+     * Значение фасета — ссылка на справочник (ID), а не строка
+     */
+    public boolean isDictionary() {
+        return nameColumn != null;
+    }
+}
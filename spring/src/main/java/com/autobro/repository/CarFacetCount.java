@@ -0,0 +1,17 @@
+package com.autobro.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Количество автомобилей для одного значения фасета
+ */
+@Data
+@AllArgsConstructor
+public class CarFacetCount {
+    private CarFacet facet;
+    // ID значения для фасетов-справочников (тип кузова, цвет), иначе null
+    private Long id;
+    private String name;
+    private long count;
+}
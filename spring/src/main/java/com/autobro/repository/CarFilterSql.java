@@ -0,0 +1,162 @@
+package com.autobro.repository;
+
+import com.autobro.dto.CarFilterDTO;
+import jakarta.persistence.Query;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Построитель нативного SQL для поиска по каталогу.
+ * В запрос попадают только заданные фильтры, а таблица характеристик присоединяется
+ * только если по ней есть условие — планировщику PostgreSQL не приходится разбирать
+ * цепочку "(:param IS NULL OR ...)".
+ * Условия по полям-фасетам помечаются, чтобы при подсчете фасетов исключать собственное условие фасета.
+ */
+class CarFilterSql {
+    private boolean techSpecJoined;
+    private final List<Condition> conditions = new ArrayList<>();
+    private final Map<String, Object> params = new LinkedHashMap<>();
+
+    static CarFilterSql of(CarFilterDTO filter) {
+        CarFilterSql sql = new CarFilterSql();
+
+        List<String> make = filter.getMake();
+        if (make != null && !make.isEmpty()) {
+            sql.and(CarFacet.MAKE, "c.make IN (:make)").param("make", make);
+        }
+        if (filter.getModel() != null) {
+            sql.and("c.model = :model").param("model", filter.getModel());
+        }
+        if (filter.getMinYear() != null) {
+            sql.and("c.year >= :minYear").param("minYear", filter.getMinYear());
+        }
+        if (filter.getMaxYear() != null) {
+            sql.and("c.year <= :maxYear").param("maxYear", filter.getMaxYear());
+        }
+        if (filter.getMinPrice() != null) {
+            sql.and("c.price >= :minPrice").param("minPrice", filter.getMinPrice());
+        }
+        if (filter.getMaxPrice() != null) {
+            sql.and("c.price <= :maxPrice").param("maxPrice", filter.getMaxPrice());
+        }
+        if (filter.getMaxMileage() != null) {
+            sql.and("c.mileage <= :maxMileage").param("maxMileage", filter.getMaxMileage());
+        }
+        if (filter.getBodyTypeId() != null) {
+            sql.and(CarFacet.BODY_TYPE, "c.body_type_id = :bodyTypeId").param("bodyTypeId", filter.getBodyTypeId());
+        }
+        if (filter.getColorId() != null) {
+            sql.and(CarFacet.COLOR, "c.color_id = :colorId").param("colorId", filter.getColorId());
+        }
+
+        // Технические характеристики
+        if (StringUtils.hasText(filter.getFuelType())) {
+            sql.joinTechSpec().and(CarFacet.FUEL_TYPE, "ts.fuel_type = :fuelType").param("fuelType", filter.getFuelType());
+        }
+        if (filter.getMinHorsePower() != null) {
+            sql.joinTechSpec().and("ts.horse_power >= :minHorsePower").param("minHorsePower", filter.getMinHorsePower());
+        }
+        if (StringUtils.hasText(filter.getTransmissionType())) {
+            sql.joinTechSpec().and(CarFacet.TRANSMISSION_TYPE, "ts.transmission_type = :transmissionType")
+                .param("transmissionType", filter.getTransmissionType());
+        }
+        if (StringUtils.hasText(filter.getDriveType())) {
+            sql.joinTechSpec().and(CarFacet.DRIVE_TYPE, "ts.drive_type = :driveType").param("driveType", filter.getDriveType());
+        }
+
+        // Местоположение: автомобили без указанного местоположения не отсекаются
+        if (StringUtils.hasText(filter.getCountry())) {
+            sql.and("(c.location IS NULL OR c.location ILIKE '%' || :country || '%')").param("country", filter.getCountry());
+        }
+        if (StringUtils.hasText(filter.getCity())) {
+            sql.and("(c.location IS NULL OR c.location ILIKE '%' || :city || '%')").param("city", filter.getCity());
+        }
+        return sql;
+    }
+
+    CarFilterSql and(String predicate) {
+        return and(null, predicate);
+    }
+
+    CarFilterSql param(String name, Object value) {
+        params.put(name, value);
+        return this;
+    }
+
+    /**
+     * Часть запроса от FROM до конца WHERE
+     */
+    String fromWhere() {
+        String from = techSpecJoined
+            ? "FROM cars c LEFT JOIN car_tech_specs ts ON ts.car_id = c.id"
+            : "FROM cars c";
+        String where = joinConditions(condition -> true);
+        return from + (where.isEmpty() ? "" : " WHERE " + where);
+    }
+
+    /**
+     * Условия, не относящиеся ни к одному фасету; TRUE если таких нет
+     */
+    String baseConditions() {
+        return orTrue(joinConditions(condition -> condition.facet == null));
+    }
+
+    /**
+     * Условия всех фасетов, кроме указанного; TRUE если таких нет
+     */
+    String facetConditionsExcept(CarFacet facet) {
+        return orTrue(joinConditions(condition -> condition.facet != null && condition.facet != facet));
+    }
+
+    void bind(Query query) {
+        params.forEach(query::setParameter);
+    }
+
+    /**
+     * Имена заданных параметров в порядке добавления — набор фильтров запроса без их значений
+     */
+    String shape() {
+        return params.isEmpty() ? "без фильтров" : String.join(", ", params.keySet());
+    }
+
+    Map<String, Object> params() {
+        return params;
+    }
+
+    private CarFilterSql and(CarFacet facet, String predicate) {
+        conditions.add(new Condition(facet, predicate));
+        return this;
+    }
+
+    private String joinConditions(Predicate<Condition> include) {
+        return conditions.stream()
+            .filter(include)
+            .map(condition -> condition.sql)
+            .collect(Collectors.joining(" AND "));
+    }
+
+    private static String orTrue(String conditions) {
+        return conditions.isEmpty() ? "TRUE" : conditions;
+    }
+
+    private CarFilterSql joinTechSpec() {
+        techSpecJoined = true;
+        return this;
+    }
+
+    private static class Condition {
+        private final CarFacet facet;
+        private final String sql;
+
+        private Condition(CarFacet facet, String sql) {
+            this.facet = facet;
+            this.sql = sql;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.autobro.repository;
+
+import com.autobro.dto.CarFilterDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+/**
+ * Поиск по каталогу с динамически построенным нативным запросом
+ */
+public interface CarSearchRepository {
+
+    /**
+     * Страница ID автомобилей по фильтру (offset-пагинация с подсчетом общего количества)
+     */
+    Page<Long> findIdsWithFilters(CarFilterDTO filter, Pageable pageable);
+
+    /**
+     * ID автомобилей по фильтру, следующих за позицией (afterValue, afterId) в заданном порядке.
+     * Keyset-пагинация: без OFFSET и без COUNT, стоимость не растет с номером страницы.
+     *
+     * @param afterValue значение поля сортировки последнего автомобиля предыдущей страницы
+     * @param afterId ID последнего автомобиля предыдущей страницы; null — первая страница
+     * @param limit максимальное количество ID
+     */
+    List<Long> findIdsWithFiltersAfter(CarFilterDTO filter, CarSortField sortField, Sort.Direction direction,
+                                       Object afterValue, Long afterId, int limit);
+
+    /**
+     * Количество автомобилей по значениям каждого фасета при текущем фильтре.
+     * Для каждого фасета его собственное условие не учитывается, чтобы в панели были видны
+     * альтернативные значения. Все фасеты считаются одним запросом.
+     */
+    List<CarFacetCount> countFacets(CarFilterDTO filter);
+}
@@ -0,0 +1,166 @@
+package com.autobro.repository;
+
+import com.autobro.dto.CarFilterDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class CarSearchRepositoryImpl implements CarSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final SearchQueryLog queryLog;
+
+    public CarSearchRepositoryImpl(SearchQueryLog queryLog) {
+        this.queryLog = queryLog;
+    }
+
+    @Override
+    public Page<Long> findIdsWithFilters(CarFilterDTO filter, Pageable pageable) {
+        CarFilterSql sql = CarFilterSql.of(filter);
+
+        String order = orderBy(pageable.getSort());
+        // LIMIT и OFFSET в тексте запроса, чтобы журнал запросов снимал план ровно того запроса, что выполнялся
+        String text = "SELECT c.id " + sql.fromWhere() + order
+            + " LIMIT " + pageable.getPageSize() + " OFFSET " + pageable.getOffset();
+        Query query = entityManager.createNativeQuery(text);
+        sql.bind(query);
+        List<Long> ids = queryLog.run("page", sql.shape() + ";" + order, text, sql.params(),
+            () -> toIds(query.getResultList()));
+
+        // COUNT выполняется только когда общее количество нельзя вывести из самой страницы
+        return PageableExecutionUtils.getPage(ids, pageable, () -> {
+            String countText = "SELECT COUNT(c.id) " + sql.fromWhere();
+            Query countQuery = entityManager.createNativeQuery(countText);
+            sql.bind(countQuery);
+            return queryLog.run("count", sql.shape(), countText, sql.params(),
+                () -> ((Number) countQuery.getSingleResult()).longValue());
+        });
+    }
+
+    @Override
+    public List<Long> findIdsWithFiltersAfter(CarFilterDTO filter, CarSortField sortField, Sort.Direction direction,
+                                              Object afterValue, Long afterId, int limit) {
+        CarFilterSql sql = CarFilterSql.of(filter);
+        String comparison = direction.isAscending() ? ">" : "<";
+        if (afterId != null) {
+            if (sortField == CarSortField.ID) {
+                sql.and("c.id " + comparison + " :afterId");
+            } else {
+                // Сравнение кортежей использует составной индекс (поле, id)
+                sql.and("(c." + sortField.getColumn() + ", c.id) " + comparison + " (:afterValue, :afterId)")
+                    .param("afterValue", afterValue);
+            }
+            sql.param("afterId", afterId);
+        }
+
+        String order = " ORDER BY " + (sortField == CarSortField.ID ? "" : "c." + sortField.getColumn() + " " + direction + ", ")
+            + "c.id " + direction;
+        String text = "SELECT c.id " + sql.fromWhere() + order + " LIMIT " + limit;
+        Query query = entityManager.createNativeQuery(text);
+        sql.bind(query);
+        return queryLog.run("after", sql.shape() + ";" + order, text, sql.params(), () -> toIds(query.getResultList()));
+    }
+
+    @Override
+    public List<CarFacetCount> countFacets(CarFilterDTO filter) {
+        CarFilterSql sql = CarFilterSql.of(filter);
+        CarFacet[] facets = CarFacet.values();
+
+        // Один проход по отфильтрованным автомобилям: GROUPING SETS дает группировку по каждому фасету,
+        // а COUNT ... FILTER применяет к каждому фасету условия остальных фасетов
+        StringBuilder select = new StringBuilder("SELECT CASE");
+        for (CarFacet facet : facets) {
+            select.append(" WHEN GROUPING(").append(facet.getColumn()).append(") = 0 THEN '")
+                .append(facet.name()).append('\'');
+        }
+        select.append(" END");
+        for (CarFacet facet : facets) {
+            select.append(", ").append(facet.getColumn());
+            if (facet.isDictionary()) {
+                select.append(", MAX(").append(facet.getNameColumn()).append(')');
+            }
+        }
+        select.append(", CASE");
+        for (CarFacet facet : facets) {
+            select.append(" WHEN GROUPING(").append(facet.getColumn()).append(") = 0 THEN COUNT(*) FILTER (WHERE ")
+                .append(sql.facetConditionsExcept(facet)).append(')');
+        }
+        select.append(" END");
+
+        String groupingSets = Arrays.stream(facets)
+            .map(facet -> "(" + facet.getColumn() + ")")
+            .collect(Collectors.joining(", "));
+        String text = select
+            + " FROM cars c"
+            + " LEFT JOIN car_tech_specs ts ON ts.car_id = c.id"
+            + " LEFT JOIN body_types bt ON bt.id = c.body_type_id"
+            + " LEFT JOIN colors cl ON cl.id = c.color_id"
+            + " WHERE " + sql.baseConditions()
+            + " GROUP BY GROUPING SETS (" + groupingSets + ")";
+        Query query = entityManager.createNativeQuery(text);
+        sql.bind(query);
+
+        List<?> rows = queryLog.run("facets", sql.shape(), text, sql.params(), query::getResultList);
+        List<CarFacetCount> counts = new ArrayList<>();
+        for (Object result : rows) {
+            Object[] row = (Object[]) result;
+            CarFacet facet = CarFacet.valueOf((String) row[0]);
+            // Колонки фасетов идут после имени фасета; у справочников за ID следует название
+            int column = 1;
+            for (CarFacet current : facets) {
+                if (current == facet) {
+                    break;
+                }
+                column += current.isDictionary() ? 2 : 1;
+            }
+            Object value = row[column];
+            if (value == null) {
+                continue;
+            }
+            long count = ((Number) row[row.length - 1]).longValue();
+            if (facet.isDictionary()) {
+                counts.add(new CarFacetCount(facet, ((Number) value).longValue(), (String) row[column + 1], count));
+            } else {
+                counts.add(new CarFacetCount(facet, null, (String) value, count));
+            }
+        }
+        return counts;
+    }
+
+    private static String orderBy(Sort sort) {
+        if (sort.isUnsorted()) {
+            return " ORDER BY c.id";
+        }
+        StringBuilder order = new StringBuilder(" ORDER BY ");
+        Sort.Direction lastDirection = Sort.Direction.ASC;
+        boolean idIncluded = false;
+        for (Sort.Order sortOrder : sort) {
+            CarSortField field = CarSortField.fromRequest(sortOrder.getProperty());
+            order.append("c.").append(field.getColumn()).append(' ').append(sortOrder.getDirection()).append(", ");
+            lastDirection = sortOrder.getDirection();
+            idIncluded |= field == CarSortField.ID;
+        }
+        // ID в конце делает порядок детерминированным при равных значениях поля сортировки
+        if (idIncluded) {
+            return order.substring(0, order.length() - 2);
+        }
+        return order.append("c.id ").append(lastDirection).toString();
+    }
+
+    private static List<Long> toIds(List<?> rows) {
+        return rows.stream()
+            .map(row -> ((Number) row).longValue())
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,95 @@
+package com.autobro.repository;
+
+import com.autobro.exception.ValidationException;
+import com.autobro.model.Car;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Допустимые поля сортировки каталога и соответствующие им колонки таблицы cars
+ */
+public enum CarSortField {
+    ID("id", "id", true),
+    PRICE("price", "price", true),
+    YEAR("year", "year", true),
+    MILEAGE("mileage", "mileage", true),
+    CREATED_AT("createdAt", "created_at", true),
+    UPDATED_AT("updatedAt", "updated_at", false),
+    MAKE("make", "make", false),
+    MODEL("model", "model", false);
+
+    private final String property;
+    private final String column;
+    private final boolean keysetSupported;
+
+    CarSortField(String property, String column, boolean keysetSupported) {
+        this.property = property;
+        this.column = column;
+        this.keysetSupported = keysetSupported;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Поддерживает ли поле курсорную (keyset) пагинацию.
+     * Для этого значения поля должны быть непустыми и сравнимыми в БД.
+     */
+    public boolean isKeysetSupported() {
+        return keysetSupported;
+    }
+
+    /**
+     * Определяет поле сортировки по значению из запроса: принимается как имя свойства (createdAt),
+     * так и имя колонки (created_at). Пустое значение — сортировка по ID.
+     */
+    public static CarSortField fromRequest(String sortBy) {
+        if (sortBy == null || sortBy.isBlank()) {
+            return ID;
+        }
+        for (CarSortField field : values()) {
+            if (field.property.equals(sortBy) || field.column.equals(sortBy)) {
+                return field;
+            }
+        }
+        throw new ValidationException("Недопустимое поле сортировки: " + sortBy);
+    }
+
+    /**
+     * Значение поля сортировки у загруженного автомобиля
+     */
+    public Object valueOf(Car car) {
+        return switch (this) {
+            case ID -> car.getId();
+            case PRICE -> car.getPrice();
+            case YEAR -> car.getYear();
+            case MILEAGE -> car.getMileage();
+            case CREATED_AT -> car.getCreatedAt();
+            case UPDATED_AT -> car.getUpdatedAt();
+            case MAKE -> car.getMake();
+            case MODEL -> car.getModel();
+        };
+    }
+
+    /**
+     * Восстанавливает значение поля из строкового представления (обратно к {@link #format(Object)})
+     */
+    public Object parse(String value) {
+        return switch (this) {
+            case ID -> Long.valueOf(value);
+            case PRICE -> new BigDecimal(value);
+            case YEAR, MILEAGE -> Integer.valueOf(value);
+            case CREATED_AT, UPDATED_AT -> LocalDateTime.parse(value);
+            case MAKE, MODEL -> value;
+        };
+    }
+
+    public String format(Object value) {
+        if (value instanceof BigDecimal price) {
+            return price.toPlainString();
+        }
+        return String.valueOf(value);
+    }
+}
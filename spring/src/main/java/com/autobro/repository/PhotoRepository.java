@@ -2,7 +2,11 @@ package com.autobro.repository;
 
 import com.autobro.model.Photo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 
 @Repository
@@ -10,6 +14,17 @@ public interface PhotoRepository extends JpaRepository<Photo, Long> {
     // Поиск фотографий по ID автомобиля
     List<Photo> findByCarId(Long carId);
 
+    // Фотографии автомобиля в порядке галереи
+    List<Photo> findByCarIdOrderByPositionAscIdAsc(Long carId);
+
     // Удаление всех фотографий автомобиля
     void deleteByCarId(Long carId);
+
+    // Сохранение URL уменьшенных копий; 0 — фото уже удалено
+    @Modifying
+    @Transactional
+    @Query("UPDATE Photo p SET p.thumbnailUrl = :thumbnailUrl, p.mediumUrl = :mediumUrl WHERE p.id = :id")
+    int updateVariantUrls(@Param("id") Long id,
+                          @Param("thumbnailUrl") String thumbnailUrl,
+                          @Param("mediumUrl") String mediumUrl);
 } 
\ No newline at end of file
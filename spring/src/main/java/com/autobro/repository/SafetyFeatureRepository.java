@@ -1,16 +1,31 @@
 package com.autobro.repository;
 
 import com.autobro.model.SafetyFeature;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.Optional;
 
 @Repository
 public interface SafetyFeatureRepository extends JpaRepository<SafetyFeature, Long> {
     // Поиск по типу характеристики
     List<SafetyFeature> findByFeatureType(String featureType);
 
-    Optional<SafetyFeature> findByName(String name);
-} 
\ No newline at end of file
+    // Добавление характеристики, если ее еще нет; параллельная вставка того же названия ничего не делает
+    // Кэш второго уровня после коммита сбрасывается только для этого справочника (query space — его таблица)
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "safety_features"))
+    @Query(value = "INSERT INTO safety_features (id, name, feature_type) " +
+                   "VALUES (nextval('safety_features_id_seq'), :name, :featureType) " +
+                   "ON CONFLICT (name) DO NOTHING",
+           nativeQuery = true)
+    void insertIfAbsent(@Param("name") String name, @Param("featureType") String featureType);
+}
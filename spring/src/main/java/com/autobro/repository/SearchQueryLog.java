@@ -0,0 +1,262 @@
+package com.autobro.repository;
+
+import com.autobro.dto.SlowQueryReportDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Журнал запросов поиска по каталогу (CarSearchRepositoryImpl): время каждого выполнения
+ * и набор заданных фильтров. По каждому набору фильтров ведется статистика, а app.search.slow-query.max-entries
+ * самых медленных выполнений дольше threshold-ms хранятся с SQL и параметрами.
+ * Для доли explain-sample-rate выполнений, попавших в число самых медленных, в фоне снимается EXPLAIN (ANALYZE, BUFFERS) —
+ * запрос выполняется повторно, поэтому одновременно снимается не больше одного плана, а лишние пропускаются.
+ * Все хранится в памяти и сбрасывается при перезапуске или {@link #clear()}.
+ */
+@Slf4j
+@Component
+public class SearchQueryLog {
+    // Наборы фильтров сверх лимита учитываются в одной общей строке
+    private static final String OTHER_SHAPE = "(другие)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final long thresholdNanos;
+    private final int maxEntries;
+    private final int maxShapes;
+    private final double explainSampleRate;
+    private final ThreadPoolExecutor explainExecutor;
+
+    private final Map<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+    // Самое быстрое из сохраненных медленных выполнений — первое: его вытесняет более медленное
+    private final PriorityQueue<SlowQuery> slowest = new PriorityQueue<>(Comparator.comparingLong(SlowQuery::durationNanos));
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong slowExecutions = new AtomicLong();
+
+    public SearchQueryLog(
+            NamedParameterJdbcTemplate jdbcTemplate,
+            @Value("${app.search.slow-query.threshold-ms:200}") long thresholdMs,
+            @Value("${app.search.slow-query.max-entries:50}") int maxEntries,
+            @Value("${app.search.slow-query.max-shapes:500}") int maxShapes,
+            @Value("${app.search.slow-query.explain-sample-rate:0}") double explainSampleRate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+        this.maxEntries = maxEntries;
+        this.maxShapes = maxShapes;
+        this.explainSampleRate = explainSampleRate;
+        // Без очереди: пока снимается план, новые запросы на EXPLAIN отбрасываются
+        this.explainExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new SynchronousQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "search-explain");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * Выполняет запрос и учитывает его время
+     *
+     * @param kind вид запроса (page, count, after, facets)
+     * @param shape заданные фильтры и сортировка; параметры в него не входят
+     * @param sql текст запроса в том виде, в котором он выполняется, — по нему снимается план
+     * @param params именованные параметры запроса
+     */
+    <T> T run(String kind, String shape, String sql, Map<String, Object> params, Supplier<T> query) {
+        long start = System.nanoTime();
+        T result = query.get();
+        long duration = System.nanoTime() - start;
+
+        executions.incrementAndGet();
+        boolean slow = duration >= thresholdNanos;
+        String key = kind + " " + shape;
+        if (!shapes.containsKey(key) && shapes.size() >= maxShapes) {
+            key = kind + " " + OTHER_SHAPE;
+        }
+        ShapeStats stats = shapes.computeIfAbsent(key, k -> new ShapeStats(kind, k.substring(kind.length() + 1)));
+        stats.record(duration, slow);
+        if (slow) {
+            slowExecutions.incrementAndGet();
+            log.warn("Медленный запрос поиска ({} мс): {} {}", TimeUnit.NANOSECONDS.toMillis(duration), kind, shape);
+            SlowQuery entry = new SlowQuery(kind, shape, sql, new LinkedHashMap<>(params), duration, LocalDateTime.now());
+            if (remember(entry) && ThreadLocalRandom.current().nextDouble() < explainSampleRate) {
+                explainExecutor.execute(() -> explain(entry, stats));
+            }
+        }
+        return result;
+    }
+
+    public SlowQueryReportDTO getReport() {
+        SlowQueryReportDTO report = new SlowQueryReportDTO();
+        report.setThresholdMs(TimeUnit.NANOSECONDS.toMillis(thresholdNanos));
+        report.setExplainSampleRate(explainSampleRate);
+        report.setExecutions(executions.get());
+        report.setSlowExecutions(slowExecutions.get());
+        report.setShapes(shapes.values().stream()
+            .sorted(Comparator.comparingLong(ShapeStats::totalNanos).reversed())
+            .map(ShapeStats::toDto)
+            .toList());
+        List<SlowQuery> entries;
+        synchronized (slowest) {
+            entries = new ArrayList<>(slowest);
+        }
+        report.setSlowest(entries.stream()
+            .sorted(Comparator.comparingLong(SlowQuery::durationNanos).reversed())
+            .map(SlowQuery::toDto)
+            .toList());
+        return report;
+    }
+
+    public void clear() {
+        shapes.clear();
+        synchronized (slowest) {
+            slowest.clear();
+        }
+        executions.set(0);
+        slowExecutions.set(0);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        explainExecutor.shutdownNow();
+    }
+
+    /**
+     * Сохраняет выполнение среди самых медленных; false, если оно быстрее всех сохраненных
+     */
+    private boolean remember(SlowQuery entry) {
+        synchronized (slowest) {
+            if (slowest.size() >= maxEntries) {
+                if (slowest.isEmpty() || slowest.peek().durationNanos() >= entry.durationNanos()) {
+                    return false;
+                }
+                slowest.poll();
+            }
+            slowest.add(entry);
+            return true;
+        }
+    }
+
+    private void explain(SlowQuery entry, ShapeStats stats) {
+        String plan;
+        try {
+            plan = String.join("\n", jdbcTemplate.queryForList(
+                "EXPLAIN (ANALYZE, BUFFERS) " + entry.sql(), entry.params(), String.class));
+        } catch (DataAccessException e) {
+            log.warn("Не удалось получить план запроса поиска: {}", e.getMessage());
+            plan = "EXPLAIN недоступен: " + e.getMostSpecificCause().getMessage();
+        }
+        entry.plan = plan;
+        stats.lastPlan = plan;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static final class ShapeStats {
+        private final String kind;
+        private final String shape;
+        private final AtomicLong executions = new AtomicLong();
+        private final AtomicLong slowExecutions = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private volatile String lastPlan;
+
+        private ShapeStats(String kind, String shape) {
+            this.kind = kind;
+            this.shape = shape;
+        }
+
+        private void record(long duration, boolean slow) {
+            executions.incrementAndGet();
+            if (slow) {
+                slowExecutions.incrementAndGet();
+            }
+            totalNanos.addAndGet(duration);
+            maxNanos.accumulateAndGet(duration, Math::max);
+        }
+
+        private long totalNanos() {
+            return totalNanos.get();
+        }
+
+        private SlowQueryReportDTO.ShapeStats toDto() {
+            SlowQueryReportDTO.ShapeStats dto = new SlowQueryReportDTO.ShapeStats();
+            dto.setKind(kind);
+            dto.setShape(shape);
+            long count = executions.get();
+            dto.setExecutions(count);
+            dto.setSlowExecutions(slowExecutions.get());
+            dto.setTotalMs(toMillis(totalNanos.get()));
+            dto.setAvgMs(count > 0 ? toMillis(totalNanos.get()) / count : 0);
+            dto.setMaxMs(toMillis(maxNanos.get()));
+            dto.setLastPlan(lastPlan);
+            return dto;
+        }
+    }
+
+    private static final class SlowQuery {
+        private final String kind;
+        private final String shape;
+        private final String sql;
+        private final Map<String, Object> params;
+        private final long durationNanos;
+        private final LocalDateTime executedAt;
+        private volatile String plan;
+
+        private SlowQuery(String kind, String shape, String sql, Map<String, Object> params,
+                          long durationNanos, LocalDateTime executedAt) {
+            this.kind = kind;
+            this.shape = shape;
+            this.sql = sql;
+            this.params = params;
+            this.durationNanos = durationNanos;
+            this.executedAt = executedAt;
+        }
+
+        private String sql() {
+            return sql;
+        }
+
+        private Map<String, Object> params() {
+            return params;
+        }
+
+        private long durationNanos() {
+            return durationNanos;
+        }
+
+        private SlowQueryReportDTO.SlowQuery toDto() {
+            SlowQueryReportDTO.SlowQuery dto = new SlowQueryReportDTO.SlowQuery();
+            dto.setKind(kind);
+            dto.setShape(shape);
+            dto.setDurationMs(toMillis(durationNanos));
+            dto.setExecutedAt(executedAt);
+            dto.setSql(sql);
+            Map<String, String> parameters = new LinkedHashMap<>();
+            params.forEach((name, value) -> parameters.put(name, String.valueOf(value)));
+            dto.setParameters(parameters);
+            dto.setPlan(plan);
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.autobro.repository;
+
+import com.autobro.model.StoredFile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StoredFileRepository extends JpaRepository<StoredFile, String> {
+    // Добавление ссылки на файл: новая запись или увеличение счетчика существующей (одним запросом, без гонок)
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO stored_files (hash, url, size, ref_count, created_at) " +
+                   "VALUES (:hash, :url, :size, 1, now()) " +
+                   "ON CONFLICT (hash) DO UPDATE SET ref_count = stored_files.ref_count + 1, released_at = NULL",
+           nativeQuery = true)
+    void acquire(@Param("hash") String hash, @Param("url") String url, @Param("size") long size);
+
+    @Query("SELECT f.url FROM StoredFile f WHERE f.hash = :hash")
+    String findUrlByHash(@Param("hash") String hash);
+
+    // Освобождение ссылки на файл
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredFile f SET f.refCount = f.refCount - 1, f.releasedAt = :now WHERE f.url = :url AND f.refCount > 0")
+    int release(@Param("url") String url, @Param("now") LocalDateTime now);
+
+    List<StoredFile> findByRefCountAndReleasedAtBefore(Integer refCount, LocalDateTime releasedBefore);
+
+    // Удаление записи, если на файл так и не появилось новых ссылок; 1 — файл можно удалять с диска
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StoredFile f WHERE f.hash = :hash AND f.refCount = 0")
+    int deleteIfUnreferenced(@Param("hash") String hash);
+}
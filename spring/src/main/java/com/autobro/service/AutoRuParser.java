@@ -2,196 +2,323 @@ package com.autobro.service;
 
 import com.autobro.dto.CarDTO;
 import com.autobro.dto.TechnicalSpecDTO;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
- * Сервис для парсинга данных с auto.ru с использованием headless-браузера
+ * Сервис для парсинга данных с auto.ru с использованием headless-браузера.
+ * Страницы разбирают постоянные процессы Node.js из {@link ParserWorkerPool}, результаты кэшируются
+ * в {@link ParserResultCache}; с refresh страница парсится заново
  */
 @Service
 @Slf4j
 public class AutoRuParser {
 
-    @Value("${parser.auto.ru.script.path:./scripts/auto_ru_parser.js}")
-    private String parserScriptPath;
+    private final ParserWorkerPool workerPool;
+    private final ParserResultCache resultCache;
+    // Общий для всех запросов, настроенный как ObjectMapper приложения (неизвестные поля пропускаются)
+    private final ObjectReader carReader;
+    // Загрузка страниц автомобилей для parseCarsWithDetails: не больше parser.details.concurrency одновременно
+    private final ExecutorService detailsExecutor;
 
-    @Value("${parser.auto.ru.timeout:60000}")
-    private long parserTimeout;
+    public AutoRuParser(
+            ParserWorkerPool workerPool,
+            ParserResultCache resultCache,
+            ObjectMapper objectMapper,
+            @Value("${parser.details.concurrency:2}") int detailsConcurrency) {
+        this.workerPool = workerPool;
+        this.resultCache = resultCache;
+        this.carReader = objectMapper.readerFor(CarDTO.class);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.detailsExecutor = Executors.newFixedThreadPool(detailsConcurrency, runnable -> {
+            Thread thread = new Thread(runnable, "parser-details-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        detailsExecutor.shutdownNow();
+    }
 
     /**
      * Парсит данные об автомобилях с auto.ru
      * 
      * @param url URL страницы с автомобилями на auto.ru
+     * @param refresh парсить страницу заново, даже если результат есть в кэше
      * @return Список объектов с данными об автомобилях
      */
-    public List<CarDTO> parseCars(String url) {
-        log.info("Начинаем парсинг auto.ru: {}", url);
+    public List<CarDTO> parseCars(String url, boolean refresh) {
         List<CarDTO> cars = new ArrayList<>();
-        
+        parseCars(url, refresh, cars::add);
+        return cars;
+    }
+
+    /**
+     * Парсит данные об автомобилях с auto.ru, передавая каждый автомобиль сразу после получения
+     * от процесса парсера, не дожидаясь конца списка. Обработчик вызывается в потоке чтения вывода
+     * процесса: пока он работает, следующие автомобили не читаются. Исключение из обработчика прерывает парсинг.
+     * Результат из кэша передается в потоке вызывающего.
+     *
+     * @param url URL страницы с автомобилями на auto.ru
+     * @param refresh парсить страницу заново, даже если результат есть в кэше
+     * @param consumer обработчик автомобилей
+     * @return Количество полученных автомобилей
+     */
+    public int parseCars(String url, boolean refresh, Consumer<CarDTO> consumer) {
+        log.info("Начинаем парсинг auto.ru: {}", url);
+        AtomicInteger count = new AtomicInteger();
         try {
-            // Запускаем Node.js скрипт с Playwright для парсинга
-            ProcessBuilder processBuilder = new ProcessBuilder("node", parserScriptPath, url);
-            processBuilder.redirectErrorStream(true);
-            Process process = processBuilder.start();
-            
-            // Читаем вывод скрипта
-            StringBuilder output = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    output.append(line).append("\n");
+            fetchList(url, refresh, item -> {
+                consumer.accept(toCar(item));
+                count.incrementAndGet();
+            });
+            log.info("Успешно получено {} автомобилей с auto.ru", count.get());
+            return count.get();
+        } catch (RuntimeException e) {
+            log.error("Ошибка при парсинге auto.ru", e);
+            throw new RuntimeException("Ошибка при парсинге auto.ru: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Парсит список автомобилей вместе со страницей каждого автомобиля. Страницы загружаются параллельно
+     * (не больше parser.details.concurrency одновременно для всех вызовов, с ограничением частоты запросов
+     * к хосту в {@link ParserWorkerPool}), начиная с первых автомобилей, не дожидаясь конца списка.
+     * Автомобиль передается обработчику, как только загружена его страница, поэтому медленная страница
+     * не задерживает остальные. Данные страницы дополняют данные из списка; если страницу загрузить
+     * не удалось, передаются данные из списка.
+     * Обработчик вызывается из разных потоков, но не одновременно. Исключение из обработчика прерывает парсинг.
+     *
+     * @param url URL страницы с автомобилями на auto.ru
+     * @param refresh парсить список и страницы автомобилей заново, даже если результаты есть в кэше
+     * @param consumer обработчик автомобилей
+     * @return Количество полученных автомобилей
+     */
+    public int parseCarsWithDetails(String url, boolean refresh, Consumer<CarDTO> consumer) {
+        log.info("Начинаем парсинг auto.ru со страницами автомобилей: {}", url);
+        Object lock = new Object();
+        AtomicInteger count = new AtomicInteger();
+        AtomicInteger withoutDetails = new AtomicInteger();
+        // После ошибки автомобили больше не передаются, а еще не начатые страницы не загружаются
+        AtomicBoolean stopped = new AtomicBoolean();
+        AtomicReference<RuntimeException> consumerError = new AtomicReference<>();
+        // Пополняется потоком чтения вывода процесса парсера
+        Queue<CompletableFuture<CarDTO>> pages = new ConcurrentLinkedQueue<>();
+        Queue<CompletableFuture<Void>> delivered = new ConcurrentLinkedQueue<>();
+
+        Consumer<CarDTO> deliver = car -> {
+            synchronized (lock) {
+                if (stopped.get()) {
+                    return;
+                }
+                try {
+                    consumer.accept(car);
+                    count.incrementAndGet();
+                } catch (RuntimeException e) {
+                    consumerError.set(e);
+                    stopped.set(true);
                 }
             }
-            
-            // Ждем завершения процесса с таймаутом
-            boolean completed = process.waitFor(parserTimeout, TimeUnit.MILLISECONDS);
-            if (!completed) {
-                process.destroyForcibly();
-                log.error("Парсинг auto.ru превысил таймаут: {} мс", parserTimeout);
-                throw new RuntimeException("Парсинг auto.ru превысил таймаут");
-            }
-            
-            // Проверяем код завершения
-            int exitCode = process.exitValue();
-            if (exitCode != 0) {
-                log.error("Ошибка при парсинге auto.ru. Код выхода: {}, Вывод: {}", exitCode, output);
-                throw new RuntimeException("Ошибка при парсинге auto.ru: " + output);
-            }
-            
-            // Парсим JSON-результат
-            ObjectMapper mapper = new ObjectMapper();
-            cars = Arrays.asList(mapper.readValue(output.toString(), CarDTO[].class));
-            log.info("Успешно получено {} автомобилей с auto.ru", cars.size());
-            
-        } catch (IOException | InterruptedException e) {
+        };
+
+        try {
+            fetchList(url, refresh, item -> {
+                CarDTO listed = toCar(item);
+                if (listed.getSourceUrl() == null) {
+                    deliver.accept(listed);
+                    return;
+                }
+                CompletableFuture<CarDTO> page = CompletableFuture.supplyAsync(() -> stopped.get()
+                    ? listed
+                    : merge(listed, toCar(fetchDetails(listed.getSourceUrl(), refresh))), detailsExecutor);
+                pages.add(page);
+                delivered.add(page
+                    .exceptionally(error -> {
+                        withoutDetails.incrementAndGet();
+                        log.warn("Не удалось получить страницу автомобиля {}: {}", listed.getSourceUrl(),
+                            (error instanceof CompletionException ? error.getCause() : error).getMessage());
+                        return listed;
+                    })
+                    .thenAccept(deliver));
+            });
+            CompletableFuture.allOf(delivered.toArray(CompletableFuture[]::new)).join();
+        } catch (RuntimeException e) {
+            stopped.set(true);
+            pages.forEach(page -> page.cancel(false));
             log.error("Ошибка при парсинге auto.ru", e);
             throw new RuntimeException("Ошибка при парсинге auto.ru: " + e.getMessage(), e);
         }
-        
-        return cars;
+        if (consumerError.get() != null) {
+            throw consumerError.get();
+        }
+        log.info("Успешно получено {} автомобилей с auto.ru, без страницы автомобиля: {}", count.get(), withoutDetails.get());
+        return count.get();
     }
-    
+
     /**
      * Парсит детальную информацию об автомобиле по URL
      * 
      * @param detailUrl URL страницы с детальной информацией об автомобиле
+     * @param refresh парсить страницу заново, даже если результат есть в кэше
      * @return Объект с данными об автомобиле
      */
-    public CarDTO parseCarDetails(String detailUrl) {
+    public CarDTO parseCarDetails(String detailUrl, boolean refresh) {
         log.info("Парсинг детальной информации об автомобиле: {}", detailUrl);
-        
         try {
-            // Запускаем Node.js скрипт с Playwright для парсинга деталей
-            ProcessBuilder processBuilder = new ProcessBuilder("node", parserScriptPath, detailUrl, "--details");
-            processBuilder.redirectErrorStream(true);
-            Process process = processBuilder.start();
-            
-            // Читаем вывод скрипта
-            StringBuilder output = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    output.append(line).append("\n");
-                }
-            }
-            
-            // Ждем завершения процесса с таймаутом
-            boolean completed = process.waitFor(parserTimeout, TimeUnit.MILLISECONDS);
-            if (!completed) {
-                process.destroyForcibly();
-                log.error("Парсинг деталей auto.ru превысил таймаут: {} мс", parserTimeout);
-                throw new RuntimeException("Парсинг деталей auto.ru превысил таймаут");
-            }
-            
-            // Проверяем код завершения
-            int exitCode = process.exitValue();
-            if (exitCode != 0) {
-                log.error("Ошибка при парсинге деталей auto.ru. Код выхода: {}, Вывод: {}", exitCode, output);
-                throw new RuntimeException("Ошибка при парсинге деталей auto.ru: " + output);
-            }
-            
-            // Парсим JSON-результат
-            ObjectMapper mapper = new ObjectMapper();
-            CarDTO car = mapper.readValue(output.toString(), CarDTO.class);
+            CarDTO car = toCar(fetchDetails(detailUrl, refresh));
             log.info("Успешно получены детали автомобиля: {} {}", car.getMake(), car.getModel());
-            
             return car;
-            
-        } catch (IOException | InterruptedException e) {
+        } catch (RuntimeException e) {
             log.error("Ошибка при парсинге деталей auto.ru", e);
             throw new RuntimeException("Ошибка при парсинге деталей auto.ru: " + e.getMessage(), e);
         }
     }
-    
+
     /**
-     * Извлекает технические характеристики из текстового описания
-     * 
-     * @param description Текстовое описание автомобиля
-     * @return Объект с техническими характеристиками
+     * Элементы списка из кэша или от процесса парсера. Кэшируются исходные JSON-объекты, а не CarDTO:
+     * каждый запрос получает собственные экземпляры автомобилей, которые можно изменять
      */
-    private TechnicalSpecDTO extractTechnicalSpec(String description) {
-        TechnicalSpecDTO spec = new TechnicalSpecDTO();
-        
-        // Извлекаем объем двигателя
-        Pattern engineVolumePattern = Pattern.compile("(\\d+[.,]\\d+)\\s*л");
-        Matcher engineVolumeMatcher = engineVolumePattern.matcher(description);
-        if (engineVolumeMatcher.find()) {
-            String volumeStr = engineVolumeMatcher.group(1).replace(',', '.');
-            spec.setEngineVolume(Double.parseDouble(volumeStr));
+    private void fetchList(String url, boolean refresh, Consumer<JsonNode> items) {
+        boolean[] streamed = {false};
+        List<JsonNode> list = resultCache.get(ParserResultCache.Mode.LIST, url, refresh, () -> {
+            // Элементы передаются по мере разбора страницы и одновременно собираются для кэша
+            streamed[0] = true;
+            List<JsonNode> loaded = new ArrayList<>();
+            workerPool.execute("list", url, item -> {
+                loaded.add(item);
+                items.accept(item);
+            });
+            return List.copyOf(loaded);
+        });
+        if (!streamed[0]) {
+            list.forEach(items);
+        }
+    }
+
+    private JsonNode fetchDetails(String url, boolean refresh) {
+        return resultCache.get(ParserResultCache.Mode.DETAILS, url, refresh,
+            () -> workerPool.execute("details", url, null));
+    }
+
+    private CarDTO toCar(JsonNode node) {
+        CarDTO car;
+        try {
+            car = carReader.readValue(node);
+        } catch (IOException e) {
+            throw new RuntimeException("Некорректные данные автомобиля от парсера: " + e.getMessage(), e);
+        }
+        // Скрипт парсера называет поля иначе, чем CarDTO
+        if (car.getSourceUrl() == null) {
+            car.setSourceUrl(textOrNull(node, "url"));
         }
-        
-        // Извлекаем мощность двигателя
-        Pattern horsePowerPattern = Pattern.compile("(\\d+)\\s*л\\.?с\\.?");
-        Matcher horsePowerMatcher = horsePowerPattern.matcher(description);
-        if (horsePowerMatcher.find()) {
-            spec.setHorsePower(Integer.parseInt(horsePowerMatcher.group(1)));
+        if (car.getLocation() == null) {
+            car.setLocation(textOrNull(node, "city"));
         }
-        
-        // Определяем тип топлива
-        if (description.toLowerCase().contains("бензин")) {
-            spec.setFuelType("Бензин");
-        } else if (description.toLowerCase().contains("дизель")) {
-            spec.setFuelType("Дизель");
-        } else if (description.toLowerCase().contains("электро")) {
-            spec.setFuelType("Электро");
-        } else if (description.toLowerCase().contains("гибрид")) {
-            spec.setFuelType("Гибрид");
+        if (car.getMainPhotoUrl() == null) {
+            car.setMainPhotoUrl(textOrNull(node, "imageUrl"));
         }
-        
-        // Определяем тип трансмиссии
-        if (description.toLowerCase().contains("механика") || description.toLowerCase().contains("мкпп")) {
-            spec.setTransmissionType("Механика");
-        } else if (description.toLowerCase().contains("автомат") || description.toLowerCase().contains("акпп")) {
-            spec.setTransmissionType("Автомат");
-        } else if (description.toLowerCase().contains("робот")) {
-            spec.setTransmissionType("Робот");
-        } else if (description.toLowerCase().contains("вариатор") || description.toLowerCase().contains("cvt")) {
-            spec.setTransmissionType("Вариатор");
+        if (car.getPhotos() == null && node.path("images").isArray() && !node.path("images").isEmpty()) {
+            List<String> photos = new ArrayList<>();
+            node.path("images").forEach(image -> photos.add(image.asText()));
+            car.setPhotos(photos);
         }
-        
-        // Определяем тип привода
-        if (description.toLowerCase().contains("передний привод") || description.toLowerCase().contains("fwd")) {
-            spec.setDriveType("Передний");
-        } else if (description.toLowerCase().contains("задний привод") || description.toLowerCase().contains("rwd")) {
-            spec.setDriveType("Задний");
-        } else if (description.toLowerCase().contains("полный привод") || 
-                  description.toLowerCase().contains("4wd") || 
-                  description.toLowerCase().contains("awd")) {
-            spec.setDriveType("Полный");
+        if (car.getTechnicalSpec() == null) {
+            car.setTechnicalSpec(extractTechnicalSpec(node));
         }
-        
+        return car;
+    }
+
+    /**
+     * Технические характеристики из текстовых полей объявления (двигатель, коробка, привод, описание)
+     */
+    static TechnicalSpecDTO extractTechnicalSpec(JsonNode node) {
+        String engine = node.path("engine").asText("");
+        String transmission = node.path("transmission").asText("");
+        // На странице автомобиля привод указан одним словом («передний»)
+        String drive = node.path("drive").asText("");
+        if (!drive.isBlank() && !drive.toLowerCase().contains("привод")) {
+            drive = drive + " привод";
+        }
+        String text = String.join(". ", engine, transmission, drive, node.path("description").asText(""));
+        if (text.isBlank()) {
+            return null;
+        }
+        TechnicalSpecDTO spec = TechnicalSpecExtractor.extract(text);
+        // В выдаче мощность приходит отдельным полем, а не в описании двигателя
+        if (spec.getHorsePower() == null && node.path("horsePower").asInt() > 0) {
+            spec.setHorsePower(node.path("horsePower").asInt());
+        }
+        spec.setEngineInfo(engine.isBlank() ? null : engine);
+        spec.setTransmissionInfo(transmission.isBlank() ? null : transmission);
         return spec;
     }
+
+    /**
+     * Данные со страницы автомобиля, дополненные данными из списка там, где страница их не содержит
+     * (парсер возвращает 0 для не найденных на странице чисел)
+     */
+    static CarDTO merge(CarDTO listed, CarDTO details) {
+        details.setMake(firstText(details.getMake(), listed.getMake()));
+        details.setModel(firstText(details.getModel(), listed.getModel()));
+        details.setYear(firstPositive(details.getYear(), listed.getYear()));
+        details.setPrice(details.getPrice() != null && details.getPrice().signum() > 0 ? details.getPrice() : listed.getPrice());
+        details.setMileage(firstPositive(details.getMileage(), listed.getMileage()));
+        details.setBodyType(firstText(details.getBodyType(), listed.getBodyType()));
+        details.setColor(firstText(details.getColor(), listed.getColor()));
+        details.setLocation(firstText(details.getLocation(), listed.getLocation()));
+        details.setMainPhotoUrl(firstText(details.getMainPhotoUrl(), listed.getMainPhotoUrl()));
+        // Адрес объявления из списка — ключ для сопоставления с каталогом, страница могла открыться по другому адресу
+        details.setSourceUrl(listed.getSourceUrl());
+
+        TechnicalSpecDTO spec = details.getTechnicalSpec();
+        TechnicalSpecDTO listedSpec = listed.getTechnicalSpec();
+        if (spec == null) {
+            details.setTechnicalSpec(listedSpec);
+        } else if (listedSpec != null) {
+            spec.setFuelType(firstText(spec.getFuelType(), listedSpec.getFuelType()));
+            spec.setEngineVolume(Objects.requireNonNullElse(spec.getEngineVolume(), listedSpec.getEngineVolume()));
+            spec.setHorsePower(firstPositive(spec.getHorsePower(), listedSpec.getHorsePower()));
+            spec.setDriveType(firstText(spec.getDriveType(), listedSpec.getDriveType()));
+            spec.setTransmissionType(firstText(spec.getTransmissionType(), listedSpec.getTransmissionType()));
+            spec.setGears(firstPositive(spec.getGears(), listedSpec.getGears()));
+            spec.setEngineInfo(firstText(spec.getEngineInfo(), listedSpec.getEngineInfo()));
+            spec.setTransmissionInfo(firstText(spec.getTransmissionInfo(), listedSpec.getTransmissionInfo()));
+        }
+        return details;
+    }
+
+    private static String firstText(String value, String fallback) {
+        return value != null && !value.isBlank() ? value : fallback;
+    }
+
+    private static Integer firstPositive(Integer value, Integer fallback) {
+        return value != null && value > 0 ? value : fallback;
+    }
+
+    private static String textOrNull(JsonNode node, String field) {
+        String value = node.path(field).asText("");
+        return value.isBlank() ? null : value;
+    }
 }
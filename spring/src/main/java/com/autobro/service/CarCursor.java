@@ -0,0 +1,68 @@
+package com.autobro.service;
+
+import com.autobro.exception.ValidationException;
+import com.autobro.repository.CarSortField;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Курсор keyset-пагинации каталога: позиция последнего автомобиля страницы
+ * (значение поля сортировки и ID) вместе с самим порядком сортировки.
+ * Для клиента это непрозрачная строка в base64url.
+ */
+final class CarCursor {
+    private static final String VERSION = "v1";
+    private static final char SEPARATOR = '|';
+
+    private final CarSortField sortField;
+    private final Sort.Direction direction;
+    private final Object value;
+    private final Long id;
+
+    CarCursor(CarSortField sortField, Sort.Direction direction, Object value, Long id) {
+        this.sortField = sortField;
+        this.direction = direction;
+        this.value = value;
+        this.id = id;
+    }
+
+    CarSortField getSortField() {
+        return sortField;
+    }
+
+    Sort.Direction getDirection() {
+        return direction;
+    }
+
+    Object getValue() {
+        return value;
+    }
+
+    Long getId() {
+        return id;
+    }
+
+    String encode() {
+        String raw = VERSION + SEPARATOR + sortField.name() + SEPARATOR + direction.name() + SEPARATOR
+            + id + SEPARATOR + sortField.format(value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static CarCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            // Значение идет последним: для строковых полей оно может содержать разделитель
+            String[] parts = raw.split("\\|", 5);
+            if (parts.length != 5 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("unsupported cursor format");
+            }
+            CarSortField sortField = CarSortField.valueOf(parts[1]);
+            return new CarCursor(sortField, Sort.Direction.valueOf(parts[2]), sortField.parse(parts[4]),
+                Long.valueOf(parts[3]));
+        } catch (RuntimeException e) {
+            throw new ValidationException("Некорректный курсор пагинации");
+        }
+    }
+}
@@ -0,0 +1,654 @@
+package com.autobro.service;
+
+import com.autobro.dto.CarDTO;
+import com.autobro.dto.CarImportResultDTO;
+import com.autobro.dto.TechnicalSpecDTO;
+import com.autobro.exception.ValidationException;
+import com.autobro.model.BodyType;
+import com.autobro.model.Car;
+import com.autobro.model.Color;
+import com.autobro.model.TechnicalSpec;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Массовый импорт автомобилей из партнерских выгрузок в формате NDJSON (CarDTO на строку) или CSV
+ * (колонки с именами полей CarDTO и TechnicalSpecDTO, характеристики безопасности через ";").
+ * Данные читаются потоком по одной записи и пишутся пачками по app.import.batch-size через JDBC batch:
+ * справочники разрешаются один раз на пачку (и кэшируются до конца импорта), каждая пачка — отдельная транзакция.
+ * Ошибки отдельных записей не прерывают импорт и попадают в итоговый отчет.
+ * Автомобили с адресом объявления (sourceUrl) сопоставляются с уже загруженными по этому адресу и отпечатку
+ * ключевых полей: новые добавляются, измененные обновляются, неизмененные пропускаются без записи в базу.
+ * Тем же путем пишет автомобили обход объявлений auto.ru ({@link ListingCrawler}) через {@link CarWriter}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CarImportService {
+    private static final String SAFETY_FEATURE_SEPARATOR = ";";
+    // Шаг последовательностей ID (allocationSize в маппинге сущностей)
+    private static final int ID_ALLOCATION_SIZE = 50;
+    private static final char FINGERPRINT_SEPARATOR = '\u001F';
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final CatalogStatistics catalogStatistics;
+    private final CatalogVersion catalogVersion;
+    private final DictionarySnapshot dictionarySnapshot;
+    private final CarSearchIndex carSearchIndex;
+
+    @Value("${app.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.import.max-reported-errors:100}")
+    private int maxReportedErrors;
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    public CarImportResultDTO importCars(InputStream input, Format format) {
+        CarWriter writer = new CarWriter();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        try {
+            RecordSource source = format == Format.CSV ? csvSource(reader) : ndjsonSource(reader);
+            SourceRecord record;
+            while ((record = source.next()) != null) {
+                writer.add(record);
+            }
+        } catch (IOException e) {
+            // Уже записанные пачки остаются в базе
+            writer.session.fail(0, "Ошибка чтения данных: " + e.getMessage());
+        }
+
+        CarImportResultDTO result = writer.finish();
+        log.info("Импорт автомобилей: записей {}, загружено {}, обновлено {}, без изменений {}, ошибок {}, {} мс",
+            result.getTotal(), result.getImported(), result.getUpdated(), result.getUnchanged(),
+            result.getFailed(), result.getDurationMs());
+        return result;
+    }
+
+    /**
+     * Запись автомобилей, которые поступают по одному (обход объявлений): пачками, как при импорте
+     */
+    public CarWriter newWriter() {
+        return new CarWriter();
+    }
+
+    private void writeBatch(ImportSession session, List<ImportRow> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        session.result.setBatches(session.result.getBatches() + 1);
+        try {
+            session.apply(transactionTemplate.execute(status -> write(session, batch)));
+        } catch (DataAccessException e) {
+            // Пачка откатилась целиком (вместе с добавленными значениями справочников) —
+            // повторяем по одной записи, чтобы загрузить корректные и найти ошибочные
+            session.clearDictionaries();
+            for (ImportRow row : batch) {
+                try {
+                    session.apply(transactionTemplate.execute(status -> write(session, List.of(row))));
+                } catch (DataAccessException rowError) {
+                    session.clearDictionaries();
+                    session.fail(row.line, "Ошибка записи: " + NestedExceptionUtils.getMostSpecificCause(rowError).getMessage());
+                }
+            }
+        }
+    }
+
+    private BatchOutcome write(ImportSession session, List<ImportRow> batch) {
+        // Объявления, загруженные раньше: с тем же отпечатком пропускаются, с другим — обновляются
+        Map<String, ExistingCar> existing = findExisting(batch);
+        List<ImportRow> rows = new ArrayList<>(batch.size());
+        int unchanged = 0;
+        for (ImportRow row : batch) {
+            row.existing = row.sourceUrl != null ? existing.get(row.sourceUrl) : null;
+            if (row.existing != null && row.fingerprint.equals(row.existing.fingerprint())) {
+                unchanged++;
+            } else {
+                rows.add(row);
+            }
+        }
+
+        resolveDictionary(session.bodyTypeIds, "body_types", rows, row -> row.dto.getBodyType());
+        resolveDictionary(session.colorIds, "colors", rows, row -> row.dto.getColor());
+        // Новые характеристики безопасности получают тот же тип, что и при сохранении автомобиля (DictionaryService)
+        Set<String> featureNames = rows.stream()
+            .flatMap(row -> row.safetyFeatures.stream())
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+        resolveDictionary(session.featureIds, "safety_features", featureNames,
+            Map.of("feature_type", DictionaryService.DEFAULT_FEATURE_TYPE));
+
+        if (rows.isEmpty()) {
+            return new BatchOutcome(0, 0, unchanged);
+        }
+
+        // ID выделяются заранее, чтобы сразу ссылаться на автомобили из характеристик
+        List<Long> ids = allocateIds("cars_id_seq", (int) rows.stream().filter(row -> row.existing == null).count());
+        List<Long> specIds = allocateIds("car_tech_specs_id_seq",
+            (int) rows.stream().filter(row -> row.dto.getTechnicalSpec() != null).count());
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp timestamp = Timestamp.valueOf(now);
+
+        List<Object[]> carRows = new ArrayList<>(rows.size());
+        List<Object[]> updateRows = new ArrayList<>();
+        List<Object[]> updatedIds = new ArrayList<>();
+        List<Object[]> specRows = new ArrayList<>(rows.size());
+        List<Object[]> featureRows = new ArrayList<>();
+        List<Car> cars = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            CarDTO dto = row.dto;
+            Long bodyTypeId = dto.getBodyType() != null ? session.bodyTypeIds.get(dto.getBodyType()) : null;
+            Long colorId = dto.getColor() != null ? session.colorIds.get(dto.getColor()) : null;
+            Long carId;
+            if (row.existing == null) {
+                carId = ids.get(carRows.size());
+                carRows.add(new Object[]{
+                    carId, dto.getMake(), dto.getModel(), row.year, bodyTypeId, row.price, row.mileage, colorId,
+                    dto.getCarCondition(), dto.getLocation(), dto.getMainPhotoUrl(), row.sourceUrl, row.fingerprint,
+                    timestamp, timestamp
+                });
+            } else {
+                carId = row.existing.id();
+                updateRows.add(new Object[]{
+                    dto.getMake(), dto.getModel(), row.year, bodyTypeId, row.price, row.mileage, colorId,
+                    dto.getCarCondition(), dto.getLocation(), dto.getMainPhotoUrl(), row.fingerprint, timestamp, carId
+                });
+                updatedIds.add(new Object[]{carId});
+            }
+            TechnicalSpecDTO spec = dto.getTechnicalSpec();
+            if (spec != null) {
+                specRows.add(new Object[]{
+                    specIds.get(specRows.size()), carId, spec.getFuelType(), spec.getEngineVolume(),
+                    spec.getHorsePower(), spec.getDriveType(), spec.getTransmissionType(), engineInfo(spec),
+                    spec.getTransmissionInfo() != null ? spec.getTransmissionInfo() : spec.getTransmissionType(),
+                    spec.getGears()
+                });
+            }
+            for (String feature : row.safetyFeatures) {
+                featureRows.add(new Object[]{carId, session.featureIds.get(feature)});
+            }
+            cars.add(toCar(carId, row, bodyTypeId, colorId, now));
+        }
+
+        jdbcTemplate.batchUpdate("INSERT INTO cars (id, make, model, year, body_type_id, price, mileage, color_id, "
+            + "car_condition, location, main_photo_url, source_url, fingerprint, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", carRows);
+        // Характеристики и системы безопасности обновленных автомобилей записываются заново
+        jdbcTemplate.batchUpdate("UPDATE cars SET make = ?, model = ?, year = ?, body_type_id = ?, price = ?, "
+            + "mileage = ?, color_id = ?, car_condition = ?, location = ?, main_photo_url = ?, fingerprint = ?, "
+            + "updated_at = ? WHERE id = ?", updateRows);
+        jdbcTemplate.batchUpdate("DELETE FROM car_tech_specs WHERE car_id = ?", updatedIds);
+        jdbcTemplate.batchUpdate("DELETE FROM car_safety_features WHERE car_id = ?", updatedIds);
+        jdbcTemplate.batchUpdate("INSERT INTO car_tech_specs (id, car_id, fuel_type, engine_volume, horse_power, "
+            + "drive_type, transmission_type, engine_info, transmission_info, gears) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", specRows);
+        jdbcTemplate.batchUpdate("INSERT INTO car_safety_features (car_id, feature_id) VALUES (?, ?)", featureRows);
+
+        // Статистика и поисковый индекс обновятся после коммита пачки
+        for (Car car : cars) {
+            catalogStatistics.carSaved(car);
+            carSearchIndex.carSaved(car);
+        }
+        if (!cars.isEmpty()) {
+            catalogVersion.changed();
+        }
+        return new BatchOutcome(carRows.size(), updateRows.size(), unchanged);
+    }
+
+    private Map<String, ExistingCar> findExisting(List<ImportRow> rows) {
+        List<String> urls = rows.stream()
+            .map(row -> row.sourceUrl)
+            .filter(Objects::nonNull)
+            .toList();
+        Map<String, ExistingCar> existing = new HashMap<>();
+        if (urls.isEmpty()) {
+            return existing;
+        }
+        namedParameterJdbcTemplate.query("SELECT id, source_url, fingerprint, created_at FROM cars "
+                + "WHERE source_url IN (:urls)",
+            Map.of("urls", urls),
+            rs -> {
+                Timestamp createdAt = rs.getTimestamp("created_at");
+                existing.put(rs.getString("source_url"), new ExistingCar(rs.getLong("id"), rs.getString("fingerprint"),
+                    createdAt != null ? createdAt.toLocalDateTime() : null));
+            });
+        return existing;
+    }
+
+    private void resolveDictionary(Map<String, Long> cache, String table, List<ImportRow> rows,
+                                   Function<ImportRow, String> name) {
+        Set<String> names = rows.stream()
+            .map(name)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+        resolveDictionary(cache, table, names, Map.of());
+    }
+
+    // Загружает в кэш ID значений справочника, которых в нем еще нет; недостающие добавляет
+    // со значениями обязательных колонок defaults
+    private void resolveDictionary(Map<String, Long> cache, String table, Set<String> names, Map<String, Object> defaults) {
+        List<String> missing = names.stream().filter(n -> !cache.containsKey(n)).toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+        loadDictionary(cache, table, missing);
+        List<Object[]> toCreate = missing.stream()
+            .filter(n -> !cache.containsKey(n))
+            .map(n -> {
+                List<Object> values = new ArrayList<>(defaults.size() + 1);
+                values.add(n);
+                values.addAll(defaults.values());
+                return values.toArray();
+            })
+            .toList();
+        if (!toCreate.isEmpty()) {
+            StringBuilder columns = new StringBuilder("id, name");
+            StringBuilder placeholders = new StringBuilder("nextval('" + table + "_id_seq'), ?");
+            for (String column : defaults.keySet()) {
+                columns.append(", ").append(column);
+                placeholders.append(", ?");
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO " + table + " (" + columns + ") VALUES (" + placeholders + ") "
+                + "ON CONFLICT (name) DO NOTHING", toCreate);
+            dictionarySnapshot.changed();
+            loadDictionary(cache, table, missing);
+        }
+    }
+
+    // Каждое значение последовательности открывает блок из ID_ALLOCATION_SIZE свободных ID,
+    // как у сущностей с оптимизатором pooled-lo, поэтому одного запроса хватает на всю пачку
+    private List<Long> allocateIds(String sequence, int count) {
+        List<Long> ids = new ArrayList<>(count);
+        if (count == 0) {
+            return ids;
+        }
+        int blocks = (count + ID_ALLOCATION_SIZE - 1) / ID_ALLOCATION_SIZE;
+        List<Long> starts = jdbcTemplate.queryForList(
+            "SELECT nextval('" + sequence + "') FROM generate_series(1, ?)", Long.class, blocks);
+        for (long start : starts) {
+            for (long id = start; id < start + ID_ALLOCATION_SIZE && ids.size() < count; id++) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private void loadDictionary(Map<String, Long> cache, String table, List<String> names) {
+        namedParameterJdbcTemplate.query("SELECT id, name FROM " + table + " WHERE name IN (:names)",
+            Map.of("names", names),
+            rs -> {
+                cache.putIfAbsent(rs.getString("name"), rs.getLong("id"));
+            });
+    }
+
+    private ImportRow toRow(SourceRecord record) {
+        if (record.error() != null) {
+            throw new ValidationException(record.error());
+        }
+        CarDTO dto = record.car();
+        CarService.validateRequiredFields(dto);
+        ImportRow row = new ImportRow();
+        row.line = record.line();
+        row.dto = dto;
+        row.year = CarService.validateYear(dto.getYear());
+        row.price = CarService.validatePrice(dto.getPrice());
+        row.mileage = CarService.validateMileage(dto.getMileage());
+        row.safetyFeatures = dto.getSafetyFeatures() == null ? List.of() : dto.getSafetyFeatures().stream()
+            .filter(Objects::nonNull)
+            .map(String::trim)
+            .filter(n -> !n.isEmpty())
+            .distinct()
+            .toList();
+        if (dto.getSourceUrl() != null && !dto.getSourceUrl().isBlank()) {
+            row.sourceUrl = dto.getSourceUrl().trim();
+            row.fingerprint = fingerprint(row);
+        }
+        return row;
+    }
+
+    /**
+     * Отпечаток объявления: SHA-256 от адреса и всех записываемых полей автомобиля.
+     * Поля разделяются символом, которого нет в данных, а характеристики безопасности сортируются,
+     * поэтому одинаковые объявления дают одинаковый отпечаток независимо от порядка полей в источнике.
+     */
+    private static String fingerprint(ImportRow row) {
+        CarDTO dto = row.dto;
+        TechnicalSpecDTO spec = dto.getTechnicalSpec();
+        StringBuilder text = new StringBuilder();
+        for (Object value : new Object[]{
+            row.sourceUrl, dto.getMake(), dto.getModel(), row.year, row.price.stripTrailingZeros().toPlainString(),
+            row.mileage, dto.getBodyType(), dto.getColor(), dto.getCarCondition(), dto.getLocation(),
+            dto.getMainPhotoUrl(), String.join(SAFETY_FEATURE_SEPARATOR, row.safetyFeatures.stream().sorted().toList()),
+            spec != null ? spec.getFuelType() : null,
+            spec != null ? spec.getEngineVolume() : null,
+            spec != null ? spec.getHorsePower() : null,
+            spec != null ? spec.getDriveType() : null,
+            spec != null ? spec.getTransmissionType() : null,
+            spec != null ? spec.getGears() : null,
+            spec != null ? spec.getEngineInfo() : null,
+            spec != null ? spec.getTransmissionInfo() : null
+        }) {
+            text.append(value != null ? value : "").append(FINGERPRINT_SEPARATOR);
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(text.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    private static Car toCar(Long id, ImportRow row, Long bodyTypeId, Long colorId, LocalDateTime now) {
+        CarDTO dto = row.dto;
+        Car car = new Car();
+        car.setId(id);
+        car.setMake(dto.getMake());
+        car.setModel(dto.getModel());
+        car.setYear(row.year);
+        car.setPrice(row.price);
+        car.setMileage(row.mileage);
+        car.setCarCondition(dto.getCarCondition());
+        car.setLocation(dto.getLocation());
+        car.setMainPhotoUrl(dto.getMainPhotoUrl());
+        car.setSourceUrl(row.sourceUrl);
+        car.setFingerprint(row.fingerprint);
+        car.setCreatedAt(row.existing != null ? row.existing.createdAt() : now);
+        car.setUpdatedAt(now);
+        if (bodyTypeId != null) {
+            BodyType bodyType = new BodyType();
+            bodyType.setId(bodyTypeId);
+            bodyType.setName(dto.getBodyType());
+            car.setBodyType(bodyType);
+        }
+        if (colorId != null) {
+            Color color = new Color();
+            color.setId(colorId);
+            color.setName(dto.getColor());
+            car.setColor(color);
+        }
+        if (dto.getTechnicalSpec() != null) {
+            TechnicalSpec spec = new TechnicalSpec();
+            spec.setFuelType(dto.getTechnicalSpec().getFuelType());
+            spec.setHorsePower(dto.getTechnicalSpec().getHorsePower());
+            spec.setTransmissionType(dto.getTechnicalSpec().getTransmissionType());
+            spec.setDriveType(dto.getTechnicalSpec().getDriveType());
+            car.setTechnicalSpec(spec);
+        }
+        return car;
+    }
+
+    // Как в CarService.createCar: "Бензин 2.0L 150HP", если описание двигателя не передано
+    private static String engineInfo(TechnicalSpecDTO spec) {
+        if (spec.getEngineInfo() != null) {
+            return spec.getEngineInfo();
+        }
+        StringBuilder engineInfo = new StringBuilder();
+        if (spec.getFuelType() != null) {
+            engineInfo.append(spec.getFuelType()).append(" ");
+        }
+        if (spec.getEngineVolume() != null) {
+            engineInfo.append(spec.getEngineVolume()).append("L ");
+        }
+        if (spec.getHorsePower() != null) {
+            engineInfo.append(spec.getHorsePower()).append("HP");
+        }
+        return engineInfo.toString().trim();
+    }
+
+    private RecordSource ndjsonSource(BufferedReader reader) {
+        ObjectReader carReader = objectMapper.readerFor(CarDTO.class);
+        long[] line = {0};
+        return () -> {
+            String text;
+            do {
+                text = reader.readLine();
+                line[0]++;
+            } while (text != null && text.isBlank());
+            if (text == null) {
+                return null;
+            }
+            try {
+                return new SourceRecord(line[0], carReader.readValue(text), null);
+            } catch (JsonProcessingException e) {
+                return new SourceRecord(line[0], null, "Некорректный JSON: " + e.getOriginalMessage());
+            }
+        };
+    }
+
+    private RecordSource csvSource(BufferedReader reader) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.readRecord();
+        if (header == null) {
+            return () -> null;
+        }
+        // Имена колонок сравниваются без учета регистра и подчеркиваний: bodyType, body_type, BODYTYPE
+        List<String> columns = header.stream()
+            .map(column -> column.trim().replace("_", "").toLowerCase())
+            .toList();
+        return () -> {
+            List<String> fields;
+            do {
+                fields = csv.readRecord();
+            } while (fields != null && fields.stream().allMatch(String::isBlank));
+            if (fields == null) {
+                return null;
+            }
+            try {
+                return new SourceRecord(csv.getRecordLine(), toCarDTO(columns, fields), null);
+            } catch (ValidationException e) {
+                return new SourceRecord(csv.getRecordLine(), null, e.getMessage());
+            }
+        };
+    }
+
+    private static CarDTO toCarDTO(List<String> columns, List<String> fields) {
+        CarDTO car = new CarDTO();
+        TechnicalSpecDTO spec = new TechnicalSpecDTO();
+        boolean hasSpec = false;
+        for (int i = 0; i < Math.min(columns.size(), fields.size()); i++) {
+            String value = fields.get(i).trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+            String column = columns.get(i);
+            switch (column) {
+                case "make" -> car.setMake(value);
+                case "model" -> car.setModel(value);
+                case "year" -> car.setYear(parse(column, value, Integer::valueOf));
+                case "price" -> car.setPrice(parse(column, value, BigDecimal::new));
+                case "mileage" -> car.setMileage(parse(column, value, Integer::valueOf));
+                case "bodytype" -> car.setBodyType(value);
+                case "color" -> car.setColor(value);
+                case "carcondition" -> car.setCarCondition(value);
+                case "location" -> car.setLocation(value);
+                case "mainphotourl" -> car.setMainPhotoUrl(value);
+                case "safetyfeatures" -> car.setSafetyFeatures(Arrays.asList(value.split(SAFETY_FEATURE_SEPARATOR)));
+                case "fueltype" -> spec.setFuelType(value);
+                case "enginevolume" -> spec.setEngineVolume(parse(column, value, Double::valueOf));
+                case "horsepower" -> spec.setHorsePower(parse(column, value, Integer::valueOf));
+                case "drivetype" -> spec.setDriveType(value);
+                case "transmissiontype" -> spec.setTransmissionType(value);
+                case "gears" -> spec.setGears(parse(column, value, Integer::valueOf));
+                case "engineinfo" -> spec.setEngineInfo(value);
+                case "transmissioninfo" -> spec.setTransmissionInfo(value);
+                default -> {
+                    continue;
+                }
+            }
+            hasSpec |= column.equals("fueltype") || column.equals("enginevolume") || column.equals("horsepower")
+                || column.equals("drivetype") || column.equals("transmissiontype") || column.equals("gears")
+                || column.equals("engineinfo") || column.equals("transmissioninfo");
+        }
+        if (hasSpec) {
+            car.setTechnicalSpec(spec);
+        }
+        return car;
+    }
+
+    private static <T> T parse(String column, String value, Function<String, T> parser) {
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Некорректное значение поля " + column + ": " + value);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordSource {
+        SourceRecord next() throws IOException;
+    }
+
+    // Прочитанная запись: автомобиль или описание ошибки разбора
+    private record SourceRecord(long line, CarDTO car, String error) {
+    }
+
+    private record BatchOutcome(int imported, int updated, int unchanged) {
+    }
+
+    // Автомобиль, уже загруженный из того же объявления
+    private record ExistingCar(long id, String fingerprint, LocalDateTime createdAt) {
+    }
+
+    private static class ImportRow {
+        long line;
+        CarDTO dto;
+        int year;
+        BigDecimal price;
+        int mileage;
+        List<String> safetyFeatures;
+        String sourceUrl;
+        String fingerprint;
+        ExistingCar existing;
+    }
+
+    /**
+     * Принимает автомобили по одному и пишет их пачками по app.import.batch-size.
+     * Не потокобезопасен: методы не должны вызываться одновременно. Итог — {@link #finish()} после последнего автомобиля.
+     */
+    public final class CarWriter {
+        private final long started = System.nanoTime();
+        private final ImportSession session = new ImportSession();
+        private final List<ImportRow> batch = new ArrayList<>(batchSize);
+        // Адреса объявлений, уже полученные этим писателем
+        private final Set<String> sourceUrls = new HashSet<>();
+
+        private CarWriter() {
+        }
+
+        public void add(CarDTO car) {
+            add(new SourceRecord(session.result.getTotal() + 1, car, null));
+        }
+
+        /**
+         * Записывает накопленную неполную пачку, не дожидаясь ее заполнения
+         */
+        public void flush() {
+            writeBatch(session, batch);
+            batch.clear();
+        }
+
+        /**
+         * Записывает остаток и возвращает итог
+         */
+        public CarImportResultDTO finish() {
+            flush();
+            CarImportResultDTO result = session.result;
+            long elapsedNanos = System.nanoTime() - started;
+            result.setDurationMs(elapsedNanos / 1_000_000);
+            result.setCarsPerSecond(elapsedNanos > 0
+                ? (result.getImported() + result.getUpdated()) * 1e9 / elapsedNanos : 0);
+            return result;
+        }
+
+        /**
+         * Промежуточный итог (без учета еще не записанной пачки)
+         */
+        public CarImportResultDTO getResult() {
+            return session.result;
+        }
+
+        private void add(SourceRecord record) {
+            session.result.setTotal(session.result.getTotal() + 1);
+            ImportRow row;
+            try {
+                row = toRow(record);
+            } catch (ValidationException e) {
+                session.fail(record.line(), e.getMessage());
+                return;
+            }
+            // Объявление встретилось повторно (например, сместилось на следующую страницу выдачи) — уже записано
+            if (row.sourceUrl != null && !sourceUrls.add(row.sourceUrl)) {
+                session.result.setUnchanged(session.result.getUnchanged() + 1);
+                return;
+            }
+            batch.add(row);
+            if (batch.size() == batchSize) {
+                flush();
+            }
+        }
+    }
+
+    // Состояние одного импорта: итог и кэш справочников (название -> ID)
+    private class ImportSession {
+        final CarImportResultDTO result = new CarImportResultDTO();
+        final Map<String, Long> bodyTypeIds = new HashMap<>();
+        final Map<String, Long> colorIds = new HashMap<>();
+        final Map<String, Long> featureIds = new HashMap<>();
+
+        void apply(BatchOutcome outcome) {
+            result.setImported(result.getImported() + outcome.imported());
+            result.setUpdated(result.getUpdated() + outcome.updated());
+            result.setUnchanged(result.getUnchanged() + outcome.unchanged());
+        }
+
+        void fail(long line, String message) {
+            result.setFailed(result.getFailed() + 1);
+            if (result.getErrors().size() < maxReportedErrors) {
+                result.getErrors().add(new CarImportResultDTO.RecordError(line, message));
+            }
+        }
+
+        void clearDictionaries() {
+            bodyTypeIds.clear();
+            colorIds.clear();
+            featureIds.clear();
+        }
+    }
+}
@@ -0,0 +1,682 @@
+package com.autobro.service;
+
+import com.autobro.dto.CarFilterDTO;
+import com.autobro.model.Car;
+import com.autobro.model.TechnicalSpec;
+import com.autobro.repository.CarFacet;
+import com.autobro.repository.CarFacetCount;
+import com.autobro.repository.CarRepository;
+import com.autobro.repository.CarSearchRepository;
+import com.autobro.repository.CarSortField;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Поисковый индекс каталога в памяти процесса — альтернатива SQL-поиску, включается
+ * параметром app.search.in-memory.enabled.
+ * Фильтруемые поля хранятся по колонкам в примитивных массивах (одна позиция — один автомобиль),
+ * а у полей с небольшим числом значений (марка, модель, кузов, цвет, топливо, КПП, привод,
+ * местоположение) для каждого значения есть битовое множество позиций. Фильтр вычисляется
+ * пересечением битовых множеств и проверкой диапазонов по колонкам, сортировка и выбор страницы
+ * выполняются в памяти, а в БД остается только загрузка автомобилей итоговой страницы.
+ * Порядок сортировки повторяет SQL-поиск, кроме сортировки строк: марки и модели сравниваются
+ * по правилам Java, а не по collation базы.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CarSearchIndex implements CarSearchRepository {
+    private static final long NULL = Long.MIN_VALUE;
+
+    private final CarRepository carRepository;
+
+    @Value("${app.search.in-memory.enabled:false}")
+    private boolean enabled;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Позиции автомобилей в колонках; позиции удаленных автомобилей используются повторно
+    private final Map<Long, Integer> slotsById = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final BitSet live = new BitSet();
+    private int slotCount;
+
+    // Числовые колонки; NULL — значение не задано
+    private long[] ids = new long[0];
+    private long[] years = new long[0];
+    private long[] prices = new long[0];
+    private long[] mileages = new long[0];
+    private long[] horsePowers = new long[0];
+    private long[] createdAts = new long[0];
+    private long[] updatedAts = new long[0];
+
+    // Колонки со словарем значений и битовым множеством на каждое значение
+    private final ValueColumn<String> makes = new ValueColumn<>();
+    private final ValueColumn<String> models = new ValueColumn<>();
+    private final ValueColumn<Long> bodyTypes = new ValueColumn<>();
+    private final ValueColumn<Long> colors = new ValueColumn<>();
+    private final ValueColumn<String> fuelTypes = new ValueColumn<>();
+    private final ValueColumn<String> transmissionTypes = new ValueColumn<>();
+    private final ValueColumn<String> driveTypes = new ValueColumn<>();
+    private final ValueColumn<String> locations = new ValueColumn<>();
+    private final Map<Long, String> bodyTypeNames = new HashMap<>();
+    private final Map<Long, String> colorNames = new HashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Полностью перестраивает индекс по данным из БД
+     */
+    @PostConstruct
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        List<Object[]> rows = carRepository.findSearchIndexRows();
+        lock.writeLock().lock();
+        try {
+            slotsById.clear();
+            freeSlots.clear();
+            live.clear();
+            slotCount = 0;
+            for (ValueColumn<?> column : List.of(makes, models, bodyTypes, colors, fuelTypes, transmissionTypes, driveTypes, locations)) {
+                column.reset();
+            }
+            bodyTypeNames.clear();
+            colorNames.clear();
+            for (Object[] row : rows) {
+                put(IndexRow.of(row));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Поисковый индекс каталога построен: {} автомобилей за {} мс", rows.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Учитывает созданный или измененный автомобиль после коммита транзакции
+     */
+    public void carSaved(Car car) {
+        if (!enabled) {
+            return;
+        }
+        // Значения читаются после коммита, чтобы попали и поля, выставленные при flush (updatedAt)
+        AfterCommit.run(() -> {
+            IndexRow row = IndexRow.of(car);
+            lock.writeLock().lock();
+            try {
+                put(row);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Исключает удаленный автомобиль после коммита транзакции
+     */
+    public void carDeleted(Long id) {
+        if (!enabled) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                remove(id);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public Page<Long> findIdsWithFilters(CarFilterDTO filter, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            BitSet rows = match(filter);
+            SlotOrder order = new SlotOrder(pageable.getSort());
+            List<Long> ids = page(rows, order, (int) pageable.getOffset(), pageable.getPageSize());
+            return new PageImpl<>(ids, pageable, rows.cardinality());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Long> findIdsWithFiltersAfter(CarFilterDTO filter, CarSortField sortField, Sort.Direction direction,
+                                              Object afterValue, Long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet rows = match(filter);
+            boolean descending = direction.isDescending();
+            if (afterValue != null && afterId != null) {
+                // Аналог (c.col, c.id) > (:afterValue, :afterId): автомобили без значения поля не проходят
+                long afterKey = keyOf(sortField, afterValue);
+                for (int slot = rows.nextSetBit(0); slot >= 0; slot = rows.nextSetBit(slot + 1)) {
+                    long key = key(sortField, slot, null);
+                    int cmp = key == NULL ? 0 : Long.compare(key, afterKey);
+                    if (cmp == 0 && key != NULL) {
+                        cmp = Long.compare(ids[slot], afterId);
+                    }
+                    if (key == NULL || (descending ? cmp >= 0 : cmp <= 0)) {
+                        rows.clear(slot);
+                    }
+                }
+            }
+            return page(rows, new SlotOrder(Sort.by(direction, sortField.getColumn())), 0, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<CarFacetCount> countFacets(CarFilterDTO filter) {
+        lock.readLock().lock();
+        try {
+            BitSet base = matchBase(filter);
+            List<CarFacetCount> counts = new ArrayList<>();
+            for (CarFacet facet : CarFacet.values()) {
+                // Для фасета учитываются условия всех остальных фасетов, но не его собственное
+                BitSet others = (BitSet) base.clone();
+                for (CarFacet other : CarFacet.values()) {
+                    if (other != facet) {
+                        applyFacet(others, filter, other);
+                    }
+                }
+
+                ValueColumn<?> column = column(facet);
+                int[] facetCounts = new int[column.size()];
+                boolean[] present = new boolean[column.size()];
+                for (int slot = base.nextSetBit(0); slot >= 0; slot = base.nextSetBit(slot + 1)) {
+                    int code = column.code(slot);
+                    present[code] = true;
+                    if (others.get(slot)) {
+                        facetCounts[code]++;
+                    }
+                }
+                for (int code = 0; code < present.length; code++) {
+                    Object value = column.valueOf(code);
+                    if (!present[code] || value == null) {
+                        continue;
+                    }
+                    if (facet == CarFacet.BODY_TYPE || facet == CarFacet.COLOR) {
+                        Long id = (Long) value;
+                        String name = facet == CarFacet.BODY_TYPE ? bodyTypeNames.get(id) : colorNames.get(id);
+                        counts.add(new CarFacetCount(facet, id, name, facetCounts[code]));
+                    } else {
+                        counts.add(new CarFacetCount(facet, null, (String) value, facetCounts[code]));
+                    }
+                }
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet match(CarFilterDTO filter) {
+        BitSet rows = matchBase(filter);
+        for (CarFacet facet : CarFacet.values()) {
+            applyFacet(rows, filter, facet);
+        }
+        return rows;
+    }
+
+    /**
+     * Условия фильтра, не относящиеся к фасетам (семантика совпадает с CarFilterSql)
+     */
+    private BitSet matchBase(CarFilterDTO filter) {
+        BitSet rows = (BitSet) live.clone();
+        if (filter.getModel() != null) {
+            rows.and(models.rows(filter.getModel()));
+        }
+        // Местоположение: автомобили без указанного местоположения не отсекаются
+        if (StringUtils.hasText(filter.getCountry())) {
+            rows.and(locationRows(filter.getCountry()));
+        }
+        if (StringUtils.hasText(filter.getCity())) {
+            rows.and(locationRows(filter.getCity()));
+        }
+
+        long minYear = filter.getMinYear() != null ? filter.getMinYear() : NULL;
+        long maxYear = filter.getMaxYear() != null ? filter.getMaxYear() : NULL;
+        long minPrice = filter.getMinPrice() != null ? toCents(filter.getMinPrice(), RoundingMode.CEILING) : NULL;
+        long maxPrice = filter.getMaxPrice() != null ? toCents(filter.getMaxPrice(), RoundingMode.FLOOR) : NULL;
+        long maxMileage = filter.getMaxMileage() != null ? filter.getMaxMileage() : NULL;
+        long minHorsePower = filter.getMinHorsePower() != null ? filter.getMinHorsePower() : NULL;
+        if (minYear == NULL && maxYear == NULL && minPrice == NULL && maxPrice == NULL
+                && maxMileage == NULL && minHorsePower == NULL) {
+            return rows;
+        }
+        for (int slot = rows.nextSetBit(0); slot >= 0; slot = rows.nextSetBit(slot + 1)) {
+            if (!atLeast(years[slot], minYear) || !atMost(years[slot], maxYear)
+                    || !atLeast(prices[slot], minPrice) || !atMost(prices[slot], maxPrice)
+                    || !atMost(mileages[slot], maxMileage) || !atLeast(horsePowers[slot], minHorsePower)) {
+                rows.clear(slot);
+            }
+        }
+        return rows;
+    }
+
+    private void applyFacet(BitSet rows, CarFilterDTO filter, CarFacet facet) {
+        switch (facet) {
+            case MAKE -> {
+                List<String> make = filter.getMake();
+                if (make != null && !make.isEmpty()) {
+                    BitSet any = new BitSet();
+                    for (String value : make) {
+                        any.or(makes.rows(value));
+                    }
+                    rows.and(any);
+                }
+            }
+            case BODY_TYPE -> {
+                if (filter.getBodyTypeId() != null) {
+                    rows.and(bodyTypes.rows(filter.getBodyTypeId()));
+                }
+            }
+            case COLOR -> {
+                if (filter.getColorId() != null) {
+                    rows.and(colors.rows(filter.getColorId()));
+                }
+            }
+            case FUEL_TYPE -> {
+                if (StringUtils.hasText(filter.getFuelType())) {
+                    rows.and(fuelTypes.rows(filter.getFuelType()));
+                }
+            }
+            case TRANSMISSION_TYPE -> {
+                if (StringUtils.hasText(filter.getTransmissionType())) {
+                    rows.and(transmissionTypes.rows(filter.getTransmissionType()));
+                }
+            }
+            case DRIVE_TYPE -> {
+                if (StringUtils.hasText(filter.getDriveType())) {
+                    rows.and(driveTypes.rows(filter.getDriveType()));
+                }
+            }
+        }
+    }
+
+    private ValueColumn<?> column(CarFacet facet) {
+        return switch (facet) {
+            case MAKE -> makes;
+            case BODY_TYPE -> bodyTypes;
+            case FUEL_TYPE -> fuelTypes;
+            case TRANSMISSION_TYPE -> transmissionTypes;
+            case DRIVE_TYPE -> driveTypes;
+            case COLOR -> colors;
+        };
+    }
+
+    // Аналог "c.location IS NULL OR c.location ILIKE '%' || :term || '%'"
+    private BitSet locationRows(String term) {
+        String needle = term.toLowerCase(Locale.ROOT);
+        BitSet rows = new BitSet();
+        for (int code = 0; code < locations.size(); code++) {
+            String location = locations.valueOf(code);
+            if (location == null || location.toLowerCase(Locale.ROOT).contains(needle)) {
+                rows.or(locations.rowsOf(code));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * ID автомобилей страницы [offset, offset + limit) в порядке order.
+     * Частичная сортировка: в куче держатся только offset + limit лучших позиций.
+     */
+    private List<Long> page(BitSet rows, SlotOrder order, int offset, int limit) {
+        int count = rows.cardinality();
+        if (offset >= count || limit <= 0) {
+            return new ArrayList<>();
+        }
+        int k = (int) Math.min((long) offset + limit, count);
+
+        // Max-куча: в корне худшая из отобранных позиций
+        int[] heap = new int[k];
+        int size = 0;
+        for (int slot = rows.nextSetBit(0); slot >= 0; slot = rows.nextSetBit(slot + 1)) {
+            if (size < k) {
+                heap[size] = slot;
+                siftUp(heap, size++, order);
+            } else if (order.compare(slot, heap[0]) < 0) {
+                heap[0] = slot;
+                siftDown(heap, size, order);
+            }
+        }
+        // Пирамидальная сортировка на месте дает возрастающий порядок
+        for (int end = size - 1; end > 0; end--) {
+            int top = heap[0];
+            heap[0] = heap[end];
+            heap[end] = top;
+            siftDown(heap, end, order);
+        }
+
+        List<Long> result = new ArrayList<>(size - offset);
+        for (int i = offset; i < size; i++) {
+            result.add(ids[heap[i]]);
+        }
+        return result;
+    }
+
+    private static void siftUp(int[] heap, int index, SlotOrder order) {
+        int slot = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (order.compare(slot, heap[parent]) <= 0) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = slot;
+    }
+
+    private static void siftDown(int[] heap, int size, SlotOrder order) {
+        int index = 0;
+        int slot = heap[0];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && order.compare(heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (order.compare(slot, heap[child]) >= 0) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = slot;
+    }
+
+    /**
+     * Ключ сортировки позиции; строковые поля — ранг значения в словаре
+     */
+    private long key(CarSortField field, int slot, int[] ranks) {
+        return switch (field) {
+            case ID -> ids[slot];
+            case PRICE -> prices[slot];
+            case YEAR -> years[slot];
+            case MILEAGE -> mileages[slot];
+            case CREATED_AT -> createdAts[slot];
+            case UPDATED_AT -> updatedAts[slot];
+            case MAKE -> rankKey(ranks, makes.code(slot));
+            case MODEL -> rankKey(ranks, models.code(slot));
+        };
+    }
+
+    private static long rankKey(int[] ranks, int code) {
+        return ranks[code] < 0 ? NULL : ranks[code];
+    }
+
+    /**
+     * Ключ сортировки для значения из курсора
+     */
+    private static long keyOf(CarSortField field, Object value) {
+        return switch (field) {
+            case ID, YEAR, MILEAGE -> ((Number) value).longValue();
+            case PRICE -> toCents((BigDecimal) value, RoundingMode.HALF_UP);
+            case CREATED_AT, UPDATED_AT -> toMicros((LocalDateTime) value);
+            case MAKE, MODEL -> throw new IllegalArgumentException("Поле " + field + " не поддерживает курсорную пагинацию");
+        };
+    }
+
+    /**
+     * Ранги значений строковой колонки в порядке сортировки; -1 у пустого значения
+     */
+    private static int[] ranks(ValueColumn<String> column) {
+        int[] ranks = new int[column.size()];
+        Integer[] codes = IntStream.range(0, column.size()).boxed().toArray(Integer[]::new);
+        Arrays.sort(codes, Comparator.comparing(column::valueOf, Comparator.nullsLast(Comparator.naturalOrder())));
+        for (int rank = 0; rank < codes.length; rank++) {
+            ranks[codes[rank]] = column.valueOf(codes[rank]) == null ? -1 : rank;
+        }
+        return ranks;
+    }
+
+    private void put(IndexRow row) {
+        Integer slot = slotsById.get(row.id());
+        if (slot == null) {
+            slot = freeSlots.isEmpty() ? slotCount++ : freeSlots.pop();
+            ensureCapacity(slot);
+            slotsById.put(row.id(), slot);
+            live.set(slot);
+        }
+        ids[slot] = row.id();
+        years[slot] = orNull(row.year());
+        prices[slot] = row.price() != null ? toCents(row.price(), RoundingMode.HALF_UP) : NULL;
+        mileages[slot] = orNull(row.mileage());
+        horsePowers[slot] = orNull(row.horsePower());
+        createdAts[slot] = row.createdAt() != null ? toMicros(row.createdAt()) : NULL;
+        updatedAts[slot] = row.updatedAt() != null ? toMicros(row.updatedAt()) : NULL;
+
+        makes.set(slot, row.make());
+        models.set(slot, row.model());
+        bodyTypes.set(slot, row.bodyTypeId());
+        colors.set(slot, row.colorId());
+        fuelTypes.set(slot, row.fuelType());
+        transmissionTypes.set(slot, row.transmissionType());
+        driveTypes.set(slot, row.driveType());
+        locations.set(slot, row.location());
+        if (row.bodyTypeId() != null) {
+            bodyTypeNames.put(row.bodyTypeId(), row.bodyTypeName());
+        }
+        if (row.colorId() != null) {
+            colorNames.put(row.colorId(), row.colorName());
+        }
+    }
+
+    private void remove(Long id) {
+        Integer slot = slotsById.remove(id);
+        if (slot == null) {
+            return;
+        }
+        live.clear(slot);
+        for (ValueColumn<?> column : List.of(makes, models, bodyTypes, colors, fuelTypes, transmissionTypes, driveTypes, locations)) {
+            column.clear(slot);
+        }
+        freeSlots.push(slot);
+    }
+
+    private void ensureCapacity(int slot) {
+        if (slot < ids.length) {
+            return;
+        }
+        int capacity = Math.max(slot + 1, ids.length + (ids.length >> 1) + 1024);
+        ids = Arrays.copyOf(ids, capacity);
+        years = Arrays.copyOf(years, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        mileages = Arrays.copyOf(mileages, capacity);
+        horsePowers = Arrays.copyOf(horsePowers, capacity);
+        createdAts = Arrays.copyOf(createdAts, capacity);
+        updatedAts = Arrays.copyOf(updatedAts, capacity);
+    }
+
+    private static boolean atLeast(long value, long bound) {
+        return bound == NULL || (value != NULL && value >= bound);
+    }
+
+    private static boolean atMost(long value, long bound) {
+        return bound == NULL || (value != NULL && value <= bound);
+    }
+
+    private static long orNull(Integer value) {
+        return value != null ? value : NULL;
+    }
+
+    // Цены хранятся в копейках: колонка price имеет два знака после запятой
+    private static long toCents(BigDecimal price, RoundingMode rounding) {
+        return price.movePointRight(2).setScale(0, rounding).longValueExact();
+    }
+
+    // Точность timestamp в PostgreSQL — микросекунды
+    private static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    /**
+     * Порядок позиций по полям сортировки с ID в конце — как ORDER BY в SQL-поиске.
+     * Пустые значения идут последними при сортировке по возрастанию и первыми по убыванию (как в PostgreSQL).
+     */
+    private final class SlotOrder {
+        private final List<CarSortField> fields = new ArrayList<>();
+        private final List<Boolean> descending = new ArrayList<>();
+        private final List<int[]> ranks = new ArrayList<>();
+
+        SlotOrder(Sort sort) {
+            boolean lastDescending = false;
+            boolean idIncluded = false;
+            for (Sort.Order order : sort) {
+                CarSortField field = CarSortField.fromRequest(order.getProperty());
+                add(field, order.isDescending());
+                lastDescending = order.isDescending();
+                idIncluded |= field == CarSortField.ID;
+            }
+            if (!idIncluded) {
+                add(CarSortField.ID, lastDescending);
+            }
+        }
+
+        private void add(CarSortField field, boolean desc) {
+            fields.add(field);
+            descending.add(desc);
+            ranks.add(field == CarSortField.MAKE ? CarSearchIndex.ranks(makes)
+                : field == CarSortField.MODEL ? CarSearchIndex.ranks(models) : null);
+        }
+
+        int compare(int a, int b) {
+            for (int i = 0; i < fields.size(); i++) {
+                long keyA = key(fields.get(i), a, ranks.get(i));
+                long keyB = key(fields.get(i), b, ranks.get(i));
+                if (keyA == keyB) {
+                    continue;
+                }
+                int cmp = keyA == NULL ? 1 : keyB == NULL ? -1 : Long.compare(keyA, keyB);
+                return descending.get(i) ? -cmp : cmp;
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Колонка со словарем значений: у каждой позиции код значения, у каждого значения — битовое множество позиций
+     */
+    private static final class ValueColumn<V> {
+        private final Map<V, Integer> codes = new HashMap<>();
+        private final List<V> values = new ArrayList<>();
+        private final List<BitSet> rows = new ArrayList<>();
+        private int[] slotCodes = new int[0];
+
+        void set(int slot, V value) {
+            clear(slot);
+            int code = codes.computeIfAbsent(value, v -> {
+                values.add(v);
+                rows.add(new BitSet());
+                return values.size() - 1;
+            });
+            if (slot >= slotCodes.length) {
+                int oldLength = slotCodes.length;
+                slotCodes = Arrays.copyOf(slotCodes, Math.max(slot + 1, oldLength + (oldLength >> 1) + 1024));
+                Arrays.fill(slotCodes, oldLength, slotCodes.length, -1);
+            }
+            slotCodes[slot] = code;
+            rows.get(code).set(slot);
+        }
+
+        void clear(int slot) {
+            if (slot < slotCodes.length && slotCodes[slot] >= 0) {
+                rows.get(slotCodes[slot]).clear(slot);
+                slotCodes[slot] = -1;
+            }
+        }
+
+        void reset() {
+            codes.clear();
+            values.clear();
+            rows.clear();
+            slotCodes = new int[0];
+        }
+
+        int size() {
+            return values.size();
+        }
+
+        int code(int slot) {
+            return slotCodes[slot];
+        }
+
+        V valueOf(int code) {
+            return values.get(code);
+        }
+
+        BitSet rows(V value) {
+            Integer code = codes.get(value);
+            return code != null ? rows.get(code) : new BitSet();
+        }
+
+        BitSet rowsOf(int code) {
+            return rows.get(code);
+        }
+    }
+
+    private record IndexRow(Long id, String make, String model, Integer year, BigDecimal price, Integer mileage,
+                            Long bodyTypeId, String bodyTypeName, Long colorId, String colorName,
+                            String fuelType, Integer horsePower, String transmissionType, String driveType,
+                            String location, LocalDateTime createdAt, LocalDateTime updatedAt) {
+
+        // Порядок колонок — как в CarRepository.findSearchIndexRows
+        static IndexRow of(Object[] row) {
+            return new IndexRow((Long) row[0], (String) row[1], (String) row[2], (Integer) row[3], (BigDecimal) row[4],
+                (Integer) row[5], (Long) row[6], (String) row[7], (Long) row[8], (String) row[9],
+                (String) row[10], (Integer) row[11], (String) row[12], (String) row[13],
+                (String) row[14], (LocalDateTime) row[15], (LocalDateTime) row[16]);
+        }
+
+        static IndexRow of(Car car) {
+            TechnicalSpec spec = car.getTechnicalSpec();
+            return new IndexRow(car.getId(), car.getMake(), car.getModel(), car.getYear(), car.getPrice(), car.getMileage(),
+                car.getBodyType() != null ? car.getBodyType().getId() : null,
+                car.getBodyType() != null ? car.getBodyType().getName() : null,
+                car.getColor() != null ? car.getColor().getId() : null,
+                car.getColor() != null ? car.getColor().getName() : null,
+                spec != null ? spec.getFuelType() : null,
+                spec != null ? spec.getHorsePower() : null,
+                spec != null ? spec.getTransmissionType() : null,
+                spec != null ? spec.getDriveType() : null,
+                car.getLocation(), car.getCreatedAt(), car.getUpdatedAt());
+        }
+    }
+}
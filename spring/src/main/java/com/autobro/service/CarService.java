@@ -1,14 +1,19 @@
 package com.autobro.service;
 
 import com.autobro.dto.CarDTO;
+import com.autobro.dto.CarFacetsDTO;
 import com.autobro.dto.CarFilterDTO;
+import com.autobro.dto.CreateCarDTO;
+import com.autobro.dto.CursorPage;
 import com.autobro.dto.TechnicalSpecDTO;
 import com.autobro.exception.NotFoundException;
 import com.autobro.exception.ValidationException;
 import com.autobro.model.*;
 import com.autobro.repository.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -18,30 +23,38 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
 import java.math.BigDecimal;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.nio.file.StandardCopyOption;
+import java.util.stream.Stream;
 import com.autobro.model.enums.EquipmentCategory;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class CarService {
+    // Ссылка на новый файл в порядке галереи (syncPhotos): new:0, new:1, ...
+    private static final String NEW_PHOTO_PREFIX = "new:";
+
     private final CarRepository carRepository;
     private final PhotoRepository photoRepository;
     private final TechnicalSpecRepository technicalSpecRepository;
     private final EquipmentRepository equipmentRepository;
-    private final SafetyFeatureRepository safetyFeatureRepository;
+    private final DictionaryService dictionaryService;
+    private final CatalogStatistics catalogStatistics;
+    private final CarSearchIndex carSearchIndex;
+    private final CatalogVersion catalogVersion;
+    private final ThumbnailService thumbnailService;
+    private final FileStorageService fileStorageService;
     private final BodyTypeRepository bodyTypeRepository;
     private final ColorRepository colorRepository;
+    private final PhotoService photoService;
 
-
-    @Value("${app.upload.path}")
-    private String uploadPath;
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Transactional(readOnly = true)
     public CarDTO getCarById(Long id) {
@@ -50,25 +63,40 @@ public class CarService {
         return convertToDTO(car);
     }
 
+    /**
+     * Сильный ETag карточки автомобиля одним запросом без загрузки связей: меняется при каждом
+     * сохранении автомобиля (updatedAt) и при появлении копий его фотографий
+     */
+    @Transactional(readOnly = true)
+    public String getCarETag(Long id) {
+        List<Object[]> rows = carRepository.findRevisionById(id);
+        if (rows.isEmpty()) {
+            throw new NotFoundException("Car", id);
+        }
+        LocalDateTime updatedAt = (LocalDateTime) rows.get(0)[0];
+        long updatedMicros = updatedAt != null
+            ? updatedAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + updatedAt.getNano() / 1_000
+            : 0;
+        return "\"car-" + id + "-" + updatedMicros + "-" + rows.get(0)[1] + "\"";
+    }
+
+    /**
+     * Сильный ETag списков, фасетов и диапазонов каталога; читать до построения ответа
+     */
+    public String getCatalogETag() {
+        return catalogVersion.getETag();
+    }
+
     @Transactional(readOnly = true)
     public Page<CarDTO> findCars(CarFilterDTO filter) {
         // Определяем параметры сортировки
-        String sortField = filter.getSortBy() != null ? filter.getSortBy() : "id";
-        // Для сортировки с подчеркиванием в имени свойства необходимо обрабатывать особым образом
-        if (sortField.equals("createdAt")) {
-            sortField = "created_at"; // Используем actual_column_name в DB
-        } else if (sortField.equals("updatedAt")) {
-            sortField = "updated_at";
-        }
-        
-        Sort.Direction direction = filter.getSortDirection() != null && 
-                                  filter.getSortDirection().equalsIgnoreCase("desc") 
-                                  ? Sort.Direction.DESC : Sort.Direction.ASC;
-        
+        CarSortField sortField = CarSortField.fromRequest(filter.getSortBy());
+        Sort.Direction direction = getSortDirection(filter);
+
         PageRequest pageRequest = PageRequest.of(
             filter.getPage() != null ? filter.getPage() : 0,
             filter.getSize() != null ? filter.getSize() : 10,
-            Sort.by(direction, sortField)
+            Sort.by(direction, sortField.getColumn())
         );
 
         Page<Car> cars = findCars(filter, pageRequest);
@@ -77,52 +105,110 @@ public class CarService {
 
     @Transactional(readOnly = true)
     public Page<Car> findCars(CarFilterDTO filter, Pageable pageable) {
-        // Подготовка параметров для запроса
-        // 1. Обработка списка марок
-        List<String> make = filter.getMake();
-        if (make == null) {
-            make = new ArrayList<>();
-        }
-        
-        // 2. Обработка модели
-        String model = filter.getModel() != null ? filter.getModel() : null;
-        
-        // 3. Обработка технических характеристик
-        String fuelType = null;
-        if (filter.getFuelType() != null && !filter.getFuelType().isEmpty()) {
-            fuelType = filter.getFuelType();
-        }
-        
-        String transmissionType = null;
-        if (filter.getTransmissionType() != null && !filter.getTransmissionType().isEmpty()) {
-            transmissionType = filter.getTransmissionType();
+        // Сначала только ID страницы, затем пакетная загрузка самих автомобилей
+        Page<Long> ids = search().findIdsWithFilters(filter, pageable);
+        return new PageImpl<>(loadListingPage(ids.getContent()), pageable, ids.getTotalElements());
+    }
+
+    /**
+     * Поиск с курсорной (keyset) пагинацией: страница продолжается с позиции из filter.cursor,
+     * общее количество не считается. Пустой курсор — первая страница.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<CarDTO> findCarsByCursor(CarFilterDTO filter) {
+        CarSortField sortField = CarSortField.fromRequest(filter.getSortBy());
+        Sort.Direction direction = getSortDirection(filter);
+        if (!sortField.isKeysetSupported()) {
+            throw new ValidationException("Курсорная пагинация не поддерживает сортировку по полю " + filter.getSortBy());
+        }
+        int size = filter.getSize() != null ? filter.getSize() : 10;
+        if (size < 1) {
+            throw new ValidationException("Размер страницы должен быть больше нуля");
+        }
+
+        CarCursor after = null;
+        if (filter.getCursor() != null && !filter.getCursor().isEmpty()) {
+            after = CarCursor.decode(filter.getCursor());
+            if (after.getSortField() != sortField || after.getDirection() != direction) {
+                throw new ValidationException("Курсор относится к другой сортировке");
+            }
         }
-        
-        String driveType = null;
-        if (filter.getDriveType() != null && !filter.getDriveType().isEmpty()) {
-            driveType = filter.getDriveType();
+
+        // Берем на одну запись больше, чтобы понять, есть ли следующая страница
+        List<Long> ids = search().findIdsWithFiltersAfter(filter, sortField, direction,
+            after != null ? after.getValue() : null, after != null ? after.getId() : null, size + 1);
+        boolean hasNext = ids.size() > size;
+        List<Car> cars = loadListingPage(hasNext ? ids.subList(0, size) : ids);
+
+        String nextCursor = null;
+        if (hasNext && !cars.isEmpty()) {
+            Car last = cars.get(cars.size() - 1);
+            nextCursor = new CarCursor(sortField, direction, sortField.valueOf(last), last.getId()).encode();
         }
-        
-        // 4. Обработка местоположения
-        String country = filter.getCountry() != null ? filter.getCountry() : null;
-        String city = filter.getCity() != null ? filter.getCity() : null;
-        
-        // Вызов репозитория с подготовленными параметрами
-        return carRepository.findWithFilters(
-            make, model, filter.getMinYear(), filter.getMaxYear(),
-            filter.getMinPrice(), filter.getMaxPrice(), filter.getMaxMileage(),
-            filter.getBodyTypeId(), fuelType, filter.getMinHorsePower(),
-            transmissionType, driveType, filter.getColorId(),
-            country, city, pageable);
+        return new CursorPage<>(cars, size, nextCursor).map(this::convertToDTO);
+    }
+
+    // Поиск по индексу в памяти, если он включен (app.search.in-memory.enabled), иначе SQL
+    private CarSearchRepository search() {
+        return carSearchIndex.isEnabled() ? carSearchIndex : carRepository;
     }
 
+    private Sort.Direction getSortDirection(CarFilterDTO filter) {
+        return filter.getSortDirection() != null && filter.getSortDirection().equalsIgnoreCase("desc")
+            ? Sort.Direction.DESC : Sort.Direction.ASC;
+    }
+
+    /**
+     * Загружает автомобили страницы каталога вместе со всем, что нужно для convertToDTO,
+     * за постоянное число запросов независимо от размера страницы:
+     * автомобили с кузовом, цветом и характеристиками, затем фото и системы безопасности
+     * пакетно по ID страницы. Порядок результата совпадает с порядком ids.
+     */
+    private List<Car> loadListingPage(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, Car> carsById = carRepository.findForListingByIdIn(ids).stream()
+            .collect(Collectors.toMap(Car::getId, car -> car));
+        // Коллекции инициализируются у уже загруженных сущностей в текущей сессии
+        carRepository.fetchPhotosByIdIn(ids);
+        carRepository.fetchSafetyFeaturesByIdIn(ids);
+
+        return ids.stream()
+            .map(carsById::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Количество автомобилей по фасетам при текущем фильтре; собственное условие фасета не учитывается
+     */
     @Transactional(readOnly = true)
+    public CarFacetsDTO getFacets(CarFilterDTO filter) {
+        CarFacetsDTO facets = new CarFacetsDTO();
+        for (CarFacetCount count : search().countFacets(filter)) {
+            CarFacetsDTO.FacetValue value = new CarFacetsDTO.FacetValue(count.getId(), count.getName(), count.getCount());
+            switch (count.getFacet()) {
+                case MAKE -> facets.getMakes().add(value);
+                case BODY_TYPE -> facets.getBodyTypes().add(value);
+                case FUEL_TYPE -> facets.getFuelTypes().add(value);
+                case TRANSMISSION_TYPE -> facets.getTransmissionTypes().add(value);
+                case DRIVE_TYPE -> facets.getDriveTypes().add(value);
+                case COLOR -> facets.getColors().add(value);
+            }
+        }
+
+        Comparator<CarFacetsDTO.FacetValue> byCount = Comparator.comparingLong(CarFacetsDTO.FacetValue::getCount).reversed()
+            .thenComparing(CarFacetsDTO.FacetValue::getName, Comparator.nullsLast(Comparator.naturalOrder()));
+        Stream.of(facets.getMakes(), facets.getBodyTypes(), facets.getFuelTypes(),
+                facets.getTransmissionTypes(), facets.getDriveTypes(), facets.getColors())
+            .forEach(values -> values.sort(byCount));
+        return facets;
+    }
+
     public List<String> getAllMakes() {
-        return carRepository.findAll().stream()
-            .map(Car::getMake)
-            .distinct()
-            .sorted()
-            .collect(Collectors.toList());
+        return catalogStatistics.getMakes();
     }
 
     @Transactional(readOnly = true)
@@ -155,7 +241,7 @@ public class CarService {
                 allModels.addAll(modelsForMake);
             } catch (Exception e) {
                 // Логгируем ошибку, но продолжаем обработку
-                System.err.println("Ошибка при получении моделей для марки " + make + ": " + e.getMessage());
+                log.warn("Ошибка при получении моделей для марки {}: {}", make, e.getMessage());
             }
         }
         
@@ -166,44 +252,12 @@ public class CarService {
             .collect(Collectors.toList());
     }
 
-    @Transactional(readOnly = true)
     public Map<String, Integer> getYearRange() {
-        List<Car> cars = carRepository.findAll();
-        if (cars.isEmpty()) {
-            return Map.of("minYear", 0, "maxYear", 0);
-        }
-
-        int minYear = cars.stream()
-            .mapToInt(Car::getYear)
-            .min()
-            .orElse(0);
-
-        int maxYear = cars.stream()
-            .mapToInt(Car::getYear)
-            .max()
-            .orElse(0);
-
-        return Map.of("minYear", minYear, "maxYear", maxYear);
+        return catalogStatistics.getYearRange();
     }
 
-    @Transactional(readOnly = true)
     public Map<String, BigDecimal> getPriceRange() {
-        List<Car> cars = carRepository.findAll();
-        if (cars.isEmpty()) {
-            return Map.of("minPrice", BigDecimal.ZERO, "maxPrice", BigDecimal.ZERO);
-        }
-
-        BigDecimal minPrice = cars.stream()
-            .map(Car::getPrice)
-            .min(BigDecimal::compareTo)
-            .orElse(BigDecimal.ZERO);
-
-        BigDecimal maxPrice = cars.stream()
-            .map(Car::getPrice)
-            .max(BigDecimal::compareTo)
-            .orElse(BigDecimal.ZERO);
-
-        return Map.of("minPrice", minPrice, "maxPrice", maxPrice);
+        return catalogStatistics.getPriceRange();
     }
 
     @Transactional
@@ -219,25 +273,12 @@ public class CarService {
 
         // BodyType
         if (carDTO.getBodyType() != null) {
-            BodyType bodyType = bodyTypeRepository.findByName(carDTO.getBodyType())
-                .orElseGet(() -> {
-                    BodyType newBodyType = new BodyType();
-                    newBodyType.setName(carDTO.getBodyType());
-                    return bodyTypeRepository.save(newBodyType);
-                });
-            car.setBodyType(bodyType);
+            car.setBodyType(dictionaryService.getOrCreateBodyType(carDTO.getBodyType()));
         }
 
         // Color с поддержкой hex-кода
         if (carDTO.getColor() != null) {
-            Color color = colorRepository.findByName(carDTO.getColor())
-                .orElseGet(() -> {
-                    Color newColor = new Color();
-                    newColor.setName(carDTO.getColor());
-                    return colorRepository.save(newColor);
-                });
-            
-            car.setColor(color);
+            car.setColor(dictionaryService.getOrCreateColor(carDTO.getColor()));
         }
 
         // Строковые поля вместо связанных сущностей
@@ -246,7 +287,7 @@ public class CarService {
         car.setMainPhotoUrl(carDTO.getMainPhotoUrl());
         
         // Сначала сохраняем автомобиль
-        car = carRepository.save(car);
+        car = saveCar(car);
         
         // Затем обрабатываем технические характеристики
         if (carDTO.getTechnicalSpec() != null) {
@@ -300,39 +341,96 @@ public class CarService {
                 car.setTechnicalSpec(spec);
                 
                 // Обновляем автомобиль с установленными техническими характеристиками
-                car = carRepository.save(car);
+                car = saveCar(car);
             } catch (Exception e) {
                 // Логируем ошибку, но продолжаем работу
-                System.err.println("Ошибка при обновлении технических характеристик: " + e.getMessage());
-                e.printStackTrace();
+                log.error("Ошибка при обновлении технических характеристик", e);
             }
         }
         
         // SafetyFeatures
         if (carDTO.getSafetyFeatures() != null && !carDTO.getSafetyFeatures().isEmpty()) {
-            List<SafetyFeature> safetyFeatures = new ArrayList<>();
-            for (String featureName : carDTO.getSafetyFeatures()) {
-                SafetyFeature feature = safetyFeatureRepository.findByName(featureName)
-                    .orElseGet(() -> {
-                        SafetyFeature newFeature = new SafetyFeature();
-                        newFeature.setName(featureName);
-                        return safetyFeatureRepository.save(newFeature);
-                    });
-                safetyFeatures.add(feature);
-            }
-            car.setSafetyFeatures(safetyFeatures);
-            car = carRepository.save(car);
+            car.setSafetyFeatures(new ArrayList<>(dictionaryService.getOrCreateSafetyFeatures(carDTO.getSafetyFeatures())));
+            car = saveCar(car);
         }
         
         return convertToDTO(car);
     }
 
+    /**
+     * Создает автомобиль с фотографиями за одну транзакцию: при ошибке откатываются и ссылки на сохраненные
+     * файлы, а файлы, впервые записанные этим вызовом, удаляются (см. FileStorageService)
+     */
+    @Transactional
+    public Car createCarWithPhotos(CreateCarDTO dto, MultipartFile mainPhoto, MultipartFile[] additionalPhotos) {
+        Car car = new Car();
+        car.setMake(dto.getMake());
+        car.setModel(dto.getModel());
+        car.setYear(dto.getYear());
+        car.setPrice(dto.getPrice());
+        car.setMileage(dto.getMileage());
+        car.setCarCondition(dto.getCarCondition());
+        car.setLocation(dto.getLocation());
+        if (dto.getBodyTypeId() != null) {
+            car.setBodyType(bodyTypeRepository.findById(dto.getBodyTypeId()).orElse(null));
+        }
+        if (dto.getColorId() != null) {
+            car.setColor(colorRepository.findById(dto.getColorId()).orElse(null));
+        }
+        // ID выделяется из последовательности сразу, вставка уйдет при коммите
+        car = saveCar(car);
+
+        // Файлы сохраняются до вставки фотографий: запросы хранилища между вставками разбили бы JDBC batch
+        List<MultipartFile> files = new ArrayList<>();
+        if (mainPhoto != null && !mainPhoto.isEmpty()) {
+            files.add(mainPhoto);
+        }
+        if (additionalPhotos != null) {
+            for (MultipartFile photo : additionalPhotos) {
+                if (photo != null && !photo.isEmpty()) {
+                    files.add(photo);
+                }
+            }
+        }
+        boolean hasMainPhoto = mainPhoto != null && !mainPhoto.isEmpty();
+        List<Photo> photos = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            Photo photo = new Photo();
+            photo.setCar(car);
+            photo.setUrl(fileStorageService.storeFile(file));
+            // Без главного фото дополнительные нумеруются с 1, как раньше
+            photo.setPosition(hasMainPhoto ? photos.size() : photos.size() + 1);
+            photo.setMainPhoto(hasMainPhoto && photos.isEmpty());
+            photos.add(photo);
+        }
+        if (hasMainPhoto) {
+            car.setMainPhotoUrl(photos.get(0).getUrl());
+        }
+        photoService.saveAll(photos);
+
+        TechnicalSpecDTO specDTO = dto.getTechnicalSpec();
+        if (specDTO != null) {
+            TechnicalSpec spec = new TechnicalSpec();
+            spec.setCar(car);
+            spec.setFuelType(specDTO.getFuelType());
+            spec.setEngineVolume(specDTO.getEngineVolume());
+            spec.setHorsePower(specDTO.getHorsePower());
+            spec.setDriveType(specDTO.getDriveType());
+            spec.setTransmissionType(specDTO.getTransmissionType());
+            spec.setGears(specDTO.getGears());
+            spec.setEngineInfo(specDTO.getEngineInfo());
+            spec.setTransmissionInfo(specDTO.getTransmissionInfo());
+            car.setTechnicalSpec(technicalSpecRepository.save(spec));
+        }
+        return saveCar(car);
+    }
+
     @Transactional
     public CarDTO updateCar(Long id, CarDTO carDTO) {
         Car car = carRepository.findById(id)
             .orElseThrow(() -> new NotFoundException("Car", id));
         updateCarFromDTO(car, carDTO);
-        car = carRepository.save(car);
+        car = saveCar(car);
         return convertToDTO(car);
     }
 
@@ -342,94 +440,117 @@ public class CarService {
             .orElseThrow(() -> new NotFoundException("Car", id));
 
         try {
-            // Удаляем фотографии с диска
+            // Освобождаем файлы фотографий после коммита; общие с другими фотографиями файлы остаются,
+            // старые файлы из cars/{id} удаляются вместе с вариантами
             if (car.getPhotos() != null) {
                 for (Photo photo : car.getPhotos()) {
-                    try {
-                        // Получаем полный путь к файлу
-                        Path photoPath = Paths.get(uploadPath, photo.getUrl().replace("/uploads/", ""));
-                        if (Files.exists(photoPath)) {
-                            Files.delete(photoPath);
-                        }
-                    } catch (IOException e) {
-                        // Логируем ошибку, но продолжаем удаление
-                        System.err.println("Ошибка при удалении файла фото: " + e.getMessage());
-                    }
-                }
-            }
-
-            // Удаляем директорию с фотографиями автомобиля
-            Path carPhotosDir = Paths.get(uploadPath, "cars", id.toString());
-            if (Files.exists(carPhotosDir)) {
-                try {
-                    Files.walk(carPhotosDir)
-                        .sorted((p1, p2) -> -p1.compareTo(p2)) // Сортируем в обратном порядке для удаления файлов перед директориями
-                        .forEach(path -> {
-                            try {
-                                Files.delete(path);
-                            } catch (IOException e) {
-                                System.err.println("Ошибка при удалении файла/директории: " + e.getMessage());
-                            }
-                        });
-                } catch (IOException e) {
-                    System.err.println("Ошибка при удалении директории с фотографиями: " + e.getMessage());
+                    fileStorageService.release(photo.getUrl());
                 }
             }
 
             // Удаляем записи из базы данных
             carRepository.delete(car);
+            catalogStatistics.carDeleted(id);
+            carSearchIndex.carDeleted(id);
+            catalogVersion.changed();
         } catch (Exception e) {
             throw new RuntimeException("Ошибка при удалении автомобиля: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Приводит галерею автомобиля к заданному состоянию за одну транзакцию.
+     * order — итоговый порядок: ID существующих фотографий и "new:N" для N-го из новых файлов;
+     * фотографии, которых нет в order, удаляются, новые файлы без места в order добавляются в конец.
+     * Без order существующие фотографии остаются в прежнем порядке. Первая фотография становится главной.
+     * Обновляются только строки, у которых изменились порядок или признак главной, на диск пишутся только новые файлы.
+     *
+     * @return URL фотографий в итоговом порядке
+     */
     @Transactional
-    public List<String> uploadPhotos(Long id, List<MultipartFile> files) {
-        Car car = carRepository.findById(id)
-            .orElseThrow(() -> new NotFoundException("Car", id));
+    public List<String> syncPhotos(Long carId, List<String> order, List<MultipartFile> files) {
+        Car car = carRepository.findByIdForUpdate(carId)
+            .orElseThrow(() -> new NotFoundException("Car", carId));
+        List<MultipartFile> newFiles = files != null ? files : List.of();
+        List<Photo> existing = photoRepository.findByCarIdOrderByPositionAscIdAsc(carId);
+        Map<Long, Photo> existingById = existing.stream()
+            .collect(Collectors.toMap(Photo::getId, photo -> photo));
+
+        // order проверяется целиком до записи файлов: при ошибке на диске ничего не остается
+        List<String> entries = order != null
+            ? order
+            : existing.stream().map(photo -> photo.getId().toString()).collect(Collectors.toList());
+        List<PhotoSlot> slots = new ArrayList<>();
+        Set<Long> keptIds = new HashSet<>();
+        Set<Integer> placedFiles = new HashSet<>();
+        for (String entry : entries) {
+            if (entry.startsWith(NEW_PHOTO_PREFIX)) {
+                Integer index = parseOrderEntry(entry.substring(NEW_PHOTO_PREFIX.length()), Integer::valueOf);
+                if (index == null || index < 0 || index >= newFiles.size() || !placedFiles.add(index)) {
+                    throw new ValidationException("Некорректная ссылка на новый файл: " + entry);
+                }
+                slots.add(new PhotoSlot(null, newFiles.get(index)));
+            } else {
+                Long id = parseOrderEntry(entry, Long::valueOf);
+                Photo photo = id != null ? existingById.get(id) : null;
+                if (photo == null || !keptIds.add(id)) {
+                    throw new ValidationException("Фото " + entry + " не принадлежит автомобилю или указано дважды");
+                }
+                slots.add(new PhotoSlot(photo, null));
+            }
+        }
+        for (int i = 0; i < newFiles.size(); i++) {
+            if (!placedFiles.contains(i)) {
+                slots.add(new PhotoSlot(null, newFiles.get(i)));
+            }
+        }
+
+        for (Photo photo : existing) {
+            if (!keptIds.contains(photo.getId())) {
+                fileStorageService.release(photo.getUrl());
+                photoRepository.delete(photo);
+            }
+        }
 
-        List<String> uploadedPhotos = new ArrayList<>();
-        String firstPhotoUrl = null;
+        // Новые файлы сохраняются до вставки фотографий: запросы хранилища между вставками разбили бы JDBC batch
+        List<String> newUrls = new ArrayList<>();
+        for (PhotoSlot slot : slots) {
+            newUrls.add(slot.photo() == null ? fileStorageService.storeFile(slot.file()) : null);
+        }
 
-        for (int i = 0; i < files.size(); i++) {
-            MultipartFile file = files.get(i);
-            try {
-                // Создаем директорию для фотографий если её нет
-                Path uploadDir = Paths.get(uploadPath, "cars", id.toString());
-                Files.createDirectories(uploadDir);
-
-                // Генерируем уникальное имя файла
-                String originalFilename = file.getOriginalFilename();
-                String extension = originalFilename != null ? 
-                    originalFilename.substring(originalFilename.lastIndexOf(".")) : ".jpg";
-                String filename = UUID.randomUUID().toString() + extension;
-
-                // Сохраняем файл
-                Path filePath = uploadDir.resolve(filename);
-                Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-                // Формируем публичный URL для доступа к изображению
-                String publicUrl = "/uploads/cars/" + id + "/" + filename;
-                if (i == 0) firstPhotoUrl = publicUrl;
-
-                // Создаем запись в базе
-                Photo photo = new Photo();
+        List<String> urls = new ArrayList<>();
+        for (int position = 0; position < slots.size(); position++) {
+            Photo photo = slots.get(position).photo();
+            if (photo == null) {
+                photo = new Photo();
                 photo.setCar(car);
-                photo.setUrl(publicUrl);
+                photo.setUrl(newUrls.get(position));
+            }
+            // У существующих фотографий UPDATE будет только при изменении значений
+            photo.setPosition(position);
+            photo.setMainPhoto(position == 0);
+            if (photo.getId() == null) {
                 photoRepository.save(photo);
-                uploadedPhotos.add(publicUrl);
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to store file", e);
+                thumbnailService.scheduleVariants(photo);
             }
+            urls.add(photo.getUrl());
         }
 
-        // Обновляем mainPhotoUrl у машины
-        if (firstPhotoUrl != null) {
-            car.setMainPhotoUrl(firstPhotoUrl);
-            carRepository.save(car);
+        car.setMainPhotoUrl(urls.isEmpty() ? null : urls.get(0));
+        saveCar(car);
+        return urls;
+    }
+
+    private static <T> T parseOrderEntry(String value, Function<String, T> parser) {
+        try {
+            return parser.apply(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
         }
+    }
 
-        return uploadedPhotos;
+    // Место в галерее: существующая фотография или новый файл
+    private record PhotoSlot(Photo photo, MultipartFile file) {
     }
 
     @Transactional
@@ -445,46 +566,9 @@ public class CarService {
             throw new RuntimeException("Photo does not belong to this car");
         }
 
-        try {
-            // Удаляем файл с диска
-            Files.deleteIfExists(Paths.get(photo.getUrl()));
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to delete photo file", e);
-        }
-
+        fileStorageService.release(photo.getUrl());
         photoRepository.delete(photo);
-    }
-
-    @Transactional
-    public void deleteAllPhotos(Long carId) {
-        Car car = carRepository.findById(carId)
-            .orElseThrow(() -> new NotFoundException("Car", carId));
-        // Удаляем все фото из базы по carId
-        List<Photo> allPhotos = photoRepository.findByCarId(carId);
-        for (Photo photo : allPhotos) {
-            try {
-                Path photoPath = Paths.get(uploadPath, photo.getUrl().replace("/uploads/", ""));
-                if (Files.exists(photoPath)) {
-                    Files.delete(photoPath);
-                }
-            } catch (Exception e) {
-                System.err.println("Ошибка при удалении фото: " + e.getMessage());
-            }
-            photoRepository.delete(photo);
-        }
-        // Удаляем директорию с фото
-        Path carPhotosDir = Paths.get(uploadPath, "cars", carId.toString());
-        if (Files.exists(carPhotosDir)) {
-            try {
-                Files.walk(carPhotosDir)
-                    .sorted((p1, p2) -> -p1.compareTo(p2))
-                    .forEach(path -> {
-                        try { Files.delete(path); } catch (Exception e) { }
-                    });
-            } catch (Exception e) {
-                System.err.println("Ошибка при удалении директории с фото: " + e.getMessage());
-            }
-        }
+        saveCar(car);
     }
 
     private void updateCarFromDTO(Car car, CarDTO dto) {
@@ -497,25 +581,12 @@ public class CarService {
 
         // BodyType
         if (dto.getBodyType() != null) {
-            BodyType bodyType = bodyTypeRepository.findByName(dto.getBodyType())
-                .orElseGet(() -> {
-                    BodyType newBodyType = new BodyType();
-                    newBodyType.setName(dto.getBodyType());
-                    return bodyTypeRepository.save(newBodyType);
-                });
-            car.setBodyType(bodyType);
+            car.setBodyType(dictionaryService.getOrCreateBodyType(dto.getBodyType()));
         }
 
         // Color с поддержкой hex-кода
         if (dto.getColor() != null) {
-            Color color = colorRepository.findByName(dto.getColor())
-                .orElseGet(() -> {
-                    Color newColor = new Color();
-                    newColor.setName(dto.getColor());
-                    return colorRepository.save(newColor);
-                });
-            
-            car.setColor(color);
+            car.setColor(dictionaryService.getOrCreateColor(dto.getColor()));
         }
 
         // Строковые поля вместо связанных сущностей
@@ -525,17 +596,7 @@ public class CarService {
 
         // SafetyFeatures
         if (dto.getSafetyFeatures() != null) {
-            List<SafetyFeature> safetyFeatures = new ArrayList<>();
-            for (String featureName : dto.getSafetyFeatures()) {
-                SafetyFeature feature = safetyFeatureRepository.findByName(featureName)
-                    .orElseGet(() -> {
-                        SafetyFeature newFeature = new SafetyFeature();
-                        newFeature.setName(featureName);
-                        return safetyFeatureRepository.save(newFeature);
-                    });
-                safetyFeatures.add(feature);
-            }
-            car.setSafetyFeatures(safetyFeatures);
+            car.setSafetyFeatures(new ArrayList<>(dictionaryService.getOrCreateSafetyFeatures(dto.getSafetyFeatures())));
         }
 
         // TechnicalSpec
@@ -544,7 +605,7 @@ public class CarService {
         }
     }
 
-    private void validateRequiredFields(CarDTO dto) {
+    static void validateRequiredFields(CarDTO dto) {
         List<String> missingFields = new ArrayList<>();
 
         if (dto.getMake() == null || dto.getMake().trim().isEmpty()) {
@@ -568,7 +629,7 @@ public class CarService {
         }
     }
 
-    private int validateYear(Integer year) {
+    static int validateYear(Integer year) {
         int currentYear = Calendar.getInstance().get(Calendar.YEAR);
         if (year == null || year < 1900 || year > currentYear + 1) {
             throw new ValidationException(String.format("Год должен быть между 1900 и %d", currentYear + 1));
@@ -576,27 +637,20 @@ public class CarService {
         return year;
     }
 
-    private BigDecimal validatePrice(BigDecimal price) {
+    static BigDecimal validatePrice(BigDecimal price) {
         if (price == null || price.compareTo(BigDecimal.ZERO) <= 0) {
             throw new ValidationException("Цена должна быть больше нуля");
         }
         return price;
     }
 
-    private int validateMileage(Integer mileage) {
+    static int validateMileage(Integer mileage) {
         if (mileage == null || mileage < 0) {
             throw new ValidationException("Пробег не может быть отрицательным");
         }
         return mileage;
     }
 
-    private List<SafetyFeature> findSafetyFeatures(List<String> featureNames) {
-        return featureNames.stream()
-            .map(name -> safetyFeatureRepository.findByName(name)
-                .orElseThrow(() -> new NotFoundException("SafetyFeature", name)))
-            .collect(Collectors.toList());
-    }
-
     private void updateTechnicalSpec(Car car, TechnicalSpecDTO specDTO) {
         if (specDTO == null) {
             return;
@@ -652,11 +706,11 @@ public class CarService {
             car.setTechnicalSpec(spec);
         } catch (Exception e) {
             // Логируем ошибку, но продолжаем работу
-            System.err.println("Ошибка при обновлении технических характеристик: " + e.getMessage());
+            log.error("Ошибка при обновлении технических характеристик автомобиля {}", car.getId(), e);
         }
     }
 
-    private CarDTO convertToDTO(Car car) {
+    CarDTO convertToDTO(Car car) {
         CarDTO dto = new CarDTO();
         dto.setId(car.getId());
         dto.setMake(car.getMake());
@@ -666,6 +720,7 @@ public class CarService {
         dto.setMileage(car.getMileage());
         dto.setCarCondition(car.getCarCondition());
         dto.setLocation(car.getLocation());
+        dto.setSourceUrl(car.getSourceUrl());
         
         // BodyType
         if (car.getBodyType() != null) {
@@ -694,15 +749,18 @@ public class CarService {
         }
         
         // Photos
-        if (car.getPhotos() != null && !car.getPhotos().isEmpty()) {
-            List<String> photoUrls = car.getPhotos().stream()
-                    .map(Photo::getUrl)
-                    .filter(url -> url != null)
-                    .collect(Collectors.toList());
-            dto.setPhotos(photoUrls);
-        } else {
-            dto.setPhotos(new ArrayList<>());
-        }
+        List<Photo> photos = car.getPhotos() != null
+            ? car.getPhotos().stream().filter(photo -> photo.getUrl() != null).collect(Collectors.toList())
+            : new ArrayList<>();
+        dto.setPhotos(photos.stream().map(Photo::getUrl).collect(Collectors.toList()));
+        dto.setPhotoIds(photos.stream().map(Photo::getId).collect(Collectors.toList()));
+        // Уменьшенные копии в том же порядке, что и photos; пока копия не готова — оригинал
+        dto.setPhotoThumbnails(photos.stream()
+            .map(photo -> photo.getThumbnailUrl() != null ? photo.getThumbnailUrl() : photo.getUrl())
+            .collect(Collectors.toList()));
+        dto.setPhotoMediums(photos.stream()
+            .map(photo -> photo.getMediumUrl() != null ? photo.getMediumUrl() : photo.getUrl())
+            .collect(Collectors.toList()));
         
         // Main photo URL
         if (car.getMainPhotoUrl() != null) {
@@ -710,6 +768,11 @@ public class CarService {
         } else if (!dto.getPhotos().isEmpty()) {
             dto.setMainPhotoUrl(dto.getPhotos().get(0));
         }
+        if (dto.getMainPhotoUrl() != null) {
+            int mainIndex = dto.getPhotos().indexOf(dto.getMainPhotoUrl());
+            dto.setMainPhotoThumbnailUrl(mainIndex >= 0 ? dto.getPhotoThumbnails().get(mainIndex) : dto.getMainPhotoUrl());
+            dto.setMainPhotoMediumUrl(mainIndex >= 0 ? dto.getPhotoMediums().get(mainIndex) : dto.getMainPhotoUrl());
+        }
         
         // SafetyFeatures
         if (car.getSafetyFeatures() != null && !car.getSafetyFeatures().isEmpty()) {
@@ -730,6 +793,20 @@ public class CarService {
 
     @Transactional
     public Car save(Car car) {
-        return carRepository.save(car);
+        return saveCar(car);
+    }
+
+    // Все сохранения автомобиля проходят здесь, чтобы статистика, поисковый индекс и ETag оставались актуальными
+    private Car saveCar(Car car) {
+        // Время изменения сдвигается явно: изменения характеристик, оснащения и фотографий
+        // не меняют колонки самого автомобиля, а ETag карточки строится по updatedAt
+        car.setUpdatedAt(LocalDateTime.now());
+        // Изменения управляемого автомобиля запишутся при коммите; merge только перечитал бы
+        // по ID кэшированные значения справочников из его связей
+        Car saved = entityManager.contains(car) ? car : carRepository.save(car);
+        catalogStatistics.carSaved(saved);
+        carSearchIndex.carSaved(saved);
+        catalogVersion.changed();
+        return saved;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,137 @@
+package com.autobro.service;
+
+import com.autobro.model.Car;
+import com.autobro.repository.CarRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Статистика каталога для фильтров главной страницы: список марок, диапазоны годов и цен.
+ * Считается один раз при старте и дальше обновляется по каждому сохранению или удалению автомобиля,
+ * поэтому запросы обслуживаются из памяти без загрузки всех автомобилей.
+ * Изменения применяются только после коммита транзакции, чтобы откаченные изменения не попадали в статистику.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogStatistics {
+    private final CarRepository carRepository;
+
+    // Значения, учтенные по каждому автомобилю: при повторном сохранении старые значения вычитаются
+    private final Map<Long, CarStats> cars = new HashMap<>();
+    // Количество автомобилей по каждому значению; min/max — первый и последний ключ
+    private final NavigableMap<String, Integer> makes = new TreeMap<>();
+    private final NavigableMap<Integer, Integer> years = new TreeMap<>();
+    private final NavigableMap<BigDecimal, Integer> prices = new TreeMap<>();
+
+    // Неизменяемый снимок для чтения без блокировок; пересобирается при каждом изменении
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    @PostConstruct
+    public void rebuild() {
+        List<Object[]> rows = carRepository.findStatisticsRows();
+        synchronized (this) {
+            cars.clear();
+            makes.clear();
+            years.clear();
+            prices.clear();
+            for (Object[] row : rows) {
+                add((Long) row[0], new CarStats((String) row[1], (Integer) row[2], (BigDecimal) row[3]));
+            }
+            publish();
+        }
+    }
+
+    public List<String> getMakes() {
+        return snapshot.makes;
+    }
+
+    public Map<String, Integer> getYearRange() {
+        return snapshot.yearRange;
+    }
+
+    public Map<String, BigDecimal> getPriceRange() {
+        return snapshot.priceRange;
+    }
+
+    /**
+     * Учитывает созданный или измененный автомобиль
+     */
+    public void carSaved(Car car) {
+        Long id = car.getId();
+        CarStats stats = new CarStats(car.getMake(), car.getYear(), car.getPrice());
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                remove(id);
+                add(id, stats);
+                publish();
+            }
+        });
+    }
+
+    /**
+     * Исключает удаленный автомобиль
+     */
+    public void carDeleted(Long id) {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                remove(id);
+                publish();
+            }
+        });
+    }
+
+    private void add(Long id, CarStats stats) {
+        cars.put(id, stats);
+        increment(makes, stats.make());
+        increment(years, stats.year());
+        increment(prices, stats.price());
+    }
+
+    private void remove(Long id) {
+        CarStats stats = cars.remove(id);
+        if (stats != null) {
+            decrement(makes, stats.make());
+            decrement(years, stats.year());
+            decrement(prices, stats.price());
+        }
+    }
+
+    private void publish() {
+        Map<String, Integer> yearRange = years.isEmpty()
+            ? Map.of("minYear", 0, "maxYear", 0)
+            : Map.of("minYear", years.firstKey(), "maxYear", years.lastKey());
+        Map<String, BigDecimal> priceRange = prices.isEmpty()
+            ? Map.of("minPrice", BigDecimal.ZERO, "maxPrice", BigDecimal.ZERO)
+            : Map.of("minPrice", prices.firstKey(), "maxPrice", prices.lastKey());
+        snapshot = new Snapshot(List.copyOf(makes.keySet()), yearRange, priceRange);
+    }
+
+    private static <K> void increment(Map<K, Integer> counts, K key) {
+        if (key != null) {
+            counts.merge(key, 1, Integer::sum);
+        }
+    }
+
+    private static <K> void decrement(Map<K, Integer> counts, K key) {
+        if (key != null) {
+            counts.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    private record CarStats(String make, Integer year, BigDecimal price) {
+    }
+
+    private record Snapshot(List<String> makes, Map<String, Integer> yearRange, Map<String, BigDecimal> priceRange) {
+        static final Snapshot EMPTY = new Snapshot(List.of(),
+            Map.of("minYear", 0, "maxYear", 0),
+            Map.of("minPrice", BigDecimal.ZERO, "maxPrice", BigDecimal.ZERO));
+    }
+}
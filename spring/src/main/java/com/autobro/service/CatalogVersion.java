@@ -0,0 +1,29 @@
+package com.autobro.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Версия каталога для ETag списков автомобилей, фасетов и диапазонов: увеличивается после коммита
+ * каждого изменения, видимого в выдаче (сохранение, удаление, готовые копии фотографий).
+ * Изменение регистрируется после обновления статистики и поискового индекса, поэтому версия,
+ * прочитанная до построения ответа, никогда не новее его данных.
+ * Счетчик живет в памяти: в ETag входит момент запуска, и после перезапуска старые ETag не совпадают.
+ */
+@Component
+public class CatalogVersion {
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Учитывает изменение каталога после коммита текущей транзакции
+     */
+    public void changed() {
+        AfterCommit.run(version::incrementAndGet);
+    }
+
+    public String getETag() {
+        return "\"catalog-" + instance + "-" + version.get() + "\"";
+    }
+}
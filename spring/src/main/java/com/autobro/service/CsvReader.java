@@ -0,0 +1,97 @@
+package com.autobro.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковое чтение CSV (RFC 4180): поля в кавычках могут содержать запятые, переводы строк
+ * и кавычки, удвоенные внутри поля. Читает по одной записи, не загружая весь файл.
+ */
+final class CsvReader {
+    private final Reader reader;
+    private int pending = -2;
+    private long line = 1;
+    private long recordLine;
+
+    CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return поля очередной записи или null в конце данных
+     */
+    List<String> readRecord() throws IOException {
+        long startLine = line;
+        int ch = read();
+        if (ch == -1) {
+            return null;
+        }
+        recordLine = startLine;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (ch == -1) {
+                    throw new IOException("Незакрытая кавычка в записи, начатой в строке " + recordLine);
+                }
+                if (ch == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        ch = next;
+                        continue;
+                    }
+                } else {
+                    field.append((char) ch);
+                }
+            } else if (ch == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (ch == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (ch == '\r' || ch == '\n' || ch == -1) {
+                if (ch == '\r') {
+                    int next = read();
+                    if (next != '\n') {
+                        unread(next);
+                    }
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) ch);
+            }
+            ch = read();
+        }
+    }
+
+    /**
+     * Строка, с которой началась последняя прочитанная запись
+     */
+    long getRecordLine() {
+        return recordLine;
+    }
+
+    private int read() throws IOException {
+        int ch;
+        if (pending != -2) {
+            ch = pending;
+            pending = -2;
+            return ch;
+        }
+        ch = reader.read();
+        if (ch == '\n') {
+            line++;
+        }
+        return ch;
+    }
+
+    private void unread(int ch) {
+        pending = ch;
+    }
+}
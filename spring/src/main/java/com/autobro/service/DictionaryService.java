@@ -0,0 +1,102 @@
+package com.autobro.service;
+
+import com.autobro.config.HibernateCacheConfig;
+import com.autobro.dto.CacheRegionStatsDTO;
+import com.autobro.model.BodyType;
+import com.autobro.model.Color;
+import com.autobro.model.SafetyFeature;
+import com.autobro.model.enums.FeatureType;
+import com.autobro.repository.BodyTypeRepository;
+import com.autobro.repository.ColorRepository;
+import com.autobro.repository.SafetyFeatureRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Поиск значений справочников (типы кузова, цвета, характеристики безопасности) по названию
+ * с созданием недостающих. Название — натуральный ключ сущности: поиск идет через кэш второго уровня
+ * Hibernate (регионы dictionary-names и dictionaries, см. HibernateCacheConfig), поэтому повторные обращения
+ * к тем же названиям не выполняют запросов. Новое значение добавляется через INSERT ... ON CONFLICT DO NOTHING
+ * по уникальному названию: параллельные запросы с одним новым названием получают одну и ту же строку.
+ * О добавленных значениях сообщается {@link DictionarySnapshot}.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class DictionaryService {
+    // Тип новой характеристики, созданной из объявления или импорта, неизвестен — уточняется в справочнике
+    static final String DEFAULT_FEATURE_TYPE = FeatureType.ACTIVE.name();
+
+    private final BodyTypeRepository bodyTypeRepository;
+    private final ColorRepository colorRepository;
+    private final SafetyFeatureRepository safetyFeatureRepository;
+    private final DictionarySnapshot dictionarySnapshot;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public BodyType getOrCreateBodyType(String name) {
+        return getOrCreate(BodyType.class, name, bodyTypeRepository::insertIfAbsent);
+    }
+
+    public Color getOrCreateColor(String name) {
+        return getOrCreate(Color.class, name, colorRepository::insertIfAbsent);
+    }
+
+    public SafetyFeature getOrCreateSafetyFeature(String name) {
+        return getOrCreate(SafetyFeature.class, name,
+            n -> safetyFeatureRepository.insertIfAbsent(n, DEFAULT_FEATURE_TYPE));
+    }
+
+    public List<SafetyFeature> getOrCreateSafetyFeatures(List<String> names) {
+        return names.stream().map(this::getOrCreateSafetyFeature).toList();
+    }
+
+    /**
+     * Статистика регионов кэша второго уровня с момента запуска приложения
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<CacheRegionStatsDTO> getCacheStats() {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        return Stream.of(HibernateCacheConfig.DICTIONARY_REGION, HibernateCacheConfig.DICTIONARY_NAME_REGION)
+            .map(region -> {
+                CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(region);
+                CacheRegionStatsDTO dto = new CacheRegionStatsDTO();
+                dto.setRegion(region);
+                dto.setHits(regionStatistics.getHitCount());
+                dto.setMisses(regionStatistics.getMissCount());
+                dto.setPuts(regionStatistics.getPutCount());
+                long requests = dto.getHits() + dto.getMisses();
+                dto.setHitRate(requests > 0 ? (double) dto.getHits() / requests : 0);
+                return dto;
+            })
+            .toList();
+    }
+
+    private <T> T getOrCreate(Class<T> type, String name, Consumer<String> insertIfAbsent) {
+        return findByName(type, name).orElseGet(() -> {
+            // Если то же название добавляет другая транзакция, вставка дождется ее завершения
+            insertIfAbsent.accept(name);
+            dictionarySnapshot.changed();
+            return findByName(type, name)
+                .orElseThrow(() -> new IllegalStateException("Значение справочника не найдено после вставки: " + name));
+        });
+    }
+
+    private <T> Optional<T> findByName(Class<T> type, String name) {
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(type).loadOptional(name);
+    }
+}
@@ -0,0 +1,130 @@
+package com.autobro.service;
+
+import com.autobro.dto.ApiResponse;
+import com.autobro.dto.DictionarySnapshotDTO;
+import com.autobro.repository.BodyTypeRepository;
+import com.autobro.repository.ColorRepository;
+import com.autobro.repository.EquipmentRepository;
+import com.autobro.repository.SafetyFeatureRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Снимок всех справочников для GET /api/dictionary/snapshot: собирается один раз и хранится
+ * уже сериализованным в JSON, поэтому запросы отдают готовые байты без обращения к базе.
+ * Версия — хэш содержимого: она одинакова на всех экземплярах приложения и после перезапуска.
+ * Снимок пересобирается при первом запросе после изменения справочника ({@link #changed()}).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DictionarySnapshot {
+    public static final List<String> FUEL_TYPES = List.of(
+        "Бензин", "Дизель", "Газ", "Электричество", "Гибрид");
+    public static final List<String> TRANSMISSION_TYPES = List.of(
+        "Механическая", "Автоматическая", "Робот", "Вариатор");
+    public static final List<String> DRIVE_TYPES = List.of(
+        "Передний", "Задний", "Полный");
+    public static final List<String> EQUIPMENT_CATEGORIES = List.of(
+        "Комфорт", "Безопасность", "Экстерьер", "Интерьер", "Мультимедиа");
+    public static final List<String> FEATURE_TYPES = List.of(
+        "Активная безопасность", "Пассивная безопасность", "Противоугонные системы");
+
+    // Длина версии в шестнадцатеричных символах хэша
+    private static final int VERSION_LENGTH = 16;
+
+    private final BodyTypeRepository bodyTypeRepository;
+    private final ColorRepository colorRepository;
+    private final EquipmentRepository equipmentRepository;
+    private final SafetyFeatureRepository safetyFeatureRepository;
+    private final ObjectMapper objectMapper;
+
+    // Число изменений справочников; снимок, собранный при меньшем значении, устарел
+    private final AtomicLong changes = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    /**
+     * Актуальный снимок; при изменении справочников с прошлой сборки собирает новый
+     */
+    public Snapshot get() {
+        Snapshot current = snapshot;
+        if (current != null && current.changes() == changes.get()) {
+            return current;
+        }
+        synchronized (this) {
+            // Счетчик читается до загрузки: изменение во время сборки вызовет еще одну
+            long expected = changes.get();
+            if (snapshot == null || snapshot.changes() != expected) {
+                snapshot = build(expected);
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Отмечает изменение справочника после коммита текущей транзакции
+     */
+    public void changed() {
+        AfterCommit.run(changes::incrementAndGet);
+    }
+
+    private Snapshot build(long expected) {
+        DictionarySnapshotDTO dto = new DictionarySnapshotDTO();
+        Sort byId = Sort.by("id");
+        dto.setBodyTypes(bodyTypeRepository.findAll(byId).stream()
+            .map(type -> new DictionarySnapshotDTO.BodyTypeItem(type.getId(), type.getName()))
+            .toList());
+        dto.setColors(colorRepository.findAll(byId).stream()
+            .map(color -> new DictionarySnapshotDTO.ColorItem(color.getId(), color.getName(), color.getHexCode()))
+            .toList());
+        dto.setEquipment(equipmentRepository.findAll(byId).stream()
+            .map(item -> new DictionarySnapshotDTO.EquipmentItem(item.getId(), item.getName(), item.getDescription(),
+                item.getCategory() != null ? item.getCategory().name() : null, item.getIsStandard()))
+            .toList());
+        dto.setSafetyFeatures(safetyFeatureRepository.findAll(byId).stream()
+            .map(feature -> new DictionarySnapshotDTO.SafetyFeatureItem(feature.getId(), feature.getName(),
+                feature.getDescription(), feature.getFeatureType()))
+            .toList());
+        dto.setFuelTypes(FUEL_TYPES);
+        dto.setTransmissionTypes(TRANSMISSION_TYPES);
+        dto.setDriveTypes(DRIVE_TYPES);
+        dto.setEquipmentCategories(EQUIPMENT_CATEGORIES);
+        dto.setFeatureTypes(FEATURE_TYPES);
+
+        try {
+            // Версия считается по содержимому без нее самой, затем входит в ответ
+            String version = hash(objectMapper.writeValueAsBytes(dto));
+            dto.setVersion(version);
+            byte[] body = objectMapper.writeValueAsBytes(ApiResponse.success(dto));
+            log.info("Снимок справочников собран: версия {}, {} байт", version, body.length);
+            return new Snapshot(version, "\"dictionary-" + version + "\"", body, expected);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать снимок справочников", e);
+        }
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content);
+            return HexFormat.of().formatHex(hash).substring(0, VERSION_LENGTH);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    /**
+     * Собранный снимок: body — готовый ответ ApiResponse в JSON, его нельзя изменять
+     */
+    public record Snapshot(String version, String etag, byte[] body, long changes) {
+    }
+}
@@ -1,64 +1,267 @@
 package com.autobro.service;
 
+import com.autobro.model.StoredFile;
+import com.autobro.repository.StoredFileRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
+
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.UUID;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Хранилище загруженных фотографий с адресацией по содержимому: файл называется SHA-256 своего
+ * содержимого (хэш считается при потоковой записи) и раскладывается по подкаталогам
+ * blobs/ab/cd/abcd....jpg, чтобы ни в одном каталоге не копились сотни тысяч файлов.
+ * Одинаковые файлы хранятся один раз, число ссылок на файл ведется в stored_files.
+ * Файлы без ссылок удаляет сборщик мусора через app.upload.gc.grace-minutes — за это время
+ * повторная загрузка того же файла (например, при пересохранении галереи) находит его на месте.
+ * Если транзакция, в которой файл сохранен впервые, откатывается, файл удаляется сразу.
+ * Метрики: uploads.store (время сохранения, тег outcome: stored, duplicate, rejected, error)
+ * и uploads.size (размер принятых файлов в байтах).
+ */
+@Slf4j
 @Service
 public class FileStorageService {
+    private static final String BLOBS_DIR = "blobs";
+    private static final String BLOBS_URL = "/uploads/" + BLOBS_DIR + "/";
+    private static final int LOCK_STRIPES = 64;
+
     private final Path fileStorageLocation;
     private final List<String> allowedTypes;
+    private final StoredFileRepository storedFileRepository;
+    private final long gcGraceMinutes;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary uploadSize;
+
+    // Запись файла и его удаление сборщиком мусора для одного хэша не выполняются одновременно
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    // Хэши, на которые недавно добавлены ссылки: их файлы сборщик мусора не трогает до конца периода ожидания
+    private final Map<String, LocalDateTime> recentlyAcquired = new ConcurrentHashMap<>();
 
     public FileStorageService(
+            StoredFileRepository storedFileRepository,
+            MeterRegistry meterRegistry,
             @Value("${app.upload.path}") String uploadPath,
-            @Value("${app.upload.allowed-types:}") String allowedTypesStr) {
+            @Value("${app.upload.allowed-types:}") String allowedTypesStr,
+            @Value("${app.upload.gc.grace-minutes:60}") long gcGraceMinutes) {
+        this.storedFileRepository = storedFileRepository;
+        this.gcGraceMinutes = gcGraceMinutes;
+        this.meterRegistry = meterRegistry;
+        this.uploadSize = DistributionSummary.builder("uploads.size")
+            .description("Размер загруженных файлов")
+            .baseUnit("bytes")
+            .register(meterRegistry);
         this.fileStorageLocation = Paths.get(uploadPath).toAbsolutePath().normalize();
         if (allowedTypesStr != null && !allowedTypesStr.isBlank()) {
             this.allowedTypes = Arrays.asList(allowedTypesStr.split("\\s*,\\s*"));
         } else {
             this.allowedTypes = Collections.emptyList();
         }
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
         try {
-            Files.createDirectories(this.fileStorageLocation);
+            Files.createDirectories(this.fileStorageLocation.resolve(BLOBS_DIR));
         } catch (IOException ex) {
             throw new RuntimeException("Could not create the directory where the uploaded files will be stored.", ex);
         }
     }
 
-    public String storeFile(MultipartFile file, Long carId) {
+    /**
+     * Сохраняет файл и добавляет на него ссылку. Если такой файл уже есть, возвращается его URL,
+     * а загруженная копия удаляется.
+     *
+     * @return путь относительно корня uploads
+     */
+    public String storeFile(MultipartFile file) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        Path temp = null;
         try {
             // Проверяем тип файла
             String contentType = file.getContentType();
             if (!allowedTypes.contains(contentType)) {
+                outcome = "rejected";
                 throw new RuntimeException("File type not allowed. Allowed types: " + allowedTypes);
             }
 
-            // Создаем директорию для конкретного авто
-            Path carDir = this.fileStorageLocation.resolve("cars").resolve(carId.toString());
-            Files.createDirectories(carDir);
-
-            // Генерируем уникальное имя файла
-            String originalFilename = file.getOriginalFilename();
-            String extension = originalFilename != null ? 
-                originalFilename.substring(originalFilename.lastIndexOf(".")) : ".jpg";
-            String filename = UUID.randomUUID().toString() + extension;
-
-            // Сохраняем файл
-            Path targetLocation = carDir.resolve(filename);
-            Files.copy(file.getInputStream(), targetLocation);
+            // Пишем во временный файл, попутно считая хэш содержимого
+            temp = Files.createTempFile(fileStorageLocation.resolve(BLOBS_DIR), "upload-", ".tmp");
+            MessageDigest digest = sha256();
+            try (InputStream input = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(input, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String url = BLOBS_URL + hash.substring(0, 2) + "/" + hash.substring(2, 4)
+                + "/" + hash + extension(file.getOriginalFilename());
 
-            // Возвращаем путь относительно корня uploads
-            return "/uploads/cars/" + carId + "/" + filename;
+            long size = Files.size(temp);
+            uploadSize.record(size);
+            storedFileRepository.acquire(hash, url, size);
+            // Для уже сохраненного файла URL остается прежним, даже если расширение загрузки другое
+            String storedUrl = storedFileRepository.findUrlByHash(hash);
+            Path target = toPath(storedUrl);
+            LocalDateTime acquiredAt = LocalDateTime.now();
+            synchronized (lockFor(hash)) {
+                recentlyAcquired.put(hash, acquiredAt);
+                if (Files.exists(target)) {
+                    outcome = "duplicate";
+                } else {
+                    Files.createDirectories(target.getParent());
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                    outcome = "stored";
+                    deleteOnRollback(hash, storedUrl, acquiredAt);
+                }
+            }
+            return storedUrl;
         } catch (IOException ex) {
             throw new RuntimeException("Could not store file. Please try again!", ex);
+        } finally {
+            deleteQuietly(temp);
+            sample.stop(Timer.builder("uploads.store")
+                .description("Сохранение загруженного файла в хранилище")
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Освобождает ссылку на файл после удаления фотографии. Файлы, сохраненные до появления
+     * хранилища (cars/{id}/...), принадлежат одной фотографии и удаляются сразу после коммита.
+     */
+    public void release(String url) {
+        if (url == null || !url.startsWith("/uploads/")) {
+            return;
+        }
+        if (url.startsWith(BLOBS_URL)) {
+            storedFileRepository.release(url, LocalDateTime.now());
+        } else {
+            AfterCommit.run(() -> deleteWithVariants(url));
+        }
+    }
+
+    /**
+     * Удаляет файлы, на которые не осталось ссылок дольше периода ожидания
+     */
+    @Scheduled(fixedDelayString = "${app.upload.gc.interval-ms:600000}")
+    public void collectGarbage() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(gcGraceMinutes);
+        recentlyAcquired.values().removeIf(acquiredAt -> acquiredAt.isBefore(cutoff));
+
+        int deleted = 0;
+        for (StoredFile file : storedFileRepository.findByRefCountAndReleasedAtBefore(0, cutoff)) {
+            if (storedFileRepository.deleteIfUnreferenced(file.getHash()) == 0) {
+                continue;
+            }
+            // Запись уже удалена, но параллельная загрузка того же файла могла создать новую
+            // и застать файл на месте — тогда он остается
+            synchronized (lockFor(file.getHash())) {
+                if (!recentlyAcquired.containsKey(file.getHash())) {
+                    deleteWithVariants(file.getUrl());
+                    deleted++;
+                }
+            }
+        }
+        if (deleted > 0) {
+            log.info("Удалено неиспользуемых файлов: {}", deleted);
+        }
+    }
+
+    /**
+     * Файл уже лежит в хранилище, а ссылка на него появится только с коммитом транзакции вызывающего.
+     * При откате файл, созданный этим вызовом, удаляется, если за это время его не нашла другая загрузка.
+     */
+    private void deleteOnRollback(String hash, String url, LocalDateTime acquiredAt) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                synchronized (lockFor(hash)) {
+                    // Сравнение по ссылке: другая загрузка того же файла заменила бы отметку своей
+                    if (recentlyAcquired.get(hash) == acquiredAt) {
+                        recentlyAcquired.remove(hash);
+                        deleteWithVariants(url);
+                        log.info("Транзакция откачена, удален сохраненный файл {}", url);
+                    }
+                }
+            }
+        });
+    }
+
+    private void deleteWithVariants(String url) {
+        for (String fileUrl : new String[]{url,
+                ThumbnailService.variantUrl(url, ThumbnailService.THUMBNAIL_SUFFIX),
+                ThumbnailService.variantUrl(url, ThumbnailService.MEDIUM_SUFFIX)}) {
+            try {
+                Files.deleteIfExists(toPath(fileUrl));
+            } catch (IOException e) {
+                log.warn("Не удалось удалить файл {}: {}", fileUrl, e.getMessage());
+            }
+        }
+    }
+
+    private Object lockFor(String hash) {
+        return locks[Math.floorMod(hash.hashCode(), LOCK_STRIPES)];
+    }
+
+    private Path toPath(String url) {
+        return fileStorageLocation.resolve(url.substring("/uploads/".length()));
+    }
+
+    private static String extension(String originalFilename) {
+        if (originalFilename != null) {
+            int dot = originalFilename.lastIndexOf('.');
+            String extension = dot >= 0 ? originalFilename.substring(dot).toLowerCase() : "";
+            if (extension.matches("\\.[a-z0-9]{1,5}")) {
+                return extension;
+            }
+        }
+        return ".jpg";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Не удалось удалить временный файл {}: {}", file, e.getMessage());
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,57 @@
+package com.autobro.service;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограничение частоты запросов к одному хосту: запросы к хосту разносятся во времени не меньше чем
+ * на 1 / requestsPerSecond секунды. Каждый запрос резервирует ближайший свободный момент и ждет его,
+ * поэтому одновременные запросы выстраиваются в очередь без общей блокировки.
+ */
+final class HostRateLimiter {
+    private final long intervalNanos;
+    // Ближайший свободный момент для следующего запроса к хосту (System.nanoTime)
+    private final Map<String, AtomicLong> nextSlots = new ConcurrentHashMap<>();
+
+    /**
+     * @param requestsPerSecond допустимая частота запросов к одному хосту; 0 — без ограничения
+     */
+    HostRateLimiter(double requestsPerSecond) {
+        this.intervalNanos = requestsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond) : 0;
+    }
+
+    /**
+     * Ждет, пока запрос к хосту URL не превысит допустимую частоту
+     */
+    void acquire(String url) throws InterruptedException {
+        if (intervalNanos == 0 || url == null) {
+            return;
+        }
+        AtomicLong next = nextSlots.computeIfAbsent(host(url), host -> new AtomicLong(System.nanoTime()));
+        long now = System.nanoTime();
+        long slot;
+        while (true) {
+            long current = next.get();
+            slot = current - now > 0 ? current : now;
+            if (next.compareAndSet(current, slot + intervalNanos)) {
+                break;
+            }
+        }
+        long wait = slot - now;
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    private static String host(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host.toLowerCase() : url;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+}
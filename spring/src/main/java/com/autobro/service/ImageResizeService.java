@@ -0,0 +1,307 @@
+package com.autobro.service;
+
+import com.autobro.exception.NotFoundException;
+import com.autobro.exception.ValidationException;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Загруженные фотографии и их уменьшенные копии по запросу: /uploads/...?w=480&q=80&fmt=jpeg.
+ * Ширина округляется вверх до ближайшей из app.upload.resize.widths, качество — до шага 5,
+ * чтобы число вариантов одной фотографии было ограничено.
+ * Готовые копии хранятся в дисковом кэше (app.upload.cache) с вытеснением давно не запрошенных
+ * при превышении лимита размера. Копия отдается уже открытым потоком, открытым под той же блокировкой,
+ * что и вытеснение: удаленный файл дочитывается до конца. Одновременные запросы одного варианта ждут одно кодирование,
+ * а число одновременных кодирований ограничено app.upload.resize.threads.
+ */
+@Slf4j
+@Service
+public class ImageResizeService {
+    private static final int DEFAULT_QUALITY = 80;
+    private static final int MIN_QUALITY = 30;
+    private static final int MAX_QUALITY = 95;
+
+    private final Path uploadRoot;
+    private final Path cacheRoot;
+    private final long maxCacheBytes;
+    private final int[] widths;
+    private final Semaphore encodePermits;
+
+    // Файлы кэша (путь относительно cacheRoot -> размер) в порядке обращения: первый — самый давний
+    private final LinkedHashMap<String, Long> cacheEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private long cacheBytes;
+    // Кодирования, которые выполняются прямо сейчас: повторные запросы того же варианта ждут их результат
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    public ImageResizeService(
+            @Value("${app.upload.path}") String uploadPath,
+            @Value("${app.upload.cache.path:./uploads-cache}") String cachePath,
+            @Value("${app.upload.cache.max-size-mb:512}") long maxCacheSizeMb,
+            @Value("${app.upload.resize.widths:160,320,480,640,800,1024,1280,1600,1920}") List<Integer> widths,
+            @Value("${app.upload.resize.threads:2}") int threads) {
+        this.uploadRoot = Paths.get(uploadPath).toAbsolutePath().normalize();
+        this.cacheRoot = Paths.get(cachePath).toAbsolutePath().normalize();
+        this.maxCacheBytes = maxCacheSizeMb * 1024 * 1024;
+        this.widths = widths.stream().mapToInt(Integer::intValue).sorted().toArray();
+        this.encodePermits = new Semaphore(threads);
+    }
+
+    /**
+     * Восстанавливает учет кэша после перезапуска: файлы упорядочиваются по времени изменения
+     */
+    @PostConstruct
+    public void loadCache() throws IOException {
+        Files.createDirectories(cacheRoot);
+        try (Stream<Path> files = Files.walk(cacheRoot)) {
+            List<Path> cached = files
+                .filter(Files::isRegularFile)
+                .sorted(Comparator.comparingLong(ImageResizeService::lastModified))
+                .toList();
+            for (Path file : cached) {
+                if (file.getFileName().toString().endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                } else {
+                    recordCached(cacheRoot.relativize(file).toString(), Files.size(file));
+                }
+            }
+        }
+        log.info("Кэш уменьшенных фото: {} файлов, {} КБ", cacheEntries.size(), cacheBytes / 1024);
+    }
+
+    /**
+     * Возвращает файл оригинала; пути за пределами каталога загрузок не отдаются
+     *
+     * @param path путь относительно каталога загрузок (cars/1/abc.jpg)
+     */
+    public Path getOriginal(String path) {
+        Path source = uploadRoot.resolve(path).normalize();
+        if (!source.startsWith(uploadRoot) || !Files.isRegularFile(source)) {
+            throw new NotFoundException("Фото не найдено: " + path);
+        }
+        return source;
+    }
+
+    /**
+     * Возвращает уменьшенную копию фотографии, создавая ее при первом запросе
+     *
+     * @param path    путь к оригиналу относительно каталога загрузок (cars/1/abc.jpg)
+     * @param width   требуемая ширина в пикселях
+     * @param quality качество JPEG от 30 до 95, по умолчанию 80
+     * @param format  jpeg или png; по умолчанию png для png-оригиналов, иначе jpeg
+     * @return открытый поток копии; закрывает вызывающий
+     */
+    public ResizedImage getResized(String path, int width, Integer quality, String format) {
+        Path source = getOriginal(path);
+        if (width <= 0) {
+            throw new ValidationException("Ширина должна быть положительной");
+        }
+        String targetFormat = resolveFormat(format, source);
+        int targetWidth = bucketWidth(width);
+        int targetQuality = "jpeg".equals(targetFormat) ? roundQuality(quality) : 0;
+
+        // Время изменения оригинала входит в ключ: замененный файл не отдается из старого кэша
+        String key = cacheKey(uploadRoot.relativize(source) + "|" + lastModified(source)
+            + "|" + targetWidth + "|" + targetQuality + "|" + targetFormat, targetFormat);
+        MediaType mediaType = "png".equals(targetFormat) ? MediaType.IMAGE_PNG : MediaType.IMAGE_JPEG;
+
+        while (true) {
+            ResizedImage cached = openCached(key, mediaType);
+            if (cached != null) {
+                return cached;
+            }
+
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            CompletableFuture<Void> running = inFlight.putIfAbsent(key, future);
+            if (running != null) {
+                // Готовая копия берется из кэша; если ее уже вытеснили, кодирование повторится
+                await(running);
+                continue;
+            }
+            try {
+                // Копию могли закончить между проверкой кэша и регистрацией кодирования
+                ResizedImage image = openCached(key, mediaType);
+                if (image == null) {
+                    image = encode(source, key, targetWidth, targetQuality, targetFormat, mediaType);
+                }
+                future.complete(null);
+                return image;
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, future);
+            }
+        }
+    }
+
+    private ResizedImage encode(Path source, String key, int width, int quality, String format, MediaType mediaType) {
+        try {
+            encodePermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Прервано ожидание обработки фото", e);
+        }
+        try {
+            BufferedImage image = ImageProcessing.read(source, width, 0);
+            if (image == null) {
+                throw new ValidationException("Формат фото не поддерживается для уменьшения");
+            }
+            BufferedImage resized = ImageProcessing.resize(image, width, Integer.MAX_VALUE, "png".equals(format));
+            Path target = cacheRoot.resolve(key);
+            Files.createDirectories(target.getParent());
+            ImageProcessing.write(resized, format, quality / 100f, target);
+            return openNew(key, target, mediaType);
+        } catch (IOException e) {
+            throw new RuntimeException("Не удалось уменьшить фото: " + e.getMessage(), e);
+        } finally {
+            encodePermits.release();
+        }
+    }
+
+    // Файл открывается под блокировкой кэша: между проверкой и открытием его не может удалить вытеснение
+    private synchronized ResizedImage openCached(String key, MediaType mediaType) {
+        if (cacheEntries.get(key) == null) {
+            return null;
+        }
+        try {
+            return open(cacheRoot.resolve(key), mediaType);
+        } catch (NoSuchFileException e) {
+            cacheBytes -= cacheEntries.remove(key);
+            return null;
+        } catch (IOException e) {
+            throw new RuntimeException("Не удалось прочитать уменьшенное фото: " + e.getMessage(), e);
+        }
+    }
+
+    // Новая копия открывается до учета в кэше: учет может вытеснить ее, если другие копии записаны позже
+    private synchronized ResizedImage openNew(String key, Path file, MediaType mediaType) throws IOException {
+        ResizedImage image = open(file, mediaType);
+        recordCached(key, image.size());
+        return image;
+    }
+
+    private synchronized void recordCached(String key, long size) {
+        Long previous = cacheEntries.put(key, size);
+        cacheBytes += size - (previous != null ? previous : 0);
+
+        // Самый свежий файл не вытесняется, даже если он один больше лимита
+        Iterator<Map.Entry<String, Long>> eldest = cacheEntries.entrySet().iterator();
+        while (cacheBytes > maxCacheBytes && cacheEntries.size() > 1) {
+            Map.Entry<String, Long> entry = eldest.next();
+            try {
+                Files.deleteIfExists(cacheRoot.resolve(entry.getKey()));
+            } catch (IOException e) {
+                log.warn("Не удалось удалить файл кэша {}: {}", entry.getKey(), e.getMessage());
+            }
+            cacheBytes -= entry.getValue();
+            eldest.remove();
+        }
+    }
+
+    private int bucketWidth(int width) {
+        int index = Arrays.binarySearch(widths, width);
+        if (index >= 0) {
+            return widths[index];
+        }
+        int insertion = -index - 1;
+        return insertion < widths.length ? widths[insertion] : widths[widths.length - 1];
+    }
+
+    private static int roundQuality(Integer quality) {
+        if (quality == null) {
+            return DEFAULT_QUALITY;
+        }
+        int clamped = Math.max(MIN_QUALITY, Math.min(MAX_QUALITY, quality));
+        return Math.round(clamped / 5f) * 5;
+    }
+
+    private static String resolveFormat(String format, Path source) {
+        if (format == null || format.isBlank()) {
+            return source.getFileName().toString().toLowerCase().endsWith(".png") ? "png" : "jpeg";
+        }
+        return switch (format.toLowerCase()) {
+            case "jpeg", "jpg" -> "jpeg";
+            case "png" -> "png";
+            default -> throw new ValidationException("Неподдерживаемый формат: " + format + " (допустимы jpeg, png)");
+        };
+    }
+
+    // Файлы кэша раскладываются по подкаталогам по первым двум символам хэша: ab/abcdef....jpg
+    private static String cacheKey(String variant, String format) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String hash = HexFormat.of().formatHex(digest.digest(variant.getBytes(StandardCharsets.UTF_8)));
+            return hash.substring(0, 2) + "/" + hash + ("png".equals(format) ? ".png" : ".jpg");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class).lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void await(CompletableFuture<Void> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Прервано ожидание обработки фото", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private static ResizedImage open(Path file, MediaType mediaType) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new ResizedImage(Channels.newInputStream(channel), channel.size(), mediaType);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Уменьшенная копия: поток открыт до возврата, поэтому вытеснение файла из кэша не прерывает отдачу
+     */
+    public record ResizedImage(InputStream content, long size, MediaType mediaType) {
+    }
+}
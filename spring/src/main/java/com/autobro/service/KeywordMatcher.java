@@ -0,0 +1,155 @@
+package com.autobro.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Поиск всех вхождений набора ключевых слов за один проход по тексту (автомат Ахо — Корасик).
+ * Автомат строится один раз и дальше только читается, поэтому один экземпляр можно использовать
+ * из любого числа потоков. Регистр не приводится: текст и ключевые слова должны быть нормализованы одинаково.
+ * Одно ключевое слово может встречаться в списке несколько раз с разными значениями.
+ */
+final class KeywordMatcher<T> {
+    // Символы, которых нет в ключевых словах, возвращают автомат в начальное состояние
+    private static final int OTHER = -1;
+    private static final int ROOT = 0;
+
+    // Номер символа в алфавите ключевых слов (символы вне диапазона — OTHER)
+    private final int[] alphabet;
+    // Переходы: transitions[состояние * размер алфавита + символ]
+    private final int[] transitions;
+    private final int alphabetSize;
+    // Значения и длины ключевых слов, которые заканчиваются в состоянии (с учетом суффиксов)
+    private final Object[][] outputs;
+    private final int[][] outputLengths;
+
+    /**
+     * Получатель вхождений: start и end — границы вхождения в тексте (end не включается)
+     */
+    interface MatchConsumer<T> {
+        void accept(T value, int start, int end);
+    }
+
+    KeywordMatcher(List<Map.Entry<String, T>> keywords) {
+        int maxChar = 0;
+        for (Map.Entry<String, T> entry : keywords) {
+            String keyword = entry.getKey();
+            if (keyword.isEmpty()) {
+                throw new IllegalArgumentException("Пустое ключевое слово");
+            }
+            for (int i = 0; i < keyword.length(); i++) {
+                maxChar = Math.max(maxChar, keyword.charAt(i));
+            }
+        }
+        alphabet = new int[maxChar + 1];
+        Arrays.fill(alphabet, OTHER);
+        int size = 0;
+        for (Map.Entry<String, T> entry : keywords) {
+            String keyword = entry.getKey();
+            for (int i = 0; i < keyword.length(); i++) {
+                if (alphabet[keyword.charAt(i)] == OTHER) {
+                    alphabet[keyword.charAt(i)] = size++;
+                }
+            }
+        }
+        alphabetSize = size;
+
+        // Бор ключевых слов
+        List<int[]> trie = new ArrayList<>();
+        List<List<Object>> found = new ArrayList<>();
+        List<List<Integer>> foundLengths = new ArrayList<>();
+        trie.add(newRow());
+        found.add(new ArrayList<>());
+        foundLengths.add(new ArrayList<>());
+        for (Map.Entry<String, T> entry : keywords) {
+            String keyword = entry.getKey();
+            int state = ROOT;
+            for (int i = 0; i < keyword.length(); i++) {
+                int symbol = alphabet[keyword.charAt(i)];
+                if (trie.get(state)[symbol] == OTHER) {
+                    trie.get(state)[symbol] = trie.size();
+                    trie.add(newRow());
+                    found.add(new ArrayList<>());
+                    foundLengths.add(new ArrayList<>());
+                }
+                state = trie.get(state)[symbol];
+            }
+            found.get(state).add(entry.getValue());
+            foundLengths.get(state).add(keyword.length());
+        }
+
+        // Суффиксные ссылки обходом в ширину; недостающие переходы заменяются переходами по ссылке
+        int states = trie.size();
+        int[] fail = new int[states];
+        transitions = new int[states * alphabetSize];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int symbol = 0; symbol < alphabetSize; symbol++) {
+            int next = trie.get(ROOT)[symbol];
+            if (next == OTHER) {
+                transitions[symbol] = ROOT;
+            } else {
+                transitions[symbol] = next;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            found.get(state).addAll(found.get(fail[state]));
+            foundLengths.get(state).addAll(foundLengths.get(fail[state]));
+            for (int symbol = 0; symbol < alphabetSize; symbol++) {
+                int next = trie.get(state)[symbol];
+                int viaFail = transitions[fail[state] * alphabetSize + symbol];
+                if (next == OTHER) {
+                    transitions[state * alphabetSize + symbol] = viaFail;
+                } else {
+                    transitions[state * alphabetSize + symbol] = next;
+                    fail[next] = viaFail;
+                    queue.add(next);
+                }
+            }
+        }
+
+        outputs = new Object[states][];
+        outputLengths = new int[states][];
+        for (int state = 0; state < states; state++) {
+            if (!found.get(state).isEmpty()) {
+                outputs[state] = found.get(state).toArray();
+                outputLengths[state] = foundLengths.get(state).stream().mapToInt(Integer::intValue).toArray();
+            }
+        }
+    }
+
+    /**
+     * Передает значение каждого найденного вхождения в порядке окончания вхождений в тексте
+     */
+    @SuppressWarnings("unchecked")
+    void match(CharSequence text, MatchConsumer<T> consumer) {
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int symbol = c < alphabet.length ? alphabet[c] : OTHER;
+            if (symbol == OTHER) {
+                state = ROOT;
+                continue;
+            }
+            state = transitions[state * alphabetSize + symbol];
+            Object[] values = outputs[state];
+            if (values != null) {
+                int[] lengths = outputLengths[state];
+                for (int k = 0; k < values.length; k++) {
+                    consumer.accept((T) values[k], i + 1 - lengths[k], i + 1);
+                }
+            }
+        }
+    }
+
+    private int[] newRow() {
+        int[] row = new int[alphabetSize];
+        Arrays.fill(row, OTHER);
+        return row;
+    }
+}
@@ -0,0 +1,187 @@
+package com.autobro.service;
+
+import com.autobro.dto.CarImportResultDTO;
+import com.autobro.dto.CrawlRunDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Обход объявлений auto.ru по расписанию: страницы выдачи из parser.crawler.urls разбираются парсером,
+ * а автомобили пишутся пачками через {@link CarImportService}: новые объявления добавляются, измененные
+ * обновляют автомобиль, неизмененные (тот же отпечаток) пропускаются без обращения к записи в базе.
+ * Обход инкрементальный: выдача должна быть отсортирована по дате размещения (sort=cr_date-desc),
+ * поэтому страницы одного URL перебираются, пока на них есть новые или измененные объявления,
+ * но не больше parser.crawler.max-pages. Обход выполняется в отдельном потоке, одновременно — не больше одного.
+ */
+@Slf4j
+@Service
+public class ListingCrawler {
+    // Сколько ошибок записи отдельных автомобилей показывать в состоянии обхода
+    private static final int MAX_REPORTED_RECORD_ERRORS = 10;
+
+    private final AutoRuParser autoRuParser;
+    private final CarImportService carImportService;
+    private final boolean enabled;
+    private final List<String> urls;
+    private final int maxPages;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "listing-crawler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+    // Неизменяемый снимок состояния последнего обхода; заменяется после каждой страницы
+    private volatile CrawlRunDTO lastRun;
+
+    public ListingCrawler(
+            AutoRuParser autoRuParser,
+            CarImportService carImportService,
+            @Value("${parser.crawler.enabled:false}") boolean enabled,
+            @Value("${parser.crawler.urls:}") List<String> urls,
+            @Value("${parser.crawler.max-pages:5}") int maxPages) {
+        this.autoRuParser = autoRuParser;
+        this.carImportService = carImportService;
+        this.enabled = enabled;
+        this.urls = urls.stream().map(String::trim).filter(url -> !url.isEmpty()).toList();
+        this.maxPages = maxPages;
+    }
+
+    @Scheduled(initialDelayString = "${parser.crawler.initial-delay-ms:60000}",
+               fixedDelayString = "${parser.crawler.interval-ms:3600000}")
+    public void scheduledCrawl() {
+        if (enabled) {
+            start();
+        }
+    }
+
+    /**
+     * Запускает обход, если он еще не идет
+     *
+     * @return состояние запущенного или уже идущего обхода
+     */
+    public CrawlRunDTO start() {
+        if (!running.compareAndSet(false, true)) {
+            return lastRun;
+        }
+        Run run = new Run();
+        lastRun = run.toDto();
+        try {
+            executor.execute(() -> {
+                try {
+                    crawl(run);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        return lastRun;
+    }
+
+    /**
+     * Состояние последнего обхода; null, если обход еще не запускался
+     */
+    public CrawlRunDTO getLastRun() {
+        return lastRun;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void crawl(Run run) {
+        log.info("Обход объявлений: {} URL, не больше {} страниц каждого", urls.size(), maxPages);
+        try {
+            for (String url : urls) {
+                crawlUrl(run, url);
+            }
+            run.writer.finish();
+            run.status = CrawlRunDTO.Status.DONE;
+        } catch (RuntimeException e) {
+            log.error("Обход объявлений прерван", e);
+            run.errors.add("Обход прерван: " + e.getMessage());
+            run.status = CrawlRunDTO.Status.FAILED;
+        }
+        run.finishedAt = LocalDateTime.now();
+        lastRun = run.toDto();
+        CrawlRunDTO result = lastRun;
+        log.info("Обход объявлений завершен: страниц {}, объявлений {}, новых {}, обновлено {}, без изменений {}, ошибок {}",
+            result.getPages(), result.getTotal(), result.getImported(), result.getUpdated(),
+            result.getUnchanged(), result.getFailed());
+    }
+
+    private void crawlUrl(Run run, String url) {
+        for (int page = 1; page <= maxPages; page++) {
+            String pageUrl = pageUrl(url, page);
+            CarImportResultDTO result = run.writer.getResult();
+            long totalBefore = result.getTotal();
+            long changedBefore = result.getImported() + result.getUpdated();
+            try {
+                // Обходу нужна текущая выдача, а не закэшированная ручными запросами
+                autoRuParser.parseCars(pageUrl, true, run.writer::add);
+                run.writer.flush();
+            } catch (RuntimeException e) {
+                log.warn("Не удалось разобрать страницу {}: {}", pageUrl, e.getMessage());
+                run.errors.add(pageUrl + ": " + e.getMessage());
+                return;
+            }
+            run.pages++;
+            lastRun = run.toDto();
+            // Пустая страница — конец выдачи; страница без изменений — дальше объявления, загруженные прошлыми обходами
+            if (result.getTotal() == totalBefore || result.getImported() + result.getUpdated() == changedBefore) {
+                return;
+            }
+        }
+    }
+
+    private static String pageUrl(String url, int page) {
+        return UriComponentsBuilder.fromHttpUrl(url)
+            .replaceQueryParam("page", page)
+            .build()
+            .toUriString();
+    }
+
+    // Состояние обхода; меняется только потоком обхода
+    private final class Run {
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final CarImportService.CarWriter writer = carImportService.newWriter();
+        private final List<String> errors = new ArrayList<>();
+        private CrawlRunDTO.Status status = CrawlRunDTO.Status.RUNNING;
+        private LocalDateTime finishedAt;
+        private int pages;
+
+        private CrawlRunDTO toDto() {
+            CarImportResultDTO result = writer.getResult();
+            CrawlRunDTO dto = new CrawlRunDTO();
+            dto.setStatus(status);
+            dto.setStartedAt(startedAt);
+            dto.setFinishedAt(finishedAt);
+            dto.setPages(pages);
+            dto.setTotal(result.getTotal());
+            dto.setImported(result.getImported());
+            dto.setUpdated(result.getUpdated());
+            dto.setUnchanged(result.getUnchanged());
+            dto.setFailed(result.getFailed());
+            dto.getErrors().addAll(errors);
+            result.getErrors().stream()
+                .limit(MAX_REPORTED_RECORD_ERRORS)
+                .forEach(error -> dto.getErrors().add("Объявление " + error.getLine() + ": " + error.getMessage()));
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.autobro.service;
+
+import com.autobro.dto.CarDTO;
+import com.autobro.dto.ParseJobDTO;
+import com.autobro.exception.NotFoundException;
+import com.autobro.exception.TooManyRequestsException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Фоновый парсинг auto.ru: запрос ставит задачу в очередь и сразу получает ее ID, а результат
+ * забирается опросом. Поток Tomcat не ждет парсинга (до parser.auto.ru.timeout).
+ * Задачи выполняются на ограниченном пуле потоков (parser.jobs.threads) с очередью
+ * parser.jobs.queue-capacity; при заполненной очереди новая задача отклоняется.
+ * Повторная отправка того же URL, пока задача с ним не завершена, возвращает существующую задачу.
+ * Результаты парсинга берутся из {@link ParserResultCache}, если задача отправлена без refresh.
+ * Завершенные задачи хранятся в памяти parser.jobs.result-ttl-minutes.
+ */
+@Slf4j
+@Service
+public class ParseJobService {
+
+    private final AutoRuParser autoRuParser;
+    private final Duration resultTtl;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    // Незавершенные задачи по типу и URL
+    private final Map<String, Job> inFlight = new ConcurrentHashMap<>();
+
+    public ParseJobService(
+            AutoRuParser autoRuParser,
+            @Value("${parser.jobs.threads:2}") int threads,
+            @Value("${parser.jobs.queue-capacity:20}") int queueCapacity,
+            @Value("${parser.jobs.result-ttl-minutes:30}") long resultTtlMinutes) {
+        this.autoRuParser = autoRuParser;
+        this.resultTtl = Duration.ofMinutes(resultTtlMinutes);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "parse-job-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Ставит задачу парсинга в очередь или возвращает незавершенную задачу с той же страницей:
+     * URL сравниваются после нормализации, как ключи кэша результатов парсера
+     */
+    public ParseJobDTO submit(ParseJobDTO.Type type, String url, boolean refresh) {
+        String key = type + " " + ParserResultCache.normalizeUrl(url) + (refresh ? " refresh" : "");
+        Job[] created = new Job[1];
+        Job job = inFlight.computeIfAbsent(key, k -> {
+            created[0] = new Job(type, url, refresh);
+            jobs.put(created[0].id, created[0]);
+            return created[0];
+        });
+        if (created[0] == null) {
+            return job.toDto();
+        }
+
+        try {
+            executor.execute(() -> run(key, job));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, job);
+            jobs.remove(job.id);
+            throw new TooManyRequestsException("Очередь парсинга заполнена, попробуйте позже");
+        }
+        log.info("Задача парсинга {} поставлена в очередь: {} {}", job.id, type, url);
+        return job.toDto();
+    }
+
+    public ParseJobDTO getJob(String id) {
+        Job job = jobs.get(id);
+        if (job == null || job.isExpired(resultTtl)) {
+            throw new NotFoundException("Задача парсинга не найдена: " + id);
+        }
+        return job.toDto();
+    }
+
+    @Scheduled(fixedDelayString = "${parser.jobs.cleanup-interval-ms:60000}")
+    public void removeExpiredJobs() {
+        jobs.values().removeIf(job -> job.isExpired(resultTtl));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(String key, Job job) {
+        job.startedAt = LocalDateTime.now();
+        job.status = ParseJobDTO.Status.RUNNING;
+        ParseJobDTO.Status status = ParseJobDTO.Status.FAILED;
+        try {
+            if (job.type == ParseJobDTO.Type.DETAILS) {
+                job.result = autoRuParser.parseCarDetails(job.url, job.refresh);
+            } else {
+                // Пока задача выполняется, опрос показывает уже полученные автомобили
+                List<CarDTO> cars = new CopyOnWriteArrayList<>();
+                job.result = cars;
+                Consumer<CarDTO> consumer = car -> {
+                    cars.add(car);
+                    job.parsed = cars.size();
+                };
+                if (job.type == ParseJobDTO.Type.FULL) {
+                    autoRuParser.parseCarsWithDetails(job.url, job.refresh, consumer);
+                } else {
+                    autoRuParser.parseCars(job.url, job.refresh, consumer);
+                }
+            }
+            status = ParseJobDTO.Status.DONE;
+        } catch (RuntimeException e) {
+            job.error = e.getMessage();
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            job.status = status;
+            inFlight.remove(key, job);
+        }
+    }
+
+    private static final class Job {
+        private final String id = UUID.randomUUID().toString();
+        private final ParseJobDTO.Type type;
+        private final String url;
+        private final boolean refresh;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        // Поля меняет поток задачи, читают потоки запросов; status записывается последним
+        private volatile ParseJobDTO.Status status = ParseJobDTO.Status.QUEUED;
+        private volatile Object result;
+        private volatile int parsed;
+        private volatile String error;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+
+        private Job(ParseJobDTO.Type type, String url, boolean refresh) {
+            this.type = type;
+            this.url = url;
+            this.refresh = refresh;
+        }
+
+        private boolean isExpired(Duration ttl) {
+            LocalDateTime finished = finishedAt;
+            return finished != null && finished.plus(ttl).isBefore(LocalDateTime.now());
+        }
+
+        private ParseJobDTO toDto() {
+            ParseJobDTO dto = new ParseJobDTO();
+            dto.setId(id);
+            dto.setType(type);
+            dto.setUrl(url);
+            dto.setStatus(status);
+            if (type != ParseJobDTO.Type.DETAILS) {
+                dto.setParsed(parsed);
+            }
+            dto.setResult(result);
+            dto.setError(error);
+            dto.setCreatedAt(createdAt);
+            dto.setStartedAt(startedAt);
+            dto.setFinishedAt(finishedAt);
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.autobro.service;
+
+import com.autobro.dto.ParserCacheStatsDTO;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш результатов парсинга auto.ru по нормализованному URL и режиму (список или страница автомобиля):
+ * повторный запрос того же URL в течение parser.cache.ttl-seconds не запускает браузер.
+ * Размер ограничен суммарным числом автомобилей во всех записях (parser.cache.max-cars),
+ * при превышении вытесняются давно не запрошенные записи. Одновременные запросы одного URL
+ * ждут один парсинг, а запрос с refresh парсит страницу заново и заменяет запись.
+ * Ошибки парсинга не кэшируются. Значения должны быть неизменяемыми: они отдаются всем запросам.
+ * Счетчики из {@link #getStats()} публикуются и как метрики parser.cache.*.
+ */
+@Slf4j
+@Component
+public class ParserResultCache implements MeterBinder {
+
+    public enum Mode {
+        LIST,
+        DETAILS
+    }
+
+    // Параметры, которые не меняют содержимое страницы (метки рекламных кампаний)
+    private static final String TRACKING_PARAMETER_PREFIX = "utm_";
+
+    private final long ttlNanos;
+    private final long maxCars;
+
+    // Записи в порядке обращения: первая — давно не запрошенная
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long cars;
+    // Парсинги, которые выполняются прямо сейчас: запросы того же URL ждут их результат
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong joined = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong loadFailures = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ParserResultCache(
+            @Value("${parser.cache.ttl-seconds:300}") long ttlSeconds,
+            @Value("${parser.cache.max-cars:5000}") long maxCars) {
+        this.ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+        this.maxCars = maxCars;
+    }
+
+    /**
+     * Возвращает результат из кэша или выполняет loader и кэширует результат
+     *
+     * @param refresh не брать результат из кэша (уже идущий парсинг того же URL все равно дожидается)
+     * @param loader парсинг страницы; выполняется в потоке вызывающего
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Mode mode, String url, boolean refresh, Supplier<T> loader) {
+        String key = mode + " " + normalizeUrl(url);
+        if (refresh) {
+            refreshes.incrementAndGet();
+        } else {
+            Object cached = lookup(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return (T) cached;
+            }
+            misses.incrementAndGet();
+        }
+
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            joined.incrementAndGet();
+            return (T) await(running);
+        }
+        try {
+            // Парсинг мог завершиться между проверкой кэша и регистрацией своего
+            Object cached = refresh ? null : lookup(key);
+            T value = cached != null ? (T) cached : loader.get();
+            if (cached == null) {
+                loads.incrementAndGet();
+                store(key, value);
+            }
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            loadFailures.incrementAndGet();
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        cars = 0;
+    }
+
+    public ParserCacheStatsDTO getStats() {
+        ParserCacheStatsDTO stats = new ParserCacheStatsDTO();
+        synchronized (this) {
+            stats.setEntries(entries.size());
+            stats.setCars(cars);
+        }
+        stats.setMaxCars(maxCars);
+        stats.setTtlSeconds(Duration.ofNanos(ttlNanos).toSeconds());
+        stats.setHits(hits.get());
+        stats.setMisses(misses.get());
+        long requests = stats.getHits() + stats.getMisses();
+        stats.setHitRate(requests > 0 ? (double) stats.getHits() / requests : 0);
+        stats.setRefreshes(refreshes.get());
+        stats.setJoined(joined.get());
+        stats.setLoads(loads.get());
+        stats.setLoadFailures(loadFailures.get());
+        stats.setEvictions(evictions.get());
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("parser.cache.requests", hits, AtomicLong::get)
+            .tag("result", "hit").register(registry);
+        FunctionCounter.builder("parser.cache.requests", misses, AtomicLong::get)
+            .tag("result", "miss").register(registry);
+        FunctionCounter.builder("parser.cache.requests", refreshes, AtomicLong::get)
+            .tag("result", "refresh").register(registry);
+        FunctionCounter.builder("parser.cache.joined", joined, AtomicLong::get)
+            .description("Запросы, дождавшиеся уже идущего парсинга того же URL").register(registry);
+        FunctionCounter.builder("parser.cache.loads", loads, AtomicLong::get)
+            .tag("result", "success").register(registry);
+        FunctionCounter.builder("parser.cache.loads", loadFailures, AtomicLong::get)
+            .tag("result", "failure").register(registry);
+        FunctionCounter.builder("parser.cache.evictions", evictions, AtomicLong::get).register(registry);
+        Gauge.builder("parser.cache.entries", this, cache -> cache.getStats().getEntries()).register(registry);
+        Gauge.builder("parser.cache.cars", this, cache -> cache.getStats().getCars()).register(registry);
+    }
+
+    /**
+     * URL без фрагмента, меток utm_* и порта по умолчанию, с хостом в нижнем регистре
+     * и параметрами, упорядоченными по имени: одна и та же страница дает один ключ
+     */
+    static String normalizeUrl(String url) {
+        UriComponents uri;
+        try {
+            uri = UriComponentsBuilder.fromUriString(url.trim()).build();
+        } catch (IllegalArgumentException e) {
+            return url.trim();
+        }
+        if (uri.getHost() == null) {
+            return url.trim();
+        }
+        String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase(Locale.ROOT) : "https";
+        int port = uri.getPort();
+        if (("http".equals(scheme) && port == 80) || ("https".equals(scheme) && port == 443)) {
+            port = -1;
+        }
+        Map<String, List<String>> sorted = new TreeMap<>(uri.getQueryParams());
+        sorted.keySet().removeIf(name -> name.toLowerCase(Locale.ROOT).startsWith(TRACKING_PARAMETER_PREFIX));
+        // Копия сохраняет порядок обхода TreeMap
+        MultiValueMap<String, String> query = new LinkedMultiValueMap<>(sorted);
+        return UriComponentsBuilder.newInstance()
+            .scheme(scheme)
+            .host(uri.getHost().toLowerCase(Locale.ROOT))
+            .port(port)
+            .path(uri.getPath() == null || uri.getPath().isEmpty() ? "/" : uri.getPath())
+            .queryParams(query)
+            .build()
+            .toUriString();
+    }
+
+    private synchronized Object lookup(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.storedAt() > ttlNanos) {
+            entries.remove(key);
+            cars -= entry.weight();
+            return null;
+        }
+        return entry.value();
+    }
+
+    private synchronized void store(String key, Object value) {
+        if (ttlNanos <= 0 || value == null) {
+            return;
+        }
+        int weight = value instanceof Collection<?> collection ? Math.max(collection.size(), 1) : 1;
+        if (weight > maxCars) {
+            return;
+        }
+        Entry previous = entries.put(key, new Entry(value, weight, System.nanoTime()));
+        if (previous != null) {
+            cars -= previous.weight();
+        }
+        cars += weight;
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (cars > maxCars && eldest.hasNext()) {
+            Entry evicted = eldest.next();
+            eldest.remove();
+            cars -= evicted.weight();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Вес — число автомобилей в результате (страница автомобиля — один)
+    private record Entry(Object value, int weight, long storedAt) {
+    }
+}
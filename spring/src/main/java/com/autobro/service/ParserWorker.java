@@ -0,0 +1,226 @@
+package com.autobro.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Постоянный процесс парсера (auto_ru_parser.js --worker) с уже запущенным браузером.
+ * Запросы и ответы передаются через stdin/stdout по одному JSON-объекту на строку:
+ * {"id": 1, "type": "details", "url": "..."} -> {"id": 1, "ok": true, "result": {...}}.
+ * Список приходит по одному элементу на строку ({"id": 1, "item": {...}}) до завершающего ответа с "ok".
+ * Одновременно выполняется не больше одного запроса — очередность обеспечивает {@link ParserWorkerPool}.
+ */
+@Slf4j
+final class ParserWorker {
+    private static final long STOP_TIMEOUT_SECONDS = 5;
+
+    private final int number;
+    private final Process process;
+    private final BufferedWriter input;
+    private final ObjectMapper objectMapper;
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+    private final long startedAt = System.nanoTime();
+
+    // Ожидаемый ответ: строки с другим id (ответы на запросы, не дождавшиеся результата) пропускаются
+    private volatile Pending pending;
+    private long nextId;
+    private int jobs;
+
+    private ParserWorker(int number, Process process, ObjectMapper objectMapper) {
+        this.number = number;
+        this.process = process;
+        this.objectMapper = objectMapper;
+        this.input = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Запускает процесс и ждет сообщения о готовности (браузер запущен)
+     */
+    static ParserWorker start(List<String> command, ObjectMapper objectMapper, int number, long startTimeout)
+            throws IOException, TimeoutException, InterruptedException {
+        Process process = new ProcessBuilder(command).start();
+        ParserWorker worker = new ParserWorker(number, process, objectMapper);
+        startThread("parser-worker-" + number + "-out", worker::readResponses);
+        startThread("parser-worker-" + number + "-err", () -> worker.drainErrors(process.getErrorStream()));
+        try {
+            worker.ready.get(startTimeout, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            worker.stop();
+            throw new IOException("Процесс парсера не запустился: " + e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException | InterruptedException e) {
+            worker.stop();
+            throw e;
+        }
+        log.info("Запущен процесс парсера #{} (pid {})", number, process.pid());
+        return worker;
+    }
+
+    /**
+     * Отправляет запрос и ждет ответ
+     *
+     * @param type list, details или ping
+     * @param items получает элементы списка по мере их чтения, в потоке чтения вывода процесса; может быть null
+     * @return завершающее сообщение ответа с полями ok, result, error
+     * @throws IOException если процесс завершился
+     * @throws TimeoutException если ответа нет дольше timeout — процесс после этого нужно остановить
+     * @throws RuntimeException исключение из items — процесс после этого нужно остановить
+     */
+    JsonNode request(String type, String url, Consumer<JsonNode> items, long timeout)
+            throws IOException, TimeoutException, InterruptedException {
+        long id = ++nextId;
+        if (!"ping".equals(type)) {
+            jobs++;
+        }
+        ObjectNode request = objectMapper.createObjectNode()
+            .put("id", id)
+            .put("type", type);
+        if (url != null) {
+            request.put("url", url);
+        }
+
+        CompletableFuture<JsonNode> response = new CompletableFuture<>();
+        pending = new Pending(id, response, items);
+        try {
+            if (!process.isAlive()) {
+                throw new IOException("Процесс парсера завершился");
+            }
+            input.write(objectMapper.writeValueAsString(request));
+            input.newLine();
+            input.flush();
+            return response.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e.getCause() instanceof IOException cause ? cause : new IOException(e.getCause());
+        } finally {
+            pending = null;
+        }
+    }
+
+    boolean isAlive() {
+        return process.isAlive();
+    }
+
+    int getJobs() {
+        return jobs;
+    }
+
+    int getNumber() {
+        return number;
+    }
+
+    /**
+     * Момент запуска процесса по System.nanoTime()
+     */
+    long getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * Завершается вместе с процессом; код завершения — {@link Process#exitValue()}
+     */
+    CompletableFuture<Process> onExit() {
+        return process.onExit();
+    }
+
+    /**
+     * Закрывает stdin (процесс сам закрывает браузер и завершается), а если не успел — завершает принудительно
+     */
+    void stop() {
+        try {
+            input.close();
+        } catch (IOException e) {
+            // Процесс уже завершился
+        }
+        process.onExit()
+            .orTimeout(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .exceptionally(e -> {
+                process.destroyForcibly();
+                return null;
+            });
+    }
+
+    private void readResponses() {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                handleLine(line);
+            }
+        } catch (IOException e) {
+            log.debug("Чтение вывода парсера #{} прервано: {}", number, e.getMessage());
+        }
+        IOException exited = new IOException("Процесс парсера завершился");
+        ready.completeExceptionally(exited);
+        Pending current = pending;
+        if (current != null) {
+            current.response().completeExceptionally(exited);
+        }
+    }
+
+    private void handleLine(String line) {
+        JsonNode message;
+        try {
+            message = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            log.debug("Парсер #{}: {}", number, line);
+            return;
+        }
+        if ("ready".equals(message.path("type").asText())) {
+            ready.complete(null);
+            return;
+        }
+        Pending current = pending;
+        if (current == null || message.path("id").asLong(-1) != current.id() || current.response().isDone()) {
+            return;
+        }
+        JsonNode item = message.get("item");
+        if (item == null) {
+            current.response().complete(message);
+        } else if (current.items() != null) {
+            try {
+                current.items().accept(item);
+            } catch (RuntimeException e) {
+                current.response().completeExceptionally(e);
+            }
+        }
+    }
+
+    private void drainErrors(InputStream errors) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(errors, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                log.debug("Парсер #{}: {}", number, line);
+            }
+        } catch (IOException e) {
+            // Процесс завершился
+        }
+    }
+
+    private record Pending(long id, CompletableFuture<JsonNode> response, Consumer<JsonNode> items) {
+    }
+
+    private static void startThread(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
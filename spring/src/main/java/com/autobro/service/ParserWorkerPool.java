@@ -0,0 +1,232 @@
+package com.autobro.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Пул постоянных процессов парсера auto.ru. Каждый процесс держит запущенный браузер, поэтому
+ * запрос не ждет старта Node.js и браузера. Процессы запускаются по мере надобности, не больше
+ * parser.worker.pool-size одновременно. Процесс заменяется новым после parser.worker.max-jobs запросов,
+ * при падении, превышении таймаута запроса или неудачной проверке простаивающих процессов (ping).
+ * Запросы к одному хосту разносятся во времени: не больше parser.rate-limit.requests-per-second в секунду.
+ * Команда запуска настраивается (parser.worker.command, parser.auto.ru.script.path), поэтому вместо
+ * настоящего парсера можно подключить scripts/fake_parser_worker.js.
+ * Метрики: parser.requests (время запроса с ожиданием очереди, теги type и outcome),
+ * parser.worker.starts, parser.worker.exits (тег code — код завершения процесса),
+ * parser.worker.lifetime (время жизни процесса) и parser.workers.idle.
+ */
+@Slf4j
+@Component
+public class ParserWorkerPool {
+    private static final long PING_TIMEOUT_MS = 5_000;
+
+    private final List<String> command;
+    private final ObjectMapper objectMapper;
+    private final int maxJobs;
+    private final long requestTimeout;
+    private final long startTimeout;
+    private final HostRateLimiter rateLimiter;
+    private final MeterRegistry meterRegistry;
+
+    // Разрешение — право на один процесс: занятый запросом или простаивающий в idle
+    private final Semaphore permits;
+    // Последний освободившийся процесс берется первым, редко используемые проверяет проверка здоровья
+    private final Deque<ParserWorker> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger workerNumbers = new AtomicInteger();
+    private volatile boolean closed;
+
+    public ParserWorkerPool(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${parser.worker.command:node}") String nodeCommand,
+            @Value("${parser.auto.ru.script.path:./scripts/auto_ru_parser.js}") String scriptPath,
+            @Value("${parser.worker.pool-size:2}") int poolSize,
+            @Value("${parser.worker.max-jobs:100}") int maxJobs,
+            @Value("${parser.auto.ru.timeout:60000}") long requestTimeout,
+            @Value("${parser.worker.start-timeout:30000}") long startTimeout,
+            @Value("${parser.rate-limit.requests-per-second:2}") double requestsPerSecond) {
+        this.objectMapper = objectMapper;
+        this.command = List.of(nodeCommand, scriptPath, "--worker");
+        this.permits = new Semaphore(poolSize);
+        this.maxJobs = maxJobs;
+        this.requestTimeout = requestTimeout;
+        this.startTimeout = startTimeout;
+        this.rateLimiter = new HostRateLimiter(requestsPerSecond);
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("parser.workers.idle", idle, Deque::size)
+            .description("Запущенные процессы парсера, ожидающие запроса")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Выполняет запрос на свободном процессе
+     *
+     * @param type list (список автомобилей) или details (страница автомобиля)
+     * @param items получает элементы списка по мере разбора страницы; может быть null
+     * @return результат парсинга; для списка пустой — элементы передаются в items
+     */
+    public JsonNode execute(String type, String url, Consumer<JsonNode> items) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            if (!permits.tryAcquire(requestTimeout, TimeUnit.MILLISECONDS)) {
+                outcome = "busy";
+                throw new RuntimeException("Все процессы парсера заняты, попробуйте позже");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            recordRequest(sample, type, "interrupted");
+            throw new RuntimeException("Прервано ожидание парсера", e);
+        } catch (RuntimeException e) {
+            recordRequest(sample, type, outcome);
+            throw e;
+        }
+
+        ParserWorker worker = null;
+        boolean healthy = false;
+        try {
+            worker = borrow();
+            // Пауза для хоста берется уже с процессом на руках: иначе ожидающие разрешения запросы
+            // расходовали бы слоты ограничителя, и процесс простаивал бы, пока не наступит их время
+            rateLimiter.acquire(url);
+            JsonNode response = worker.request(type, url, items, requestTimeout);
+            // Ошибка разбора страницы не означает проблем с процессом — он остается в пуле
+            healthy = true;
+            if (!response.path("ok").asBoolean()) {
+                outcome = "parser_error";
+                throw new RuntimeException("Ошибка парсера: " + response.path("error").asText());
+            }
+            outcome = "success";
+            return response.path("result");
+        } catch (TimeoutException e) {
+            outcome = "timeout";
+            throw new RuntimeException("Парсинг превысил таймаут: " + requestTimeout + " мс");
+        } catch (IOException e) {
+            outcome = "process_error";
+            throw new RuntimeException("Ошибка процесса парсера: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = "interrupted";
+            throw new RuntimeException("Прервано ожидание парсера", e);
+        } finally {
+            if (worker != null) {
+                giveBack(worker, healthy);
+            }
+            permits.release();
+            recordRequest(sample, type, outcome);
+        }
+    }
+
+    /**
+     * Проверяет простаивающие процессы и останавливает не ответившие; новые запустятся при следующих запросах
+     */
+    @Scheduled(fixedDelayString = "${parser.worker.health-check-interval-ms:60000}")
+    public void checkHealth() {
+        for (int i = idle.size(); i > 0 && permits.tryAcquire(); i--) {
+            ParserWorker worker = idle.pollLast();
+            boolean healthy = false;
+            try {
+                if (worker == null) {
+                    return;
+                }
+                healthy = worker.request("ping", null, null, PING_TIMEOUT_MS).path("ok").asBoolean();
+            } catch (IOException | TimeoutException e) {
+                log.warn("Процесс парсера #{} не ответил на проверку: {}", worker.getNumber(), e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                if (worker != null) {
+                    giveBack(worker, healthy);
+                }
+                permits.release();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        closed = true;
+        ParserWorker worker;
+        while ((worker = idle.pollFirst()) != null) {
+            worker.stop();
+        }
+    }
+
+    private ParserWorker borrow() throws IOException, TimeoutException, InterruptedException {
+        ParserWorker worker;
+        while ((worker = idle.pollFirst()) != null) {
+            if (worker.isAlive()) {
+                return worker;
+            }
+            log.warn("Процесс парсера #{} завершился, запускаем новый", worker.getNumber());
+            worker.stop();
+        }
+        try {
+            worker = ParserWorker.start(command, objectMapper, workerNumbers.incrementAndGet(), startTimeout);
+        } catch (IOException | TimeoutException e) {
+            countStart("failure");
+            throw e;
+        }
+        countStart("success");
+        long startedAt = worker.getStartedAt();
+        worker.onExit().thenAccept(process -> {
+            Counter.builder("parser.worker.exits")
+                .description("Завершения процессов парсера по коду завершения")
+                .tag("code", Integer.toString(process.exitValue()))
+                .register(meterRegistry)
+                .increment();
+            Timer.builder("parser.worker.lifetime")
+                .description("Время жизни процесса парсера от запуска до завершения")
+                .register(meterRegistry)
+                .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        });
+        return worker;
+    }
+
+    private void giveBack(ParserWorker worker, boolean healthy) {
+        if (healthy && !closed && worker.isAlive() && worker.getJobs() < maxJobs) {
+            idle.offerFirst(worker);
+            return;
+        }
+        if (healthy && worker.getJobs() >= maxJobs) {
+            log.info("Процесс парсера #{} выполнил {} запросов и будет перезапущен", worker.getNumber(), worker.getJobs());
+        }
+        worker.stop();
+    }
+
+    private void recordRequest(Timer.Sample sample, String type, String outcome) {
+        sample.stop(Timer.builder("parser.requests")
+            .description("Запросы к парсеру, включая ожидание свободного процесса")
+            .tag("type", type)
+            .tag("outcome", outcome)
+            .register(meterRegistry));
+    }
+
+    private void countStart(String outcome) {
+        Counter.builder("parser.worker.starts")
+            .description("Запуски процессов парсера")
+            .tag("outcome", outcome)
+            .register(meterRegistry)
+            .increment();
+    }
+}
@@ -4,17 +4,38 @@ import com.autobro.model.Photo;
 import com.autobro.repository.PhotoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 @Service
 public class PhotoService {
     private final PhotoRepository photoRepository;
+    private final ThumbnailService thumbnailService;
 
     @Autowired
-    public PhotoService(PhotoRepository photoRepository) {
+    public PhotoService(PhotoRepository photoRepository, ThumbnailService thumbnailService) {
         this.photoRepository = photoRepository;
+        this.thumbnailService = thumbnailService;
     }
 
     public Photo save(Photo photo) {
-        return photoRepository.save(photo);
+        boolean isNew = photo.getId() == null;
+        Photo saved = photoRepository.save(photo);
+        if (isNew) {
+            thumbnailService.scheduleVariants(saved);
+        }
+        return saved;
+    }
+
+    /**
+     * Сохраняет фотографии одной транзакцией: вставки уходят в базу пачкой
+     */
+    @Transactional
+    public List<Photo> saveAll(List<Photo> photos) {
+        List<Photo> newPhotos = photos.stream().filter(photo -> photo.getId() == null).toList();
+        List<Photo> saved = photoRepository.saveAll(photos);
+        newPhotos.forEach(thumbnailService::scheduleVariants);
+        return saved;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,366 @@
+package com.autobro.service;
+
+import com.autobro.dto.TechnicalSpecDTO;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Извлечение технических характеристик из текста объявления (описание, строки «Двигатель», «Коробка»).
+ * Текст нормализуется один раз (нижний регистр, «ё» -> «е», пробелы схлопываются) и просматривается
+ * за один проход {@link KeywordMatcher}: ищутся названия топлива, трансмиссии и привода, а также единицы
+ * и обозначения рядом с числами («л», «л.с.», «кВт», «ступ», «акпп» ...) — число читается прямо возле
+ * найденной единицы, без регулярных выражений.
+ * Если в тексте несколько значений одной характеристики, выбирается значение с наивысшим приоритетом
+ * (rank в {@link #KEYWORDS}), а для чисел — первое подходящее по тексту.
+ * Класс не хранит состояния и безопасен для использования из нескольких потоков.
+ */
+final class TechnicalSpecExtractor {
+    private static final double KW_TO_HP = 1.35962;
+    private static final int MIN_GEARS = 3;
+    private static final int MAX_GEARS = 12;
+    // Ограничение длины числа: значение должно поместиться в long без потери точности в double
+    private static final int MAX_DIGITS = 9;
+
+    private enum Field {
+        FUEL,
+        TRANSMISSION,
+        DRIVE,
+        // 2.5 л, 2,0л, 1.6l; расход («4.5 л на 100 км», «6 л/100») не считается объемом
+        ENGINE_VOLUME,
+        // 1.8 tsi, 1.6 tdci, 2.0 t-gdi
+        ENGINE_CODE,
+        // 1998 см3, 1598 куб. см, 2494 cc
+        DISPLACEMENT,
+        // 181 л.с., 249 лс, 150 л. с., 300 hp
+        HORSE_POWER,
+        KILOWATTS,
+        // 8 ступеней, 6-ступенчатая, 7-скоростной, 6 speed, 5мкпп
+        GEARS_BEFORE,
+        // акпп 8, акпп-6, dsg-7
+        GEARS_AFTER
+    }
+
+    // wholeWord: слово не должно быть частью другого слова («электро», но не «электропакет»);
+    // цифры границей слова не считаются («6мкпп», «180hp»)
+    private record Keyword(Field field, int rank, String value, boolean wholeWord) {
+    }
+
+    private static final KeywordMatcher<Keyword> KEYWORDS = new KeywordMatcher<>(List.of(
+        text("бензин", Field.FUEL, 0, "Бензин", false),
+        text("дизель", Field.FUEL, 1, "Дизель", false),
+        text("электро", Field.FUEL, 2, "Электро", true),
+        text("электромобиль", Field.FUEL, 2, "Электро", false),
+        text("гибрид", Field.FUEL, 3, "Гибрид", false),
+        text("механика", Field.TRANSMISSION, 0, "Механика", false),
+        text("механическ", Field.TRANSMISSION, 0, "Механика", false),
+        text("мкпп", Field.TRANSMISSION, 0, "Механика", false),
+        text("автомат", Field.TRANSMISSION, 1, "Автомат", false),
+        text("акпп", Field.TRANSMISSION, 1, "Автомат", false),
+        text("робот", Field.TRANSMISSION, 2, "Робот", false),
+        text("dsg", Field.TRANSMISSION, 2, "Робот", true),
+        text("s tronic", Field.TRANSMISSION, 2, "Робот", true),
+        text("вариатор", Field.TRANSMISSION, 3, "Вариатор", false),
+        text("cvt", Field.TRANSMISSION, 3, "Вариатор", true),
+        text("передний привод", Field.DRIVE, 0, "Передний", false),
+        text("fwd", Field.DRIVE, 0, "Передний", true),
+        text("задний привод", Field.DRIVE, 1, "Задний", false),
+        text("rwd", Field.DRIVE, 1, "Задний", true),
+        text("полный привод", Field.DRIVE, 2, "Полный", false),
+        text("4wd", Field.DRIVE, 2, "Полный", true),
+        text("awd", Field.DRIVE, 2, "Полный", true),
+        unit("л", Field.ENGINE_VOLUME, false),
+        unit("l", Field.ENGINE_VOLUME, true),
+        unit("tsi", Field.ENGINE_CODE, true),
+        unit("tfsi", Field.ENGINE_CODE, true),
+        unit("fsi", Field.ENGINE_CODE, true),
+        unit("tdi", Field.ENGINE_CODE, true),
+        unit("tdci", Field.ENGINE_CODE, true),
+        unit("crdi", Field.ENGINE_CODE, true),
+        unit("gdi", Field.ENGINE_CODE, true),
+        unit("t-gdi", Field.ENGINE_CODE, true),
+        unit("mpi", Field.ENGINE_CODE, true),
+        unit("turbo", Field.ENGINE_CODE, true),
+        unit("см3", Field.DISPLACEMENT, false),
+        unit("см³", Field.DISPLACEMENT, false),
+        unit("куб", Field.DISPLACEMENT, false),
+        unit("cc", Field.DISPLACEMENT, true),
+        unit("лс", Field.HORSE_POWER, false),
+        unit("л.с", Field.HORSE_POWER, false),
+        unit("л. с", Field.HORSE_POWER, false),
+        unit("hp", Field.HORSE_POWER, true),
+        unit("квт", Field.KILOWATTS, false),
+        unit("ступ", Field.GEARS_BEFORE, false),
+        unit("скорост", Field.GEARS_BEFORE, false),
+        unit("speed", Field.GEARS_BEFORE, false),
+        unit("акпп", Field.GEARS_BEFORE, false),
+        unit("мкпп", Field.GEARS_BEFORE, false),
+        unit("акпп", Field.GEARS_AFTER, false),
+        unit("мкпп", Field.GEARS_AFTER, false),
+        unit("кпп", Field.GEARS_AFTER, false),
+        unit("dsg", Field.GEARS_AFTER, true)
+    ));
+
+    private TechnicalSpecExtractor() {
+    }
+
+    static TechnicalSpecDTO extract(String text) {
+        TechnicalSpecDTO spec = new TechnicalSpecDTO();
+        if (text == null || text.isBlank()) {
+            return spec;
+        }
+        Scan scan = new Scan(normalize(text));
+        KEYWORDS.match(scan.text, scan);
+
+        spec.setFuelType(scan.value(Field.FUEL));
+        spec.setTransmissionType(scan.value(Field.TRANSMISSION));
+        spec.setDriveType(scan.value(Field.DRIVE));
+        spec.setEngineVolume(scan.engineVolume != null ? scan.engineVolume
+            : scan.codeVolume != null ? scan.codeVolume
+            : scan.displacement);
+        if (scan.horsePower != null) {
+            spec.setHorsePower(scan.horsePower);
+        } else if (scan.kilowatts != null) {
+            spec.setHorsePower((int) Math.round(scan.kilowatts * KW_TO_HP));
+        }
+        spec.setGears(scan.gears);
+        return spec;
+    }
+
+    /**
+     * Нижний регистр, «ё» -> «е», любые пробельные символы (включая неразрывный пробел) -> один пробел
+     */
+    static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                space = true;
+                continue;
+            }
+            if (space && !normalized.isEmpty()) {
+                normalized.append(' ');
+            }
+            space = false;
+            c = Character.toLowerCase(c);
+            normalized.append(c == 'ё' ? 'е' : c);
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Состояние одного просмотра текста: найденные значения характеристик
+     */
+    private static final class Scan implements KeywordMatcher.MatchConsumer<Keyword> {
+        private final String text;
+        private final Keyword[] best = new Keyword[Field.DRIVE.ordinal() + 1];
+        private Double engineVolume;
+        private Double codeVolume;
+        private Double displacement;
+        private Integer horsePower;
+        private Double kilowatts;
+        private Integer gears;
+
+        private Scan(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public void accept(Keyword keyword, int start, int end) {
+            if (keyword.wholeWord() && !isWordBoundary(start, end)) {
+                return;
+            }
+            switch (keyword.field()) {
+                case FUEL, TRANSMISSION, DRIVE -> {
+                    Keyword current = best[keyword.field().ordinal()];
+                    if (current == null || keyword.rank() < current.rank()) {
+                        best[keyword.field().ordinal()] = keyword;
+                    }
+                }
+                case ENGINE_VOLUME -> {
+                    if (engineVolume == null && !isConsumption(end)) {
+                        engineVolume = decimalBefore(start, false);
+                    }
+                }
+                case ENGINE_CODE -> {
+                    if (codeVolume == null) {
+                        codeVolume = decimalBefore(start, true);
+                    }
+                }
+                case DISPLACEMENT -> {
+                    if (displacement == null) {
+                        long cc = integerBefore(start, 3, 4, false);
+                        // Объем в литрах с одним знаком после запятой, как его указывают в объявлениях: 1998 -> 2.0
+                        displacement = cc < 0 ? null : Math.round(cc / 100.0) / 10.0;
+                    }
+                }
+                case HORSE_POWER -> {
+                    if (horsePower == null) {
+                        long hp = integerBefore(start, 1, MAX_DIGITS, false);
+                        horsePower = hp < 0 ? null : (int) hp;
+                    }
+                }
+                case KILOWATTS -> {
+                    if (kilowatts == null) {
+                        kilowatts = decimalBefore(start, false);
+                        if (kilowatts == null) {
+                            long kw = integerBefore(start, 1, MAX_DIGITS, false);
+                            kilowatts = kw < 0 ? null : (double) kw;
+                        }
+                    }
+                }
+                case GEARS_BEFORE -> {
+                    if (gears == null) {
+                        gears = validGears(integerBefore(start, 1, 2, true));
+                    }
+                }
+                case GEARS_AFTER -> {
+                    if (gears == null) {
+                        gears = validGears(gearsAfter(end));
+                    }
+                }
+            }
+        }
+
+        private String value(Field field) {
+            Keyword keyword = best[field.ordinal()];
+            return keyword == null ? null : keyword.value();
+        }
+
+        private boolean isWordBoundary(int start, int end) {
+            return (start == 0 || !Character.isLetter(text.charAt(start - 1)))
+                && (end == text.length() || !Character.isLetter(text.charAt(end)));
+        }
+
+        // «л на 100», «л/100» после числа — расход топлива
+        private boolean isConsumption(int end) {
+            int pos = skipSpace(end);
+            if (text.startsWith("на", pos)) {
+                pos = skipSpace(pos + 2);
+            } else if (text.startsWith("/", pos)) {
+                pos = skipSpace(pos + 1);
+            } else {
+                return false;
+            }
+            return text.startsWith("100", pos);
+        }
+
+        /**
+         * Десятичное число (2.5, 2,0), которое заканчивается перед позицией (допускается один пробел)
+         *
+         * @param singleDigits только одна цифра до и после разделителя, перед числом не должно быть точки или запятой
+         */
+        private Double decimalBefore(int pos, boolean singleDigits) {
+            int fractionEnd = skipSpaceBack(pos);
+            int fractionStart = digitsStart(fractionEnd);
+            if (fractionStart == fractionEnd || fractionStart < 2 || !isSeparator(text.charAt(fractionStart - 1))) {
+                return null;
+            }
+            int integerEnd = fractionStart - 1;
+            int integerStart = digitsStart(integerEnd);
+            int integerDigits = integerEnd - integerStart;
+            int fractionDigits = fractionEnd - fractionStart;
+            if (integerDigits == 0 || integerDigits + fractionDigits > MAX_DIGITS) {
+                return null;
+            }
+            if (singleDigits && (integerDigits != 1 || fractionDigits != 1
+                    || integerStart > 0 && isSeparator(text.charAt(integerStart - 1)))) {
+                return null;
+            }
+            long scale = 1;
+            for (int i = 0; i < fractionDigits; i++) {
+                scale *= 10;
+            }
+            // Одно деление точных целых округляется так же, как Double.parseDouble
+            return (parseDigits(integerStart, integerEnd) * scale + parseDigits(fractionStart, fractionEnd)) / (double) scale;
+        }
+
+        /**
+         * Целое число из minDigits..maxDigits цифр перед позицией (допускается пробел, для передач — и дефис)
+         *
+         * @return число или -1
+         */
+        private long integerBefore(int pos, int minDigits, int maxDigits, boolean allowDash) {
+            int end = skipSpaceBack(pos);
+            if (allowDash && end > 0 && text.charAt(end - 1) == '-') {
+                end = skipSpaceBack(end - 1);
+            }
+            int start = digitsStart(end);
+            int digits = end - start;
+            if (digits < minDigits || digits > maxDigits) {
+                return -1;
+            }
+            // 1.6 мкпп, 2.0 куб — это дробная часть другого числа, а не число передач или объем в см³
+            if (maxDigits < MAX_DIGITS && start > 0 && isSeparator(text.charAt(start - 1))) {
+                return -1;
+            }
+            return parseDigits(start, end);
+        }
+
+        // акпп 8, акпп-6, dsg 7: одна-две цифры, за которыми нет продолжения числа
+        private long gearsAfter(int pos) {
+            int start = skipSpace(pos);
+            if (start < text.length() && text.charAt(start) == '-') {
+                start = skipSpace(start + 1);
+            }
+            int end = start;
+            while (end < text.length() && isDigit(text.charAt(end))) {
+                end++;
+            }
+            int digits = end - start;
+            if (digits < 1 || digits > 2) {
+                return -1;
+            }
+            if (end + 1 < text.length() && isSeparator(text.charAt(end)) && isDigit(text.charAt(end + 1))) {
+                return -1;
+            }
+            return parseDigits(start, end);
+        }
+
+        private int digitsStart(int end) {
+            int start = end;
+            while (start > 0 && isDigit(text.charAt(start - 1))) {
+                start--;
+            }
+            return start;
+        }
+
+        private long parseDigits(int start, int end) {
+            long value = 0;
+            for (int i = start; i < end; i++) {
+                value = value * 10 + (text.charAt(i) - '0');
+            }
+            return value;
+        }
+
+        // Текст нормализован: пробелы не идут подряд
+        private int skipSpaceBack(int pos) {
+            return pos > 0 && text.charAt(pos - 1) == ' ' ? pos - 1 : pos;
+        }
+
+        private int skipSpace(int pos) {
+            return pos < text.length() && text.charAt(pos) == ' ' ? pos + 1 : pos;
+        }
+    }
+
+    private static Integer validGears(long gears) {
+        return gears >= MIN_GEARS && gears <= MAX_GEARS ? (int) gears : null;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == '.' || c == ',';
+    }
+
+    private static Map.Entry<String, Keyword> text(String word, Field field, int rank, String value, boolean wholeWord) {
+        return Map.entry(word, new Keyword(field, rank, value, wholeWord));
+    }
+
+    private static Map.Entry<String, Keyword> unit(String word, Field field, boolean wholeWord) {
+        return Map.entry(word, new Keyword(field, 0, null, wholeWord));
+    }
+}
@@ -0,0 +1,135 @@
+package com.autobro.service;
+
+import com.autobro.model.Photo;
+import com.autobro.repository.PhotoRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Генерация уменьшенных копий загруженных фотографий: миниатюры для карточек каталога
+ * (app.upload.thumbnail) и среднего размера для карточки автомобиля (app.upload.medium).
+ * Копии создаются в фоне на ограниченном пуле потоков после коммита транзакции, в которой
+ * сохранена фотография; при переполнении очереди задача выполняется в вызывающем потоке.
+ * Пока копии не готовы (или формат не поддерживается ImageIO, например webp), в DTO отдается оригинал,
+ * поэтому готовые копии меняют версию каталога ({@link CatalogVersion}).
+ */
+@Slf4j
+@Service
+public class ThumbnailService {
+    static final String THUMBNAIL_SUFFIX = "_thumb.jpg";
+    static final String MEDIUM_SUFFIX = "_medium.jpg";
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final PhotoRepository photoRepository;
+    private final CatalogVersion catalogVersion;
+    private final String uploadPath;
+    private final int thumbnailWidth;
+    private final int thumbnailHeight;
+    private final int mediumWidth;
+    private final int mediumHeight;
+    private final ThreadPoolExecutor executor;
+
+    public ThumbnailService(
+            PhotoRepository photoRepository,
+            CatalogVersion catalogVersion,
+            @Value("${app.upload.path}") String uploadPath,
+            @Value("${app.upload.thumbnail.width:300}") int thumbnailWidth,
+            @Value("${app.upload.thumbnail.height:200}") int thumbnailHeight,
+            @Value("${app.upload.medium.width:1024}") int mediumWidth,
+            @Value("${app.upload.medium.height:768}") int mediumHeight,
+            @Value("${app.upload.resize.threads:2}") int threads,
+            @Value("${app.upload.resize.queue-capacity:200}") int queueCapacity) {
+        this.photoRepository = photoRepository;
+        this.catalogVersion = catalogVersion;
+        this.uploadPath = uploadPath;
+        this.thumbnailWidth = thumbnailWidth;
+        this.thumbnailHeight = thumbnailHeight;
+        this.mediumWidth = mediumWidth;
+        this.mediumHeight = mediumHeight;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "photo-resize-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Ставит в очередь генерацию копий фотографии после коммита текущей транзакции
+     */
+    public void scheduleVariants(Photo photo) {
+        Long photoId = photo.getId();
+        String url = photo.getUrl();
+        AfterCommit.run(() -> executor.execute(() -> generateVariants(photoId, url)));
+    }
+
+    private void generateVariants(Long photoId, String url) {
+        Path original = toPath(url);
+        String mediumUrl = variantUrl(url, MEDIUM_SUFFIX);
+        String thumbnailUrl = variantUrl(url, THUMBNAIL_SUFFIX);
+        try {
+            // Файл хранилища мог уже загружаться для другой фотографии — его копии готовы
+            if (Files.exists(toPath(mediumUrl)) && Files.exists(toPath(thumbnailUrl))) {
+                if (photoRepository.updateVariantUrls(photoId, thumbnailUrl, mediumUrl) > 0) {
+                    catalogVersion.changed();
+                }
+                return;
+            }
+
+            BufferedImage image = ImageProcessing.read(original, mediumWidth, mediumHeight);
+            if (image == null) {
+                log.debug("Формат фото {} не поддерживается, копии не создаются", url);
+                return;
+            }
+
+            // Миниатюра считается из средней копии, а не из оригинала — это заметно быстрее
+            BufferedImage medium = ImageProcessing.resize(image, mediumWidth, mediumHeight, false);
+            BufferedImage thumbnail = ImageProcessing.resize(medium, thumbnailWidth, thumbnailHeight, false);
+            ImageProcessing.write(medium, "jpeg", JPEG_QUALITY, toPath(mediumUrl));
+            ImageProcessing.write(thumbnail, "jpeg", JPEG_QUALITY, toPath(thumbnailUrl));
+
+            // Фото могли удалить, пока копии создавались: если вместе с ним удален и оригинал,
+            // файлы копий не нужны (копии общего файла хранилища остаются для других фотографий)
+            if (photoRepository.updateVariantUrls(photoId, thumbnailUrl, mediumUrl) > 0) {
+                catalogVersion.changed();
+            } else if (!Files.exists(original)) {
+                Files.deleteIfExists(toPath(mediumUrl));
+                Files.deleteIfExists(toPath(thumbnailUrl));
+            }
+        } catch (Exception e) {
+            log.warn("Не удалось создать копии фото {}: {}", url, e.getMessage());
+        }
+    }
+
+    // /uploads/cars/1/abc.png -> /uploads/cars/1/abc_thumb.jpg
+    static String variantUrl(String url, String suffix) {
+        int slash = url.lastIndexOf('/');
+        int dot = url.lastIndexOf('.');
+        String base = dot > slash ? url.substring(0, dot) : url;
+        return base + suffix;
+    }
+
+    private Path toPath(String url) {
+        return Paths.get(uploadPath, url.replace("/uploads/", ""));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -12,18 +12,18 @@ DROP TABLE IF EXISTS equipment CASCADE;
 -- Создание таблиц c нужной структурой
 CREATE TABLE IF NOT EXISTS body_types (
                                           id SERIAL PRIMARY KEY,
-                                          name VARCHAR(50) NOT NULL
+                                          name VARCHAR(50) NOT NULL UNIQUE
 );
 
 CREATE TABLE IF NOT EXISTS colors (
                                       id SERIAL PRIMARY KEY,
-                                      name VARCHAR(50) NOT NULL,
+                                      name VARCHAR(50) NOT NULL UNIQUE,
                                       hex_code VARCHAR(7) NOT NULL
 );
 
 CREATE TABLE IF NOT EXISTS safety_features (
                                                id SERIAL PRIMARY KEY,
-                                               name VARCHAR(100) NOT NULL,
+                                               name VARCHAR(100) NOT NULL UNIQUE,
                                                description TEXT,
                                                feature_type VARCHAR(50) NOT NULL
 );
@@ -240,3 +240,22 @@ INSERT INTO car_photos (id, car_id, url, main_photo) VALUES
 (17, 6, 'https://placehold.co/600x400/0000cc/white?text=Kia+K5+2022+Вид+сбоку', false),
 (18, 6, 'https://placehold.co/600x400/0000cc/white?text=Kia+K5+2022+Вид+сзади', false);
 
+
+-- Последовательности ID с шагом 50, как allocationSize в маппинге сущностей (оптимизатор pooled-lo),
+-- начиная после заполненных выше ID; то же для существующей базы делает db/pooled-sequences.sql.
+-- Шаг меняется только здесь: вставки выше берут ID из последовательностей по одному.
+ALTER SEQUENCE body_types_id_seq INCREMENT BY 50;
+ALTER SEQUENCE colors_id_seq INCREMENT BY 50;
+ALTER SEQUENCE safety_features_id_seq INCREMENT BY 50;
+ALTER SEQUENCE equipment_id_seq INCREMENT BY 50;
+ALTER SEQUENCE cars_id_seq INCREMENT BY 50;
+ALTER SEQUENCE car_tech_specs_id_seq INCREMENT BY 50;
+ALTER SEQUENCE car_photos_id_seq INCREMENT BY 50;
+
+SELECT setval('body_types_id_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM body_types), false);
+SELECT setval('colors_id_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM colors), false);
+SELECT setval('safety_features_id_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM safety_features), false);
+SELECT setval('equipment_id_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM equipment), false);
+SELECT setval('cars_id_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM cars), false);
+SELECT setval('car_tech_specs_id_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM car_tech_specs), false);
+SELECT setval('car_photos_id_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM car_photos), false);
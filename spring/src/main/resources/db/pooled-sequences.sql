@@ -0,0 +1,20 @@
+-- Переход ID сущностей с IDENTITY/SERIAL на последовательности с шагом 50 (allocationSize в маппинге,
+-- оптимизатор pooled-lo). Выполнить один раз на существующей базе до запуска новой версии приложения:
+-- Hibernate при старте сверяет шаг последовательностей с маппингом.
+--
+-- Значение последовательности — начало блока из 50 ID: приложение берет блок целиком, а вставки
+-- через DEFAULT nextval(...) используют одно значение из блока, поэтому ID не пересекаются.
+DO $$
+DECLARE
+    t text;
+BEGIN
+    FOREACH t IN ARRAY ARRAY['body_types', 'colors', 'safety_features', 'equipment',
+                             'cars', 'car_tech_specs', 'car_photos', 'orders'] LOOP
+        -- Для identity-колонки вместе с ней удаляется и ее последовательность, для serial ничего не происходит
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP IDENTITY IF EXISTS', t);
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I', t || '_id_seq');
+        EXECUTE format('ALTER SEQUENCE %I INCREMENT BY 50 OWNED BY %I.id', t || '_id_seq', t);
+        EXECUTE format('SELECT setval(%L, (SELECT COALESCE(MAX(id), 0) + 1 FROM %I), false)', t || '_id_seq', t);
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id SET DEFAULT nextval(%L)', t, t || '_id_seq');
+    END LOOP;
+END $$;
@@ -0,0 +1,156 @@
+package com.autobro.service;
+
+import com.autobro.dto.CarFilterDTO;
+import com.autobro.repository.CarRepository;
+import com.autobro.repository.CarSortField;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Индекс в памяти (app.search.in-memory.enabled=true) и SQL-поиск (false) возвращают одинаковые
+ * страницы ID при одних и тех же фильтрах и сортировках, включая незаданные значения и равные
+ * значения поля сортировки. CarService выбирает между этими реализациями по флагу,
+ * поэтому обе сравниваются в одном контексте с включенным индексом.
+ */
+@SpringBootTest(properties = "app.search.in-memory.enabled=true")
+@ActiveProfiles("test")
+class CarSearchIndexConsistencyTest {
+    private static final int CARS = 60;
+    private static final int PAGE_SIZE = 7;
+    private static final String[] MAKES = {"Audi", "BMW", "Kia", "Toyota"};
+    private static final String[] MODELS = {"A4", "X5", "Rio", "Camry", "Corolla"};
+    private static final String[] FUEL_TYPES = {"Бензин", "Дизель", "Гибрид"};
+    private static final String[] TRANSMISSION_TYPES = {"Автоматическая", "Механическая"};
+    private static final String[] DRIVE_TYPES = {"Передний", "Задний", "Полный"};
+    private static final String[] LOCATIONS = {"Россия, Москва", "Россия, Казань", "Беларусь, Минск"};
+
+    @Autowired
+    private CarSearchIndex carSearchIndex;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void seedCatalog() {
+        TestCatalog.clear(jdbcTemplate, entityManagerFactory);
+
+        jdbcTemplate.batchUpdate("INSERT INTO body_types (id, name) VALUES (?, ?)",
+            List.of(new Object[]{1L, "Седан"}, new Object[]{2L, "Внедорожник"}, new Object[]{3L, "Хэтчбек"}));
+        jdbcTemplate.batchUpdate("INSERT INTO colors (id, name) VALUES (?, ?)",
+            List.of(new Object[]{1L, "Черный"}, new Object[]{2L, "Белый"}));
+
+        // Значения повторяются, а у части автомобилей не заданы: порядок при равенстве и NULL тоже сравнивается
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 12, 0);
+        List<Object[]> cars = new ArrayList<>();
+        List<Object[]> specs = new ArrayList<>();
+        for (long id = 1; id <= CARS; id++) {
+            int i = (int) id;
+            Timestamp createdAt = Timestamp.valueOf(base.plusDays(i % 9));
+            cars.add(new Object[]{id, MAKES[i % MAKES.length], MODELS[i % MODELS.length], 2012 + i % 6,
+                i % 5 == 0 ? null : 1 + id % 3, BigDecimal.valueOf(900_000 + (i % 11) * 50_000),
+                i % 13 * 10_000, i % 4 == 0 ? null : 1 + id % 2,
+                i % 6 == 0 ? null : LOCATIONS[i % LOCATIONS.length], createdAt,
+                Timestamp.valueOf(base.plusHours(i % 5))});
+            if (i % 8 != 0) {
+                specs.add(new Object[]{id, id, FUEL_TYPES[i % FUEL_TYPES.length], 100 + i % 10 * 20,
+                    TRANSMISSION_TYPES[i % TRANSMISSION_TYPES.length], DRIVE_TYPES[i % DRIVE_TYPES.length]});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO cars (id, make, model, year, body_type_id, price, mileage, color_id, "
+            + "location, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", cars);
+        jdbcTemplate.batchUpdate("INSERT INTO car_tech_specs (id, car_id, fuel_type, horse_power, transmission_type, "
+            + "drive_type) VALUES (?, ?, ?, ?, ?, ?)", specs);
+
+        carSearchIndex.rebuild();
+    }
+
+    @ParameterizedTest
+    @MethodSource("filters")
+    void pagesMatchSqlSearch(String name, Consumer<CarFilterDTO> setup) {
+        assertThat(carSearchIndex.isEnabled()).isTrue();
+        CarFilterDTO filter = new CarFilterDTO();
+        setup.accept(filter);
+
+        for (CarSortField sortField : CarSortField.values()) {
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                Sort sort = Sort.by(direction, sortField.getColumn());
+                Page<Long> sql = carRepository.findIdsWithFilters(filter, PageRequest.of(0, PAGE_SIZE, sort));
+                int pages = Math.max(sql.getTotalPages(), 1);
+                for (int page = 0; page < pages; page++) {
+                    PageRequest pageRequest = PageRequest.of(page, PAGE_SIZE, sort);
+                    Page<Long> expected = carRepository.findIdsWithFilters(filter, pageRequest);
+                    Page<Long> actual = carSearchIndex.findIdsWithFilters(filter, pageRequest);
+                    assertThat(actual.getContent()).as("%s, %s %s, страница %d", name, sortField, direction, page)
+                        .isEqualTo(expected.getContent());
+                    assertThat(actual.getTotalElements()).as("%s, количество", name)
+                        .isEqualTo(expected.getTotalElements());
+                }
+            }
+        }
+    }
+
+    static Stream<Object[]> filters() {
+        return Stream.of(
+            filter("без фильтра", filter -> {
+            }),
+            filter("марки", filter -> filter.setMake(List.of("BMW", "Kia"))),
+            filter("модель", filter -> filter.setModel("Camry")),
+            filter("годы и цена", filter -> {
+                filter.setMinYear(2013);
+                filter.setMaxYear(2016);
+                filter.setMinPrice(BigDecimal.valueOf(1_000_000));
+                filter.setMaxPrice(BigDecimal.valueOf(1_300_000));
+            }),
+            filter("пробег", filter -> filter.setMaxMileage(60_000)),
+            filter("кузов и цвет", filter -> {
+                filter.setBodyTypeId(2L);
+                filter.setColorId(1L);
+            }),
+            filter("характеристики", filter -> {
+                filter.setFuelType("Бензин");
+                filter.setMinHorsePower(160);
+                filter.setTransmissionType("Автоматическая");
+                filter.setDriveType("Полный");
+            }),
+            filter("местоположение", filter -> {
+                filter.setCountry("россия");
+                filter.setCity("Москва");
+            }),
+            filter("пустые строки", filter -> {
+                filter.setFuelType("");
+                filter.setTransmissionType(" ");
+                filter.setCountry("");
+            }),
+            filter("ничего не найдено", filter -> filter.setModel("Нет такой"))
+        );
+    }
+
+    private static Object[] filter(String name, Consumer<CarFilterDTO> setup) {
+        return new Object[]{name, setup};
+    }
+}
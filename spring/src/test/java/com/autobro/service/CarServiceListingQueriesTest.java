@@ -0,0 +1,117 @@
+package com.autobro.service;
+
+import com.autobro.dto.CarDTO;
+import com.autobro.dto.CarFilterDTO;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Страница каталога загружается постоянным числом запросов, не зависящим от размера страницы:
+ * ID страницы, COUNT, автомобили, типы кузова и цвета (одним запросом каждый при пустом кэше),
+ * фотографии и характеристики безопасности.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CarServiceListingQueriesTest {
+    private static final int CARS = 120;
+    private static final int PHOTOS_PER_CAR = 3;
+    private static final int FEATURES_PER_CAR = 2;
+    private static final int BODY_TYPES = 8;
+    private static final int COLORS = 6;
+    private static final int SAFETY_FEATURES = 5;
+    // Кэш второго уровня пуст — справочники тоже загружаются из базы
+    private static final long LISTING_STATEMENTS = 7;
+
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void seedCatalog() {
+        TestCatalog.clear(jdbcTemplate, entityManagerFactory);
+
+        List<Object[]> bodyTypes = new ArrayList<>();
+        for (long i = 1; i <= BODY_TYPES; i++) {
+            bodyTypes.add(new Object[]{i, "Кузов " + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO body_types (id, name) VALUES (?, ?)", bodyTypes);
+        List<Object[]> colors = new ArrayList<>();
+        for (long i = 1; i <= COLORS; i++) {
+            colors.add(new Object[]{i, "Цвет " + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO colors (id, name) VALUES (?, ?)", colors);
+        List<Object[]> features = new ArrayList<>();
+        for (long i = 1; i <= SAFETY_FEATURES; i++) {
+            features.add(new Object[]{i, "Система " + i, "ACTIVE"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO safety_features (id, name, feature_type) VALUES (?, ?, ?)", features);
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> cars = new ArrayList<>();
+        List<Object[]> specs = new ArrayList<>();
+        List<Object[]> photos = new ArrayList<>();
+        List<Object[]> carFeatures = new ArrayList<>();
+        long photoId = 1;
+        for (long id = 1; id <= CARS; id++) {
+            cars.add(new Object[]{id, "Toyota", "Camry", 2010 + (int) (id % 15), 1 + id % BODY_TYPES,
+                BigDecimal.valueOf(1_000_000 + id * 1000), (int) (id * 100), 1 + id % COLORS, now, now});
+            specs.add(new Object[]{id, id, "Бензин", 150, "Автоматическая"});
+            for (int i = 0; i < PHOTOS_PER_CAR; i++) {
+                photos.add(new Object[]{photoId++, id, "/uploads/cars/" + id + "/" + i + ".jpg", i == 0});
+            }
+            for (int i = 0; i < FEATURES_PER_CAR; i++) {
+                carFeatures.add(new Object[]{id, 1 + (id + i) % SAFETY_FEATURES});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO cars (id, make, model, year, body_type_id, price, mileage, color_id, "
+            + "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", cars);
+        jdbcTemplate.batchUpdate("INSERT INTO car_tech_specs (id, car_id, fuel_type, horse_power, transmission_type) "
+            + "VALUES (?, ?, ?, ?, ?)", specs);
+        jdbcTemplate.batchUpdate("INSERT INTO car_photos (id, car_id, url, main_photo) VALUES (?, ?, ?, ?)", photos);
+        jdbcTemplate.batchUpdate("INSERT INTO car_safety_features (car_id, feature_id) VALUES (?, ?)", carFeatures);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 50})
+    void listingPageRunsConstantNumberOfStatements(int size) {
+        entityManagerFactory.getCache().evictAll();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        CarFilterDTO filter = new CarFilterDTO();
+        filter.setSize(size);
+        Page<CarDTO> page = carService.findCars(filter);
+
+        assertThat(page.getContent()).hasSize(size);
+        assertThat(page.getTotalElements()).isEqualTo(CARS);
+        assertThat(page.getContent()).allSatisfy(car -> {
+            assertThat(car.getPhotos()).hasSize(PHOTOS_PER_CAR);
+            assertThat(car.getSafetyFeatures()).hasSize(FEATURES_PER_CAR);
+            assertThat(car.getBodyType()).isNotNull();
+            assertThat(car.getColor()).isNotNull();
+        });
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(LISTING_STATEMENTS);
+    }
+}
@@ -0,0 +1,191 @@
+package com.autobro.service;
+
+import com.autobro.dto.CrawlRunDTO;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Инкрементальный обход выдачи заглушки auto.ru (scripts/fake_auto_ru_server.js, 25 объявлений по 10 на странице)
+ * через заглушку процесса парсера: повторный обход без изменений останавливается на первой странице,
+ * а после /__fake/next записывает только новые и измененные объявления.
+ * Запись пачками (CarImportService) использует SQL PostgreSQL, поэтому тест работает не на H2, а на отдельной
+ * базе PostgreSQL (TEST_POSTGRES_URL, по умолчанию autobro_test на localhost) — схема в ней пересоздается.
+ * Без Node.js или базы тест пропускается.
+ */
+@SpringBootTest(properties = {
+    "parser.auto.ru.script.path=scripts/fake_parser_worker.js",
+    "parser.rate-limit.requests-per-second=0"
+})
+@ActiveProfiles("test")
+class ListingCrawlerTest {
+    private static final long CRAWL_TIMEOUT_MS = 60_000;
+    private static final String POSTGRES_URL = env("TEST_POSTGRES_URL", "jdbc:postgresql://localhost:5432/autobro_test");
+    private static final String POSTGRES_USER = env("TEST_POSTGRES_USER", "postgres");
+    private static final String POSTGRES_PASSWORD = env("TEST_POSTGRES_PASSWORD", "");
+    private static final int PORT = freePort();
+    private static final String SERVER = "http://localhost:" + PORT;
+
+    private static Process server;
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Autowired
+    private ListingCrawler crawler;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES_URL);
+        registry.add("spring.datasource.username", () -> POSTGRES_USER);
+        registry.add("spring.datasource.password", () -> POSTGRES_PASSWORD);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("parser.crawler.urls", () -> SERVER + "/moskva/cars/all/?sort=cr_date-desc");
+    }
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        try {
+            DriverManager.getConnection(POSTGRES_URL, POSTGRES_USER, POSTGRES_PASSWORD).close();
+        } catch (SQLException e) {
+            assumeTrue(false, "Нет базы PostgreSQL для теста обхода: " + e.getMessage());
+        }
+        try {
+            server = new ProcessBuilder("node", "scripts/fake_auto_ru_server.js", Integer.toString(PORT))
+                .redirectErrorStream(true)
+                .start();
+        } catch (IOException e) {
+            assumeTrue(false, "Для теста обхода нужен Node.js");
+        }
+        // Заглушка пишет строку в вывод, когда начинает принимать соединения
+        BufferedReader output = new BufferedReader(new InputStreamReader(server.getInputStream(), StandardCharsets.UTF_8));
+        assertThat(output.readLine()).as("запуск fake_auto_ru_server.js").contains(SERVER);
+    }
+
+    @AfterAll
+    static void stopServer() throws InterruptedException {
+        if (server != null) {
+            server.destroy();
+            server.waitFor(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @BeforeEach
+    void resetCatalog() throws Exception {
+        TestCatalog.clear(jdbcTemplate, entityManagerFactory);
+        post("/__fake/reset");
+    }
+
+    @Test
+    void recrawlWritesOnlyNewAndChangedListings() throws Exception {
+        CrawlRunDTO first = crawl();
+        assertRun(first, 25, 0, 0);
+        Map<String, Timestamp> initial = updatedAt();
+        assertThat(initial).hasSize(25);
+
+        // Первая страница без изменений — дальше объявления прошлого обхода
+        CrawlRunDTO second = crawl();
+        assertRun(second, 0, 0, 10);
+        assertThat(second.getPages()).isEqualTo(1);
+        assertThat(updatedAt()).isEqualTo(initial);
+
+        // Три новых объявления в начале выдачи и новая цена у первого из прежних
+        post("/__fake/next?new=3&changed=1");
+        CrawlRunDTO third = crawl();
+        assertRun(third, 3, 1, 16);
+        assertThat(third.getPages()).isEqualTo(2);
+
+        Map<String, Timestamp> updated = updatedAt();
+        assertThat(updated).hasSize(28);
+        // Первое объявление исходной выдачи — последнее из 25 созданных
+        String changedUrl = SERVER + "/cars/used/sale/kia/25/";
+        assertThat(updated.get(changedUrl)).isAfter(initial.get(changedUrl));
+        initial.forEach((url, timestamp) -> {
+            if (!url.equals(changedUrl)) {
+                assertThat(updated.get(url)).as(url).isEqualTo(timestamp);
+            }
+        });
+    }
+
+    private CrawlRunDTO crawl() throws InterruptedException {
+        crawler.start();
+        long deadline = System.currentTimeMillis() + CRAWL_TIMEOUT_MS;
+        CrawlRunDTO run = crawler.getLastRun();
+        while (run.getStatus() == CrawlRunDTO.Status.RUNNING) {
+            assertThat(System.currentTimeMillis()).as("обход не завершился").isLessThan(deadline);
+            Thread.sleep(50);
+            run = crawler.getLastRun();
+        }
+        return run;
+    }
+
+    private static void assertRun(CrawlRunDTO run, long imported, long updated, long unchanged) {
+        assertThat(run.getStatus()).isEqualTo(CrawlRunDTO.Status.DONE);
+        assertThat(run.getErrors()).isEmpty();
+        assertThat(run.getFailed()).isZero();
+        assertThat(run.getImported()).as("imported").isEqualTo(imported);
+        assertThat(run.getUpdated()).as("updated").isEqualTo(updated);
+        assertThat(run.getUnchanged()).as("unchanged").isEqualTo(unchanged);
+    }
+
+    private Map<String, Timestamp> updatedAt() {
+        Map<String, Timestamp> result = new HashMap<>();
+        jdbcTemplate.query("SELECT source_url, updated_at FROM cars",
+            rs -> {
+                result.put(rs.getString("source_url"), rs.getTimestamp("updated_at"));
+            });
+        return result;
+    }
+
+    private void post(String path) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(
+            HttpRequest.newBuilder(URI.create(SERVER + path)).POST(HttpRequest.BodyPublishers.noBody()).build(),
+            HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).as(path).isEqualTo(200);
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null && !value.isBlank() ? value : defaultValue;
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
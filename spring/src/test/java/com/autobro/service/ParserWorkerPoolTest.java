@@ -0,0 +1,169 @@
+package com.autobro.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Пул процессов парсера на заглушке scripts/fake_parser_worker.js: поведение заглушки задается URL,
+ * а PID процесса, выполнившего запрос, заглушка пишет в поле location результата
+ */
+class ParserWorkerPoolTest {
+    private static final String FAKE_WORKER = "scripts/fake_parser_worker.js";
+    private static final Pattern PID = Pattern.compile("pid (\\d+)");
+    private static final long REQUEST_TIMEOUT_MS = 1_000;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ParserWorkerPool pool;
+
+    @BeforeAll
+    static void requireNode() {
+        boolean available;
+        try {
+            Process process = new ProcessBuilder("node", "--version").start();
+            available = process.waitFor(10, TimeUnit.SECONDS) && process.exitValue() == 0;
+        } catch (Exception e) {
+            available = false;
+        }
+        assumeTrue(available, "Для теста пула процессов нужен Node.js");
+    }
+
+    @AfterEach
+    void shutdownPool() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void reusesWarmWorker() {
+        pool = createPool(2, 100);
+
+        long first = workerPid("https://auto.ru/cars/1");
+        long second = workerPid("https://auto.ru/cars/2");
+
+        assertThat(second).isEqualTo(first);
+        assertThat(starts()).isEqualTo(1);
+    }
+
+    @Test
+    void recyclesWorkerAfterMaxJobs() {
+        pool = createPool(1, 2);
+
+        long first = workerPid("https://auto.ru/cars/1");
+        long second = workerPid("https://auto.ru/cars/2");
+        long third = workerPid("https://auto.ru/cars/3");
+
+        assertThat(second).isEqualTo(first);
+        assertThat(third).isNotEqualTo(first);
+        assertThat(starts()).isEqualTo(2);
+    }
+
+    @Test
+    void keepsWorkerAfterParserError() {
+        pool = createPool(1, 100);
+        long before = workerPid("https://auto.ru/cars/1");
+
+        assertThatThrownBy(() -> pool.execute("details", "https://auto.ru/cars/error", null))
+            .hasMessageStartingWith("Ошибка парсера");
+
+        assertThat(workerPid("https://auto.ru/cars/2")).isEqualTo(before);
+        assertThat(requests("parser_error")).isEqualTo(1);
+    }
+
+    @Test
+    void replacesWorkerAfterTimeout() {
+        pool = createPool(1, 100);
+        long before = workerPid("https://auto.ru/cars/1");
+
+        assertThatThrownBy(() -> pool.execute("details", "https://auto.ru/cars/slow", null))
+            .hasMessageStartingWith("Парсинг превысил таймаут");
+
+        assertThat(workerPid("https://auto.ru/cars/2")).isNotEqualTo(before);
+        assertThat(requests("timeout")).isEqualTo(1);
+    }
+
+    @Test
+    void replacesWorkerAfterCrash() {
+        pool = createPool(1, 100);
+        long before = workerPid("https://auto.ru/cars/1");
+
+        assertThatThrownBy(() -> pool.execute("details", "https://auto.ru/cars/crash", null))
+            .hasMessageStartingWith("Ошибка процесса парсера");
+
+        assertThat(workerPid("https://auto.ru/cars/2")).isNotEqualTo(before);
+        assertThat(requests("process_error")).isEqualTo(1);
+    }
+
+    @Test
+    void runsAtMostPoolSizeWorkers() throws Exception {
+        int poolSize = 2;
+        int requests = 10;
+        pool = createPool(poolSize, 100);
+
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        CountDownLatch start = new CountDownLatch(1);
+        Set<Long> pids = ConcurrentHashMap.newKeySet();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < requests; i++) {
+                String url = "https://auto.ru/cars/" + i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    pids.add(workerPid(url));
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(pids).hasSizeBetween(1, poolSize);
+        assertThat(starts()).isEqualTo(pids.size());
+        assertThat(meterRegistry.get("parser.workers.idle").gauge().value()).isLessThanOrEqualTo(poolSize);
+    }
+
+    private ParserWorkerPool createPool(int poolSize, int maxJobs) {
+        return new ParserWorkerPool(new ObjectMapper(), meterRegistry, "node", FAKE_WORKER,
+            poolSize, maxJobs, REQUEST_TIMEOUT_MS, 10_000, 0);
+    }
+
+    private long workerPid(String url) {
+        JsonNode result = pool.execute("details", url, null);
+        Matcher matcher = PID.matcher(result.path("location").asText());
+        assertThat(matcher.find()).as("PID в ответе заглушки: %s", result).isTrue();
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private double starts() {
+        return meterRegistry.get("parser.worker.starts").tag("outcome", "success").counter().count();
+    }
+
+    private long requests(String outcome) {
+        return meterRegistry.get("parser.requests").tag("outcome", outcome).timer().count();
+    }
+}
@@ -0,0 +1,80 @@
+package com.autobro.service;
+
+import com.autobro.dto.TechnicalSpecDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Извлечение характеристик из описаний объявлений сверяется с эталоном tech-spec-golden.jsonl
+ * (его же описания использует бенчмарк TechnicalSpecExtractorBenchmark)
+ */
+class TechnicalSpecExtractorTest {
+    private static final String GOLDEN_FILE = "/tech-spec-golden.jsonl";
+
+    static List<Arguments> goldenCases() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        List<Arguments> cases = new ArrayList<>();
+        try (InputStream in = TechnicalSpecExtractorTest.class.getResourceAsStream(GOLDEN_FILE)) {
+            assertThat(in).as(GOLDEN_FILE).isNotNull();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    JsonNode node = mapper.readTree(line);
+                    cases.add(Arguments.of(node.get("description").asText(),
+                        mapper.treeToValue(node.get("expected"), TechnicalSpecDTO.class)));
+                }
+            }
+        }
+        return cases;
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("goldenCases")
+    void matchesGoldenSpec(String description, TechnicalSpecDTO expected) {
+        assertThat(TechnicalSpecExtractor.extract(description)).isEqualTo(expected);
+    }
+
+    @Test
+    void electricPackageIsNotElectricFuel() {
+        TechnicalSpecDTO spec = TechnicalSpecExtractor.extract("Бензин 2.0 л, электропакет, подогрев сидений");
+
+        assertThat(spec.getFuelType()).isEqualTo("Бензин");
+        assertThat(TechnicalSpecExtractor.extract("Электропакет, камера заднего вида").getFuelType()).isNull();
+    }
+
+    @Test
+    void fuelConsumptionIsNotEngineVolume() {
+        TechnicalSpecDTO spec = TechnicalSpecExtractor.extract("1.6 л 106 л.с., расход 4.5 л на 100 км");
+
+        assertThat(spec.getEngineVolume()).isEqualTo(1.6);
+        assertThat(TechnicalSpecExtractor.extract("Расход 4.5 л на 100 км").getEngineVolume()).isNull();
+    }
+
+    @Test
+    void kilowattsAreConvertedToHorsePower() {
+        assertThat(TechnicalSpecExtractor.extract("Электро, 300 кВт, задний привод").getHorsePower()).isEqualTo(408);
+    }
+
+    @Test
+    void engineVolumeIsReadBeforeEngineCode() {
+        TechnicalSpecDTO spec = TechnicalSpecExtractor.extract("Skoda Octavia 1.8 TSI, 180 hp, 7-speed DSG");
+
+        assertThat(spec.getEngineVolume()).isEqualTo(1.8);
+        assertThat(spec.getHorsePower()).isEqualTo(180);
+    }
+}
@@ -0,0 +1,26 @@
+package com.autobro.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Очистка каталога между тестами: контекст приложения и база H2 общие для всех тестов
+ */
+final class TestCatalog {
+    // Порядок учитывает внешние ключи: сначала связи и зависимые таблицы
+    private static final String[] TABLES = {
+        "orders", "car_safety_features", "car_equipment", "car_photos", "car_tech_specs", "cars",
+        "body_types", "colors", "safety_features", "equipment", "stored_files"
+    };
+
+    private TestCatalog() {
+    }
+
+    static void clear(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        for (String table : TABLES) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+        // Справочники из кэша второго уровня ссылались бы на удаленные строки
+        entityManagerFactory.getCache().evictAll();
+    }
+}
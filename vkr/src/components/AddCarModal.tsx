@@ -29,7 +29,7 @@ interface EquipmentOption {
   name: string;
   category: string;
   description?: string;
-  is_standard?: boolean;
+  isStandard?: boolean;
 }
 
 interface CarDTO {
@@ -91,25 +91,20 @@ const AddCarModal: React.FC<AddCarModalProps> = ({ isOpen, onClose, onCarAdded,
 
   useEffect(() => {
     if (isOpen) {
-      axios.get('/dictionary/body-types')
+      // Типы кузова, цвета и комплектация — из общего снимка справочников
+      axios.get('/dictionary/snapshot')
         .then(res => {
-          setBodyTypes(res.data.data || res.data.content || []);
+          const snapshot = res.data.data || {};
+          setBodyTypes(snapshot.bodyTypes || []);
+          setColors(snapshot.colors || []);
+          setEquipmentOptions(snapshot.equipment || []);
         })
-        .catch((err) => {
+        .catch(() => {
           setBodyTypes([]);
-          setError('Не удалось загрузить типы кузова');
-        });
-      axios.get('/dictionary/colors')
-        .then(res => {
-          setColors(res.data.data || res.data.content || []);
-        })
-        .catch((err) => {
           setColors([]);
-          setError('Не удалось загрузить цвета');
+          setEquipmentOptions([]);
+          setError('Не удалось загрузить справочники');
         });
-      axios.get('/dictionary/equipment')
-        .then(res => setEquipmentOptions(res.data.data || res.data.content || []))
-        .catch(() => setEquipmentOptions([]));
       if (isEdit && carToEdit) {
         setMake(carToEdit.make || '');
         setModel(carToEdit.model || '');
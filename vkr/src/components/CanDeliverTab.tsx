@@ -27,6 +27,8 @@ interface Car {
   condition: string;
   location: string;
   mainPhotoUrl?: string;
+  mainPhotoThumbnailUrl?: string;
+  photoThumbnails?: string[];
   photos?: string[];
   safetyFeatures?: string[];
   equipment?: string[];
@@ -266,8 +268,8 @@ const CanDeliverTab: React.FC<CanDeliverTabProps> = ({ filters, viewMode, onShow
                         <img 
                           src={
                             isHovering && hoveredCarId === car.id && car.photos && car.photos.length > 0
-                              ? car.photos[hoveredPhotoIndex].replace(/^\//, '')
-                              : (car.mainPhotoUrl ? car.mainPhotoUrl.replace(/^\//, '') : '/car.png')
+                              ? (car.photoThumbnails?.[hoveredPhotoIndex] ?? car.photos[hoveredPhotoIndex]).replace(/^\//, '')
+                              : (car.mainPhotoUrl ? (car.mainPhotoThumbnailUrl ?? car.mainPhotoUrl).replace(/^\//, '') : '/car.png')
                           } 
                           className="img-fluid h-100 rounded-start" 
                           alt={`${car.make} ${car.model}`} 
@@ -371,8 +373,8 @@ const CanDeliverTab: React.FC<CanDeliverTabProps> = ({ filters, viewMode, onShow
                       <img 
                         src={
                           isHovering && hoveredCarId === car.id && car.photos && car.photos.length > 0
-                            ? car.photos[hoveredPhotoIndex].replace(/^\//, '')
-                            : (car.mainPhotoUrl ? car.mainPhotoUrl.replace(/^\//, '') : '/car.png')
+                            ? (car.photoThumbnails?.[hoveredPhotoIndex] ?? car.photos[hoveredPhotoIndex]).replace(/^\//, '')
+                            : (car.mainPhotoUrl ? (car.mainPhotoThumbnailUrl ?? car.mainPhotoUrl).replace(/^\//, '') : '/car.png')
                         } 
                         className="card-img-top" 
                         alt={`${car.make} ${car.model}`} 
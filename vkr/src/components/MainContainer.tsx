@@ -28,6 +28,10 @@ interface Car {
   condition?: string;
   createdAt?: string;
   mainPhotoUrl?: string;
+  mainPhotoThumbnailUrl?: string;
+  mainPhotoMediumUrl?: string;
+  photoThumbnails?: string[];
+  photoMediums?: string[];
   equipment?: string[];
   safetyFeatures?: string[];
   engineInfo?: string;
@@ -47,6 +51,15 @@ interface Color {
   hexCode: string;
 }
 
+interface DictionarySnapshot {
+  version: string;
+  bodyTypes: BodyType[];
+  colors: Color[];
+  fuelTypes: string[];
+  transmissionTypes: string[];
+  driveTypes: string[];
+}
+
 interface ApiResponse<T> {
   data: T;
   message: string;
@@ -217,24 +230,26 @@ const MainContainer: React.FC = () => {
     setShowOrderModal(true);
   };
 
-  // Functions for fetching dictionaries (fetchBodyTypes, fetchColors, etc.) remain the same
-  const fetchBodyTypes = useCallback(async () => {
-    try {
-      const response = await axios.get<ApiResponse<BodyType[]>>(`${API_URL}/dictionary/body-types`);
-      setBodyTypes(response.data?.data || response.data?.content || []);
-    } catch (error) {
-      console.error("Error fetching body types:", error);
-      setBodyTypes([{ id: 1, name: "Седан" }]); // Fallback data
-    }
-  }, [API_URL]);
-
-  const fetchColors = useCallback(async () => {
+  // Все справочники приходят одним запросом GET /api/dictionary/snapshot
+  const fetchDictionarySnapshot = useCallback(async () => {
+    const cleanList = (items?: string[]) =>
+      (items || []).filter(item => typeof item === 'string' && item.trim().length > 0).sort();
     try {
-      const response = await axios.get<ApiResponse<Color[]>>(`${API_URL}/dictionary/colors`);
-      setColors(response.data?.data || response.data?.content || []);
+      const response = await axios.get<ApiResponse<DictionarySnapshot>>(`${API_URL}/dictionary/snapshot`);
+      const snapshot = response.data?.data;
+      setBodyTypes(snapshot?.bodyTypes || []);
+      setColors(snapshot?.colors || []);
+      setFuelTypes(cleanList(snapshot?.fuelTypes));
+      setTransmissionTypes(cleanList(snapshot?.transmissionTypes));
+      setDriveTypes(cleanList(snapshot?.driveTypes));
     } catch (error) {
-      console.error("Error fetching colors:", error);
-      setColors([{ id: 1, name: "Черный", hexCode: "#000000" }]); // Fallback data
+      console.error("Error fetching dictionary snapshot:", error);
+      // Fallback data
+      setBodyTypes([{ id: 1, name: "Седан" }]);
+      setColors([{ id: 1, name: "Черный", hexCode: "#000000" }]);
+      setFuelTypes(["Бензин", "Дизель"].sort());
+      setTransmissionTypes(["Автоматическая", "Механическая"].sort());
+      setDriveTypes(["Передний", "Задний"].sort());
     }
   }, [API_URL]);
 
@@ -253,62 +268,13 @@ const MainContainer: React.FC = () => {
     }
   }, [API_URL]);
 
-  const fetchFuelTypes = useCallback(async () => {
-    try {
-      const response = await axios.get<ApiResponse<string[]>>(`${API_URL}/dictionary/fuel-types`);
-      const data = response.data?.data || response.data?.content;
-      if (Array.isArray(data)) {
-        setFuelTypes(data.filter(item => typeof item === 'string' && item.trim().length > 0).sort());
-      } else {
-        setFuelTypes([]);
-      }
-    } catch (error) {
-      console.error("Error fetching fuel types:", error);
-      setFuelTypes(["Бензин", "Дизель"].sort()); // Fallback data
-    }
-  }, [API_URL]);
-
-  const fetchTransmissionTypes = useCallback(async () => {
-    try {
-      const response = await axios.get<ApiResponse<string[]>>(`${API_URL}/dictionary/transmission-types`);
-      const data = response.data?.data || response.data?.content;
-      if (Array.isArray(data)) {
-        setTransmissionTypes(data.filter(item => typeof item === 'string' && item.trim().length > 0).sort());
-      } else {
-        setTransmissionTypes([]);
-      }
-    } catch (error) {
-      console.error("Error fetching transmission types:", error);
-      setTransmissionTypes(["Автоматическая", "Механическая"].sort()); // Fallback data
-    }
-  }, [API_URL]);
-
-  const fetchDriveTypes = useCallback(async () => {
-    try {
-      const response = await axios.get<ApiResponse<string[]>>(`${API_URL}/dictionary/drive-types`);
-      const data = response.data?.data || response.data?.content;
-      if (Array.isArray(data)) {
-        setDriveTypes(data.filter(item => typeof item === 'string' && item.trim().length > 0).sort());
-      } else {
-        setDriveTypes([]);
-      }
-    } catch (error) {
-      console.error("Error fetching drive types:", error);
-      setDriveTypes(["Передний", "Задний"].sort()); // Fallback data
-    }
-  }, [API_URL]);
-
   useEffect(() => {
     const fetchDictionaries = async () => {
       // setLoading(true); // Consider if separate loading state is needed
       try {
         await Promise.all([
-          fetchBodyTypes(),
-          fetchColors(),
-          fetchMakes(),
-          fetchFuelTypes(),
-          fetchTransmissionTypes(),
-          fetchDriveTypes()
+          fetchDictionarySnapshot(),
+          fetchMakes()
         ]);
       } catch (err) {
         console.error('Ошибка при загрузке справочников:', err);
@@ -318,7 +284,7 @@ const MainContainer: React.FC = () => {
       }
     };
     fetchDictionaries();
-  }, [fetchBodyTypes, fetchColors, fetchMakes, fetchFuelTypes, fetchTransmissionTypes, fetchDriveTypes]);
+  }, [fetchDictionarySnapshot, fetchMakes]);
 
   useEffect(() => {
     const fetchModelsForSelectedMakes = async () => {
@@ -813,8 +779,8 @@ const MainContainer: React.FC = () => {
                       >
                         <img
                           src={car.photos && car.photos.length > 0 && isHovering && hoveredCarId === car.id
-                            ? normalizePhotoUrl(car.photos[hoveredPhotoIndex])
-                            : (car.mainPhotoUrl ? normalizePhotoUrl(car.mainPhotoUrl) : '/car.png')}
+                            ? normalizePhotoUrl(car.photoThumbnails?.[hoveredPhotoIndex] ?? car.photos[hoveredPhotoIndex])
+                            : (car.mainPhotoUrl ? normalizePhotoUrl(car.mainPhotoThumbnailUrl ?? car.mainPhotoUrl) : '/car.png')}
                           alt={`${car.make} ${car.model}`}
                           onError={(e) => { 
                             console.error('Error loading image:', e.currentTarget.src);